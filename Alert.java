@@ -9,13 +9,25 @@ import java.util.Objects;
  * <p>An alert encapsulates the type of violation, the boat ID that
  * triggered it, a human‑readable message, and the timestamp of when
  * the violation occurred.</p>
+ *
+ * <p>Alerts raised by the system store only their structured fields;
+ * the message is rendered from them the first time it is requested, so
+ * alerts that are never displayed cost no string formatting.</p>
  */
 public class Alert {
     private final String boatId;
     private final AlertType type;
-    private final String message;
+    private final double latitude;
+    private final double longitude;
     private final LocalDateTime timestamp;
 
+    /**
+     * The message, rendered on first use for alerts built from their
+     * position.  Rendering is idempotent, so a racy first read at worst
+     * formats the message twice.
+     */
+    private String message;
+
     /**
      * Constructs a new alert instance.
      *
@@ -29,6 +41,26 @@ public class Alert {
         this.type = Objects.requireNonNull(type, "type must not be null");
         this.message = Objects.requireNonNull(message, "message must not be null");
         this.timestamp = Objects.requireNonNull(timestamp, "timestamp must not be null");
+        this.latitude = Double.NaN;
+        this.longitude = Double.NaN;
+    }
+
+    /**
+     * Constructs an alert from the position that triggered it.  The
+     * message is derived from these fields on demand.
+     *
+     * @param boatId    the identifier of the boat responsible for this alert
+     * @param type      the type of alert
+     * @param latitude  the latitude of the offending fix
+     * @param longitude the longitude of the offending fix
+     * @param timestamp the time when the alert was generated
+     */
+    public Alert(String boatId, AlertType type, double latitude, double longitude, LocalDateTime timestamp) {
+        this.boatId = Objects.requireNonNull(boatId, "boatId must not be null");
+        this.type = Objects.requireNonNull(type, "type must not be null");
+        this.timestamp = Objects.requireNonNull(timestamp, "timestamp must not be null");
+        this.latitude = latitude;
+        this.longitude = longitude;
     }
 
     public String getBoatId() {
@@ -40,19 +72,52 @@ public class Alert {
     }
 
     public String getMessage() {
-        return message;
+        String rendered = message;
+        if (rendered == null) {
+            rendered = render();
+            message = rendered;
+        }
+        return rendered;
+    }
+
+    /**
+     * Returns the latitude of the fix that raised the alert, or
+     * {@code NaN} if the alert was built from a message.
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Returns the longitude of the fix that raised the alert, or
+     * {@code NaN} if the alert was built from a message.
+     */
+    public double getLongitude() {
+        return longitude;
     }
 
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
 
+    private String render() {
+        switch (type) {
+            case TIME_EXCEEDED:
+                return String.format("Boat %s exceeded operating hours at %s", boatId, timestamp.toLocalTime());
+            case AREA_BREACH:
+                return String.format("Boat %s left permitted area at (%.2f, %.2f)", boatId, latitude, longitude);
+            case RESTRICTED_ZONE:
+            default:
+                return String.format("Boat %s entered restricted zone at (%.2f, %.2f)", boatId, latitude, longitude);
+        }
+    }
+
     @Override
     public String toString() {
         return "Alert{" +
                 "boatId='" + boatId + '\'' +
                 ", type=" + type +
-                ", message='" + message + '\'' +
+                ", message='" + getMessage() + '\'' +
                 ", timestamp=" + timestamp +
                 '}';
     }
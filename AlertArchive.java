@@ -0,0 +1,547 @@
+package com.boattracking;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On-disk archive of every alert raised, partitioned by day and indexed
+ * by boat and alert type.
+ *
+ * <p>Each day of alerts, by alert timestamp, is kept in its own data
+ * file named after the date ({@code 2025-03-01.alerts}), holding the
+ * alerts in arrival order in the record format of
+ * {@link FleetSnapshot}.  Next to it an index file
+ * ({@code 2025-03-01.idx}) lists, for every boat, the offsets of its
+ * alerts together with their types, and for every alert type the offsets
+ * of the alerts of that type.  Boats are sorted by the hash of their
+ * identifier, so a lookup is a binary search in the memory-mapped index
+ * followed by reads of just the matching records.  A query therefore
+ * touches only the days in its range and, within them, only the alerts
+ * it returns; nothing is loaded into the heap up front.</p>
+ *
+ * <p>Alerts are appended to the partition of their day, which stays open
+ * with its index in memory.  Up to {@value #OPEN_PARTITIONS} partitions
+ * are open at a time, enough for the days either side of midnight; the
+ * least recently used one is sealed, writing its index, when another
+ * day is opened.  A late alert for a sealed day reopens that day.  Every
+ * index records the length of data it covers, and on opening the
+ * archive any day whose index is missing or out of date, for example
+ * because the process died with the day open, is re-indexed from its
+ * data.  A record torn by a crash is dropped at that point.</p>
+ *
+ * <p>Appends are buffered.  A background thread writes and forces the
+ * open partitions every {@value #SYNC_INTERVAL_MILLIS} ms, in step with
+ * the write-ahead log, so a crash loses at most the alerts of the last
+ * interval; a full buffer reaches the file sooner but is only forced at
+ * the next interval.</p>
+ *
+ * <p>The archive is thread-safe; appends, queries and the periodic sync
+ * are serialised.</p>
+ */
+public class AlertArchive implements Closeable {
+
+    static final String DATA_SUFFIX = ".alerts";
+    static final String INDEX_SUFFIX = ".idx";
+
+    static final int INDEX_MAGIC = 0x42544149; // "BTAI"
+    static final int INDEX_VERSION = 1;
+
+    /**
+     * Number of day partitions kept open for appending.
+     */
+    static final int OPEN_PARTITIONS = 2;
+
+    /**
+     * How often appended alerts are forced to disk, in milliseconds.
+     */
+    static final long SYNC_INTERVAL_MILLIS = 1_000;
+
+    private static final AlertType[] TYPES = AlertType.values();
+
+    /**
+     * Bytes per boat entry in an index: hash, name offset, posting start
+     * and posting count.
+     */
+    private static final int ENTRY_BYTES = 4 * 4;
+
+    private final Path directory;
+    private final NavigableSet<LocalDate> days = new TreeSet<>();
+    private final LinkedHashMap<LocalDate, Partition> openPartitions = new LinkedHashMap<>(4, 0.75f, true);
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(128);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "alert-archive-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean closed;
+
+    private AlertArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the archive in {@code directory}, creating it if missing, and
+     * re-indexes any day left without an up-to-date index.
+     *
+     * @param directory the archive directory
+     * @return the opened archive
+     * @throws IOException if the directory cannot be read or written
+     */
+    public static AlertArchive open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        AlertArchive archive = new AlertArchive(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + DATA_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    archive.days.add(LocalDate.parse(name.substring(0, name.length() - DATA_SUFFIX.length())));
+                } catch (DateTimeParseException e) {
+                    // not one of ours
+                }
+            }
+        }
+        for (LocalDate day : archive.days) {
+            if (!archive.indexIsCurrent(day)) {
+                archive.reopen(day).seal();
+            }
+        }
+        archive.syncer.scheduleWithFixedDelay(archive::syncQuietly, SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        return archive;
+    }
+
+    /**
+     * Appends an alert to the partition of its day.
+     *
+     * @param alert the alert to archive
+     * @throws UncheckedIOException if the alert cannot be written
+     */
+    public synchronized void append(Alert alert) {
+        Objects.requireNonNull(alert, "alert must not be null");
+        if (closed) {
+            throw new IllegalStateException("Alert archive is closed");
+        }
+        try {
+            record.reset();
+            FleetSnapshot.writeAlert(recordOut, alert);
+            partitionFor(alert.getTimestamp().toLocalDate()).append(alert, record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the archived alerts matching a boat, a type and a time
+     * range.  Alerts are returned by day, oldest day first, and within a
+     * day in the order they were archived.
+     *
+     * @param boatId the boat, or {@code null} for every boat
+     * @param type   the alert type, or {@code null} for every type
+     * @param from   the earliest alert time, inclusive
+     * @param to     the latest alert time, inclusive
+     * @return the matching alerts
+     * @throws IOException if the archive cannot be read
+     */
+    public synchronized List<Alert> query(String boatId, AlertType type, LocalDateTime from, LocalDateTime to)
+            throws IOException {
+        Objects.requireNonNull(from, "from must not be null");
+        Objects.requireNonNull(to, "to must not be null");
+        List<Alert> result = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return result;
+        }
+        for (LocalDate day : days.subSet(from.toLocalDate(), true, to.toLocalDate(), true)) {
+            Partition partition = openPartitions.get(day);
+            if (partition != null) {
+                partition.flush();
+            }
+            ByteBuffer data = map(dataFile(day), -1);
+            if (boatId == null && type == null) {
+                scan(data, from, to, result);
+                continue;
+            }
+            long[] offsets = partition != null ? partition.offsets(boatId, type) : sealedOffsets(day, boatId, type);
+            for (long offset : offsets) {
+                data.position((int) offset);
+                Alert alert = FleetSnapshot.readAlert(data);
+                if (!alert.getTimestamp().isBefore(from) && !alert.getTimestamp().isAfter(to)) {
+                    result.add(alert);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the days holding archived alerts, oldest first.
+     */
+    public synchronized List<LocalDate> getDays() {
+        return new ArrayList<>(days);
+    }
+
+    /**
+     * Seals every open partition, writing its index.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        syncer.shutdown();
+        for (Iterator<Partition> it = openPartitions.values().iterator(); it.hasNext(); ) {
+            Partition partition = it.next();
+            it.remove();
+            partition.seal();
+        }
+    }
+
+    private synchronized void syncQuietly() {
+        if (closed) {
+            return;
+        }
+        try {
+            for (Partition partition : openPartitions.values()) {
+                partition.sync();
+            }
+        } catch (IOException e) {
+            System.err.println("Alert archive sync failed: " + e.getMessage());
+        }
+    }
+
+    private Partition partitionFor(LocalDate day) throws IOException {
+        Partition partition = openPartitions.get(day);
+        if (partition != null) {
+            return partition;
+        }
+        partition = reopen(day);
+        days.add(day);
+        openPartitions.put(day, partition);
+        if (openPartitions.size() > OPEN_PARTITIONS) {
+            Iterator<Partition> eldest = openPartitions.values().iterator();
+            Partition sealed = eldest.next();
+            eldest.remove();
+            sealed.seal();
+        }
+        return partition;
+    }
+
+    /**
+     * Opens the partition of a day for appending, rebuilding its index in
+     * memory from the data file and dropping any torn record at its end.
+     */
+    private Partition reopen(LocalDate day) throws IOException {
+        Path data = dataFile(day);
+        Files.deleteIfExists(indexFile(day));
+        long length = 0;
+        Partition partition = new Partition(day);
+        if (Files.exists(data)) {
+            ByteBuffer in = map(data, -1);
+            try {
+                while (in.hasRemaining()) {
+                    Alert alert = FleetSnapshot.readAlert(in);
+                    partition.index(alert, length);
+                    length = in.position();
+                }
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                // torn record at the end of the day
+            }
+            if (length < Files.size(data)) {
+                try (FileChannel channel = FileChannel.open(data, StandardOpenOption.WRITE)) {
+                    channel.truncate(length);
+                }
+            }
+        }
+        partition.start(length);
+        return partition;
+    }
+
+    private boolean indexIsCurrent(LocalDate day) throws IOException {
+        Path index = indexFile(day);
+        if (!Files.exists(index) || Files.size(index) < 4 + 2 + 8) {
+            return false;
+        }
+        ByteBuffer in = map(index, 4 + 2 + 8);
+        return in.getInt() == INDEX_MAGIC && in.getShort() == INDEX_VERSION
+                && in.getLong() == Files.size(dataFile(day));
+    }
+
+    /**
+     * Looks up the offsets of matching alerts in the index file of a
+     * sealed day.
+     */
+    private long[] sealedOffsets(LocalDate day, String boatId, AlertType type) throws IOException {
+        ByteBuffer in = map(indexFile(day), -1);
+        in.position(4 + 2 + 8);
+        int boatCount = in.getInt();
+        int boatPostingCount = in.getInt();
+        int typeCount = in.getInt();
+        int[] typeStarts = new int[typeCount + 1];
+        for (int t = 0; t < typeCount; t++) {
+            typeStarts[t + 1] = typeStarts[t] + in.getInt();
+        }
+        int entries = in.position();
+        int typePostings = entries + boatCount * ENTRY_BYTES;
+        int boatPostings = typePostings + typeStarts[typeCount] * Long.BYTES;
+
+        if (boatId == null) {
+            int t = type.ordinal();
+            long[] offsets = new long[t < typeCount ? typeStarts[t + 1] - typeStarts[t] : 0];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = in.getLong(typePostings + (typeStarts[t] + i) * Long.BYTES);
+            }
+            return offsets;
+        }
+
+        int names = boatPostings + boatPostingCount * Long.BYTES;
+        int hash = boatId.hashCode();
+        int lo = 0;
+        int hi = boatCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (in.getInt(entries + mid * ENTRY_BYTES) < hash) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        for (int i = lo; i < boatCount && in.getInt(entries + i * ENTRY_BYTES) == hash; i++) {
+            int entry = entries + i * ENTRY_BYTES;
+            in.position(names + in.getInt(entry + 4));
+            if (!boatId.equals(FleetSnapshot.readUTF(in))) {
+                continue;
+            }
+            int start = in.getInt(entry + 8);
+            int count = in.getInt(entry + 12);
+            long[] offsets = new long[count];
+            int matched = 0;
+            for (int p = 0; p < count; p++) {
+                long posting = in.getLong(boatPostings + (start + p) * Long.BYTES);
+                if (type == null || (posting & 0xFF) == type.ordinal()) {
+                    offsets[matched++] = posting >>> 8;
+                }
+            }
+            return Arrays.copyOf(offsets, matched);
+        }
+        return new long[0];
+    }
+
+    private static void scan(ByteBuffer data, LocalDateTime from, LocalDateTime to, List<Alert> result)
+            throws IOException {
+        while (data.hasRemaining()) {
+            Alert alert = FleetSnapshot.readAlert(data);
+            if (!alert.getTimestamp().isBefore(from) && !alert.getTimestamp().isAfter(to)) {
+                result.add(alert);
+            }
+        }
+    }
+
+    /**
+     * Maps the first {@code length} bytes of a file, or all of it when
+     * {@code length} is negative.
+     */
+    private static MappedByteBuffer map(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = length < 0 ? channel.size() : Math.min(length, channel.size());
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    private Path dataFile(LocalDate day) {
+        return directory.resolve(day + DATA_SUFFIX);
+    }
+
+    private Path indexFile(LocalDate day) {
+        return directory.resolve(day + INDEX_SUFFIX);
+    }
+
+    /**
+     * A day open for appending, with its index held in memory.  Boat
+     * postings pack the record offset with the alert type in the low
+     * byte; type postings hold plain offsets.
+     */
+    private final class Partition {
+        private final LocalDate day;
+        private final Map<String, LongList> byBoat = new HashMap<>();
+        private final LongList[] byType = new LongList[TYPES.length];
+        private FileOutputStream fileOut;
+        private BufferedOutputStream out;
+        private long length;
+        private long syncedLength;
+
+        Partition(LocalDate day) {
+            this.day = day;
+            for (int t = 0; t < byType.length; t++) {
+                byType[t] = new LongList();
+            }
+        }
+
+        void start(long length) throws IOException {
+            this.length = length;
+            this.syncedLength = length;
+            this.fileOut = new FileOutputStream(dataFile(day).toFile(), true);
+            this.out = new BufferedOutputStream(fileOut, 1 << 16);
+        }
+
+        void append(Alert alert, ByteArrayOutputStream encoded) throws IOException {
+            encoded.writeTo(out);
+            index(alert, length);
+            length += encoded.size();
+        }
+
+        void index(Alert alert, long offset) {
+            byBoat.computeIfAbsent(alert.getBoatId(), id -> new LongList())
+                    .add(offset << 8 | alert.getType().ordinal());
+            byType[alert.getType().ordinal()].add(offset);
+        }
+
+        long[] offsets(String boatId, AlertType type) {
+            if (boatId == null) {
+                return byType[type.ordinal()].toArray();
+            }
+            LongList postings = byBoat.get(boatId);
+            if (postings == null) {
+                return new long[0];
+            }
+            long[] offsets = new long[postings.size];
+            int matched = 0;
+            for (int p = 0; p < postings.size; p++) {
+                long posting = postings.values[p];
+                if (type == null || (posting & 0xFF) == type.ordinal()) {
+                    offsets[matched++] = posting >>> 8;
+                }
+            }
+            return Arrays.copyOf(offsets, matched);
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        /**
+         * Writes and forces the alerts appended since the last sync.
+         */
+        void sync() throws IOException {
+            if (syncedLength != length) {
+                out.flush();
+                fileOut.getFD().sync();
+                syncedLength = length;
+            }
+        }
+
+        /**
+         * Closes the data file and writes the index next to it.
+         */
+        void seal() throws IOException {
+            out.flush();
+            fileOut.getFD().sync();
+            out.close();
+
+            String[] boatIds = byBoat.keySet().toArray(new String[0]);
+            Arrays.sort(boatIds, Comparator.comparingInt(String::hashCode).thenComparing(Comparator.naturalOrder()));
+            ByteArrayOutputStream nameBytes = new ByteArrayOutputStream();
+            DataOutputStream names = new DataOutputStream(nameBytes);
+            int[] nameOffsets = new int[boatIds.length];
+            int postingCount = 0;
+            for (int i = 0; i < boatIds.length; i++) {
+                nameOffsets[i] = names.size();
+                names.writeUTF(boatIds[i]);
+                postingCount += byBoat.get(boatIds[i]).size;
+            }
+
+            Path index = indexFile(day);
+            Path tmp = index.resolveSibling(index.getFileName() + ".tmp");
+            try (FileOutputStream indexFileOut = new FileOutputStream(tmp.toFile());
+                 DataOutputStream indexOut = new DataOutputStream(new BufferedOutputStream(indexFileOut, 1 << 16))) {
+                indexOut.writeInt(INDEX_MAGIC);
+                indexOut.writeShort(INDEX_VERSION);
+                indexOut.writeLong(length);
+                indexOut.writeInt(boatIds.length);
+                indexOut.writeInt(postingCount);
+                indexOut.writeInt(byType.length);
+                for (LongList postings : byType) {
+                    indexOut.writeInt(postings.size);
+                }
+                int postingStart = 0;
+                for (int i = 0; i < boatIds.length; i++) {
+                    int count = byBoat.get(boatIds[i]).size;
+                    indexOut.writeInt(boatIds[i].hashCode());
+                    indexOut.writeInt(nameOffsets[i]);
+                    indexOut.writeInt(postingStart);
+                    indexOut.writeInt(count);
+                    postingStart += count;
+                }
+                for (LongList postings : byType) {
+                    postings.writeTo(indexOut);
+                }
+                for (String boatId : boatIds) {
+                    byBoat.get(boatId).writeTo(indexOut);
+                }
+                nameBytes.writeTo(indexOut);
+                indexOut.flush();
+                indexFileOut.getFD().sync();
+            }
+            Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Growable array of longs.
+     */
+    private static final class LongList {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            for (int i = 0; i < size; i++) {
+                out.writeLong(values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.boattracking;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Bounded store for the alerts raised by the system.
+ *
+ * <p>Alerts are kept in a fixed-capacity ring buffer.  Appending is
+ * O(1); once the buffer is full each new alert evicts the oldest one.
+ * An eviction listener can be installed to spill evicted alerts
+ * elsewhere (for example to disk) instead of losing them.  The listener
+ * is called while the log is locked, so it should be quick or hand the
+ * alert off to another thread.</p>
+ */
+public class AlertLog {
+
+    private final Alert[] ring;
+
+    /**
+     * Total number of alerts ever appended.  The next alert is written
+     * at {@code appended % ring.length}.
+     */
+    private long appended;
+
+    private Consumer<Alert> evictionListener;
+
+    /**
+     * Creates an empty log holding at most {@code capacity} alerts.
+     *
+     * @param capacity the maximum number of alerts retained
+     */
+    public AlertLog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.ring = new Alert[capacity];
+    }
+
+    /**
+     * Appends an alert, evicting the oldest alert if the log is full.
+     *
+     * @param alert the alert to append
+     */
+    public synchronized void append(Alert alert) {
+        Objects.requireNonNull(alert, "alert must not be null");
+        int slot = (int) (appended % ring.length);
+        Alert evicted = ring[slot];
+        ring[slot] = alert;
+        appended++;
+        if (evicted != null && evictionListener != null) {
+            evictionListener.accept(evicted);
+        }
+    }
+
+    /**
+     * Installs a listener that receives every alert evicted from the
+     * log, replacing any previous listener.
+     *
+     * @param listener the listener, or {@code null} to drop evicted alerts
+     */
+    public synchronized void setEvictionListener(Consumer<Alert> listener) {
+        this.evictionListener = listener;
+    }
+
+    /**
+     * Returns the alerts currently retained, oldest first.  The list is
+     * a copy taken with at most two array copies and is not affected by
+     * later appends.
+     *
+     * @return an unmodifiable list of alerts
+     */
+    public synchronized List<Alert> snapshot() {
+        int size = size();
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        Alert[] copy = new Alert[size];
+        int start = (int) ((appended - size) % ring.length);
+        int firstPart = Math.min(size, ring.length - start);
+        System.arraycopy(ring, start, copy, 0, firstPart);
+        System.arraycopy(ring, 0, copy, firstPart, size - firstPart);
+        return Collections.unmodifiableList(Arrays.asList(copy));
+    }
+
+    /**
+     * Returns the number of alerts currently retained.
+     */
+    public synchronized int size() {
+        return (int) Math.min(appended, ring.length);
+    }
+
+    /**
+     * Returns the maximum number of alerts retained.
+     */
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * Returns the total number of alerts appended since creation,
+     * including evicted ones.
+     */
+    public synchronized long getTotalAppended() {
+        return appended;
+    }
+
+    /**
+     * Returns the number of alerts evicted to make room for newer ones.
+     */
+    public synchronized long getEvictedCount() {
+        return Math.max(0, appended - ring.length);
+    }
+}
@@ -0,0 +1,20 @@
+package com.boattracking;
+
+/**
+ * Determines when the tracking system raises alerts for boats in
+ * violation.
+ */
+public enum AlertMode {
+    /**
+     * Every position fix that puts a boat in violation raises an alert,
+     * even if the boat was already in the same violation.
+     */
+    EVERY_FIX,
+
+    /**
+     * Only state transitions raise alerts: a boat entering a violation,
+     * or switching to a different type of violation.  A boat that stays
+     * RED for the same reason stays silent until it recovers.
+     */
+    TRANSITIONS
+}
@@ -0,0 +1,766 @@
+package com.boattracking;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Reproducible benchmarks for the performance work on the tracking
+ * system.  Each benchmark builds its own synthetic input from a fixed
+ * seed, warms up, and prints the median of several timed runs, so two
+ * runs on the same machine can be compared before and after a change.
+ * The figures are wall-clock times of a single JVM and depend on the
+ * machine; they are not asserted anywhere.
+ *
+ * <p>Run all benchmarks, or the ones named, with
+ * {@code java -cp <classes> com.boattracking.Benchmarks [name ...] [option=value ...]}.
+ * The benchmarks are:</p>
+ * <ul>
+ *   <li>{@code zones}: cost of a position update as the number of
+ *       restricted zones grows to 10,000, against a linear scan of the
+ *       same zones;</li>
+ *   <li>{@code csv}: CSV lines per second of
+ *       {@link BoatFileReader#streamBoatsFromFile(String)} against
+ *       {@code readLine}, {@code split} and the standard parsers, and
+ *       of the two parsers alone on lines held in memory;</li>
+ *   <li>{@code load}: CSV lines per second loaded into a system by
+ *       {@link BoatFileReader#loadBoatsQuietly(BoatDetectionSystem, String)}
+ *       and {@link BoatFileReader#loadBoatsParallel(BoatDetectionSystem, String)},
+ *       against the split-based parser feeding the system line by
+ *       line;</li>
+ *   <li>{@code alerts}: bytes allocated per fix on a replay where every
+ *       fix raises an alert, with messages left unrendered and with
+ *       every message rendered;</li>
+ *   <li>{@code markers}: time to compute and encode a map frame for
+ *       10,000, 100,000 and 500,000 boats, the whole fleet and after 1%
+ *       of the boats moved.  This is the Java side of the map only; the
+ *       drawing time in the WebView needs JavaFX and a display and is
+ *       measured by {@code MapRenderBenchmark};</li>
+ *   <li>{@code tracks}: appends per second into a {@link TrackStore}
+ *       and the latency of one-hour range reads;</li>
+ *   <li>{@code snapshot}: time to save and load a {@link FleetSnapshot}
+ *       of {@code boats} boats;</li>
+ *   <li>{@code archive}: time to append a year of alerts to an
+ *       {@link AlertArchive} and to query one boat and type over a month
+ *       and over the year;</li>
+ *   <li>{@code json}: throughput of the JSON reader on a file of
+ *       {@code jsonMb} megabytes against the equivalent CSV file;</li>
+ *   <li>{@code registry}: position updates per second with 1 up to
+ *       {@code threads} receivers updating the registry at once, and the
+ *       speedup over a single receiver.  Updates scale only as far as the
+ *       machine has cores;</li>
+ *   <li>{@code fleet}: heap taken per boat by a registry of
+ *       {@code boats} boats that have each reported one fix, including
+ *       the boat and chip identifier strings.</li>
+ * </ul>
+ *
+ * <p>Options: {@code runs} (timed runs, default 5), {@code lines} (CSV
+ * lines in {@code csv} and {@code load}, default 1,000,000),
+ * {@code boats} (boats in {@code snapshot} and {@code fleet}, default
+ * 1,000,000), {@code jsonMb} (JSON file size, default 64; use 1024 for
+ * the 1 GB measurement) and {@code threads} (most receivers in
+ * {@code registry}, default the number of processors).  Large inputs need a larger heap, for example
+ * {@code -Xmx4g}.  Temporary files are deleted when a benchmark ends.</p>
+ */
+public final class Benchmarks {
+
+    private static final long SEED = 42;
+    private static final LocalDateTime DAY_START = LocalDateTime.of(2025, 12, 7, 6, 0);
+    private static final DateTimeFormatter CSV_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private interface Benchmark {
+        void run() throws IOException;
+    }
+
+    private final Map<String, Benchmark> benchmarks = new LinkedHashMap<>();
+    private final Map<String, Long> options = new HashMap<>();
+
+    private Benchmarks() {
+        benchmarks.put("zones", this::zones);
+        benchmarks.put("csv", this::csv);
+        benchmarks.put("load", this::load);
+        benchmarks.put("alerts", this::alerts);
+        benchmarks.put("markers", this::markers);
+        benchmarks.put("tracks", this::tracks);
+        benchmarks.put("snapshot", this::snapshot);
+        benchmarks.put("archive", this::archive);
+        benchmarks.put("json", this::json);
+        benchmarks.put("registry", this::registry);
+        benchmarks.put("fleet", this::fleet);
+        options.put("runs", 5L);
+        options.put("lines", 1_000_000L);
+        options.put("boats", 1_000_000L);
+        options.put("jsonMb", 64L);
+        options.put("threads", (long) Runtime.getRuntime().availableProcessors());
+    }
+
+    public static void main(String[] args) throws IOException {
+        Benchmarks bench = new Benchmarks();
+        List<String> selected = new ArrayList<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                String name = arg.substring(0, eq);
+                if (!bench.options.containsKey(name)) {
+                    throw new IllegalArgumentException("Unknown option " + name + ", expected one of " + bench.options.keySet());
+                }
+                bench.options.put(name, Long.parseLong(arg.substring(eq + 1)));
+            } else if (bench.benchmarks.containsKey(arg)) {
+                selected.add(arg);
+            } else {
+                throw new IllegalArgumentException("Unknown benchmark " + arg + ", expected one of " + bench.benchmarks.keySet());
+            }
+        }
+        if (selected.isEmpty()) {
+            selected.addAll(bench.benchmarks.keySet());
+        }
+        System.out.printf("Java %s, %d processors, max heap %d MB%n", System.getProperty("java.version"),
+                Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory() >> 20);
+        for (String name : selected) {
+            System.out.println();
+            System.out.println("== " + name);
+            bench.benchmarks.get(name).run();
+        }
+    }
+
+    /**
+     * Update cost with 1 to 10,000 small rectangular zones scattered over
+     * the monitored region.  The linear scan checks the same rectangles
+     * one by one, as {@code updateBoatLocation} did before the index.
+     */
+    private void zones() {
+        int boats = 1_000;
+        int fixes = 1_000_000;
+        Random random = new Random(SEED);
+        double[] latitudes = new double[fixes];
+        double[] longitudes = new double[fixes];
+        for (int i = 0; i < fixes; i++) {
+            latitudes[i] = BoatDetectionSystem.MIN_LAT + 0.2 + random.nextDouble() * 4.6;
+            longitudes[i] = BoatDetectionSystem.MIN_LON + 0.2 + random.nextDouble() * 2.6;
+        }
+        long time = BoatDetectionSystem.toEpochMillis(DAY_START.plusHours(2));
+        int offset = BoatDetectionSystem.LOCAL_OFFSET.getTotalSeconds();
+        System.out.println("zones   update ns/fix   linear scan ns/fix");
+        for (int zoneCount : new int[]{1, 10, 100, 1_000, 10_000}) {
+            BoatDetectionSystem system = new BoatDetectionSystem();
+            system.clearRestrictedZones();
+            for (int z = 0; z < zoneCount; z++) {
+                double lat = BoatDetectionSystem.MIN_LAT + random.nextDouble() * 4.9;
+                double lon = BoatDetectionSystem.MIN_LON + random.nextDouble() * 2.9;
+                system.addRestrictedZone(lat, lat + 0.005 + random.nextDouble() * 0.02,
+                        lon, lon + 0.005 + random.nextDouble() * 0.02);
+            }
+            String[] ids = new String[boats];
+            for (int b = 0; b < boats; b++) {
+                ids[b] = system.addBoat("chip" + b).getId();
+            }
+            double update = median(() -> {
+                long start = System.nanoTime();
+                for (int i = 0; i < fixes; i++) {
+                    system.updateBoatLocation(ids[i % boats], latitudes[i], longitudes[i], time, offset);
+                }
+                return (System.nanoTime() - start) / (double) fixes;
+            });
+            List<double[]> zones = system.getRestrictedZones();
+            int scanned = Math.min(fixes, 20_000_000 / zoneCount);
+            double scan = median(() -> {
+                long start = System.nanoTime();
+                int hits = 0;
+                for (int i = 0; i < scanned; i++) {
+                    for (double[] zone : zones) {
+                        if (latitudes[i] >= zone[0] && latitudes[i] <= zone[1]
+                                && longitudes[i] >= zone[2] && longitudes[i] <= zone[3]) {
+                            hits++;
+                            break;
+                        }
+                    }
+                }
+                blackhole(hits);
+                return (System.nanoTime() - start) / (double) scanned;
+            });
+            System.out.printf("%6d %16.0f %20.0f%n", zoneCount, update, scan);
+        }
+    }
+
+    /**
+     * CSV throughput of the streaming reader against the parser it
+     * replaced: {@code readLine}, {@code trim}, {@code split},
+     * {@link Double#parseDouble(String)} and
+     * {@link LocalDateTime#parse(CharSequence, DateTimeFormatter)}.  The
+     * second row times the two parsers alone on lines already in memory,
+     * without reading or decoding the file.
+     */
+    private void csv() throws IOException {
+        Path dir = Files.createTempDirectory("bench-csv");
+        try {
+            Path csv = writeCsv(dir);
+            long lines = options.get("lines");
+            double split = median(() -> {
+                long start = System.nanoTime();
+                long count = 0;
+                try (BufferedReader in = new BufferedReader(new FileReader(csv.toFile()))) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        line = line.trim();
+                        if (line.isEmpty() || line.startsWith("#")) {
+                            continue;
+                        }
+                        blackhole(splitLine(line));
+                        count++;
+                    }
+                }
+                return count * 1e3 / (System.nanoTime() - start);
+            });
+            double stream = median(() -> {
+                long start = System.nanoTime();
+                long count;
+                try (Stream<BoatFileReader.BoatEntry> entries = BoatFileReader.streamBoatsFromFile(csv.toString())) {
+                    count = entries.count();
+                }
+                return count * 1e3 / (System.nanoTime() - start);
+            });
+            System.out.printf("%,d lines (%d MB): split-based %.2fM lines/s, in place %.2fM lines/s, %.1fx%n",
+                    lines, Files.size(csv) >> 20, split, stream, stream / split);
+
+            byte[] bytes = Files.readAllBytes(csv);
+            List<String> text = Files.readAllLines(csv);
+            text.remove(0);
+            int[] bounds = new int[text.size() + 1];
+            for (int i = 0, line = 0; i < bytes.length; i++) {
+                if (bytes[i] == '\n') {
+                    bounds[line++] = i + 1;
+                }
+            }
+            double splitParse = median(() -> {
+                long start = System.nanoTime();
+                for (String line : text) {
+                    blackhole(splitLine(line));
+                }
+                return text.size() * 1e3 / (System.nanoTime() - start);
+            });
+            double inPlaceParse = median(() -> {
+                long start = System.nanoTime();
+                for (int line = 0; line < text.size(); line++) {
+                    blackhole(BoatFileReader.parseLine(bytes, bounds[line], bounds[line + 1] - 1));
+                }
+                return text.size() * 1e3 / (System.nanoTime() - start);
+            });
+            System.out.printf("parsing only: split-based %.2fM lines/s, in place %.2fM lines/s, %.1fx%n",
+                    splitParse, inPlaceParse, inPlaceParse / splitParse);
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Lines per second of loading a CSV file into a fresh system: the
+     * split-based parser feeding {@code getOrAddBoat} and
+     * {@code updateBoatLocation} one line at a time, against
+     * {@link BoatFileReader#loadBoatsQuietly(BoatDetectionSystem, String)}
+     * and {@link BoatFileReader#loadBoatsParallel(BoatDetectionSystem, String)}.
+     * The file holds 100,000 boats; the parallel load gains only as far
+     * as the machine has cores.
+     */
+    private void load() throws IOException {
+        Path dir = Files.createTempDirectory("bench-load");
+        try {
+            Path csv = writeCsv(dir);
+            long lines = options.get("lines");
+            double split = median(() -> {
+                BoatDetectionSystem system = new BoatDetectionSystem();
+                long start = System.nanoTime();
+                try (BufferedReader in = new BufferedReader(new FileReader(csv.toFile()))) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        line = line.trim();
+                        if (line.isEmpty() || line.startsWith("#")) {
+                            continue;
+                        }
+                        BoatFileReader.BoatEntry entry = splitLine(line);
+                        Boat boat = system.getOrAddBoat(entry.getChipId());
+                        system.updateBoatLocation(boat.getId(), entry.getLatitude(), entry.getLongitude(),
+                                entry.getTimestamp());
+                    }
+                }
+                return lines * 1e3 / (System.nanoTime() - start);
+            });
+            double quiet = median(() -> {
+                BoatDetectionSystem system = new BoatDetectionSystem();
+                long start = System.nanoTime();
+                BoatFileReader.loadBoatsQuietly(system, csv.toString());
+                return lines * 1e3 / (System.nanoTime() - start);
+            });
+            double parallel = median(() -> {
+                BoatDetectionSystem system = new BoatDetectionSystem();
+                long start = System.nanoTime();
+                BoatFileReader.loadBoatsParallel(system, csv.toString());
+                return lines * 1e3 / (System.nanoTime() - start);
+            });
+            System.out.printf("%,d lines: split-based %.2fM lines/s, loadBoatsQuietly %.2fM lines/s (%.1fx), "
+                    + "loadBoatsParallel %.2fM lines/s (%.1fx)%n", lines, split, quiet, quiet / split,
+                    parallel, parallel / split);
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Parses a trimmed CSV line the way the reader did before it parsed
+     * in place.
+     */
+    private static BoatFileReader.BoatEntry splitLine(String line) {
+        String[] parts = line.split(",");
+        return new BoatFileReader.BoatEntry(parts[0].trim(), parts[1].trim(),
+                Double.parseDouble(parts[2].trim()), Double.parseDouble(parts[3].trim()),
+                LocalDateTime.parse(parts[4].trim(), CSV_TIME));
+    }
+
+    /**
+     * Writes {@code lines} generated lines, after a header comment, to
+     * {@code boats.csv} in {@code dir}.
+     */
+    private Path writeCsv(Path dir) throws IOException {
+        Path csv = dir.resolve("boats.csv");
+        long lines = options.get("lines");
+        try (BufferedWriter out = Files.newBufferedWriter(csv)) {
+            out.write("# BoatID,ChipID,Latitude,Longitude,Timestamp\n");
+            for (long i = 0; i < lines; i++) {
+                writeCsvLine(out, i);
+            }
+        }
+        return csv;
+    }
+
+    /**
+     * Allocation of a replay where every fix is outside the monitored
+     * region and raises an AREA_BREACH alert.  Rendering each message
+     * afterwards shows what formatting it eagerly used to cost.
+     */
+    private void alerts() {
+        int boats = 1_000;
+        int fixes = 500_000;
+        long time = BoatDetectionSystem.toEpochMillis(DAY_START.plusHours(2));
+        int offset = BoatDetectionSystem.LOCAL_OFFSET.getTotalSeconds();
+        for (boolean render : new boolean[]{false, true}) {
+            double[] bytesPerFix = new double[1];
+            double rate = median(() -> {
+                BoatDetectionSystem system = new BoatDetectionSystem();
+                system.setAlertMode(AlertMode.EVERY_FIX);
+                String[] ids = new String[boats];
+                for (int b = 0; b < boats; b++) {
+                    ids[b] = system.addBoat("chip" + b).getId();
+                }
+                long allocated = allocatedBytes();
+                long start = System.nanoTime();
+                for (int i = 0; i < fixes; i++) {
+                    List<Alert> raised = system.updateBoatLocation(ids[i % boats], 25.0 + (i % 100) * 0.01, 43.0,
+                            time + i, offset);
+                    if (render) {
+                        blackhole(raised.get(0).getMessage());
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+                bytesPerFix[0] = (allocatedBytes() - allocated) / (double) fixes;
+                return fixes * 1e3 / elapsed;
+            });
+            System.out.printf("messages %-10s %6.0f bytes/fix, %.2fM fixes/s%n",
+                    render ? "rendered" : "lazy", bytesPerFix[0], rate);
+        }
+    }
+
+    /**
+     * Cost of preparing a map frame: comparing the registry with the
+     * state last sent and encoding the difference for the page.
+     */
+    private void markers() {
+        Random random = new Random(SEED);
+        long time = BoatDetectionSystem.toEpochMillis(DAY_START.plusHours(2));
+        int offset = BoatDetectionSystem.LOCAL_OFFSET.getTotalSeconds();
+        System.out.println("  boats   full frame ms   frame KB   1% moved ms   frame KB");
+        for (int boats : new int[]{10_000, 100_000, 500_000}) {
+            BoatDetectionSystem system = new BoatDetectionSystem(BoatDetectionSystem.DEFAULT_ALERT_CAPACITY, boats);
+            String[] ids = new String[boats];
+            for (int b = 0; b < boats; b++) {
+                ids[b] = system.addBoat("chip" + b).getId();
+                system.updateBoatLocation(ids[b], 18.5 + random.nextDouble() * 4, 39.5 + random.nextDouble() * 2,
+                        time, offset);
+            }
+            MarkerFrameEncoder encoder = new MarkerFrameEncoder();
+            int[] fullBytes = new int[1];
+            double full = median(() -> {
+                MarkerDeltaTracker tracker = new MarkerDeltaTracker();
+                long start = System.nanoTime();
+                fullBytes[0] = encoder.encode(tracker.nextFrame(system), tracker.getState()).length();
+                return (System.nanoTime() - start) / 1e6;
+            });
+            MarkerDeltaTracker tracker = new MarkerDeltaTracker();
+            tracker.nextFrame(system);
+            int[] deltaBytes = new int[1];
+            double delta = median(() -> {
+                for (int i = 0; i < boats / 100; i++) {
+                    system.updateBoatLocation(ids[random.nextInt(boats)], 18.5 + random.nextDouble() * 4,
+                            39.5 + random.nextDouble() * 2, time, offset);
+                }
+                long start = System.nanoTime();
+                deltaBytes[0] = encoder.encode(tracker.nextFrame(system), tracker.getState()).length();
+                return (System.nanoTime() - start) / 1e6;
+            });
+            System.out.printf("%7d %15.1f %10d %13.1f %10d%n", boats, full, fullBytes[0] >> 10, delta, deltaBytes[0] >> 10);
+        }
+    }
+
+    /**
+     * Append rate of a track store holding a day of 10-second fixes for
+     * 1,000 boats, and the latency of reading one hour of one boat.
+     */
+    private void tracks() {
+        int boats = 1_000;
+        int fixesPerBoat = 8_640;
+        String[] ids = new String[boats];
+        for (int b = 0; b < boats; b++) {
+            ids[b] = String.format("B%04d", b);
+        }
+        long start = BoatDetectionSystem.toEpochMillis(DAY_START);
+        TrackStore[] filled = new TrackStore[1];
+        double appends = median(() -> {
+            TrackStore store = new TrackStore();
+            long begin = System.nanoTime();
+            for (int i = 0; i < fixesPerBoat; i++) {
+                long time = start + i * 10_000L;
+                for (int b = 0; b < boats; b++) {
+                    store.append(ids[b], time, 20.0 + b * 1e-3 + i * 1e-5, 40.0 + i * 1e-5);
+                }
+            }
+            filled[0] = store;
+            return (double) boats * fixesPerBoat * 1e3 / (System.nanoTime() - begin);
+        });
+        Random random = new Random(SEED);
+        int queries = 10_000;
+        double read = median(() -> {
+            long begin = System.nanoTime();
+            for (int q = 0; q < queries; q++) {
+                long from = start + random.nextInt(23) * 3_600_000L;
+                blackhole(filled[0].getTrack(ids[random.nextInt(boats)], from, from + 3_600_000L).size());
+            }
+            return (System.nanoTime() - begin) / 1e3 / queries;
+        });
+        System.out.printf("%,d fixes: %.2fM appends/s, %d KB encoded; one-hour read (360 fixes) %.1f us%n",
+                (long) boats * fixesPerBoat, appends, filled[0].getEncodedBytes() >> 10, read);
+    }
+
+    /**
+     * Save and load time of a snapshot of a fleet that has reported one
+     * fix per boat.
+     */
+    private void snapshot() throws IOException {
+        int boats = (int) (long) options.get("boats");
+        BoatDetectionSystem system = new BoatDetectionSystem(BoatDetectionSystem.DEFAULT_ALERT_CAPACITY, boats);
+        long time = BoatDetectionSystem.toEpochMillis(DAY_START.plusHours(2));
+        int offset = BoatDetectionSystem.LOCAL_OFFSET.getTotalSeconds();
+        for (int b = 0; b < boats; b++) {
+            Boat boat = system.addBoat(String.format("CHIP%07d", b));
+            system.updateBoatLocation(boat.getId(), 18.5 + (b % 5_000) * 7e-4, 39.5 + (b % 3_000) * 7e-4,
+                    time + b, offset);
+        }
+        Path dir = Files.createTempDirectory("bench-snapshot");
+        try {
+            Path file = dir.resolve("fleet.snapshot");
+            double save = median(() -> {
+                long start = System.nanoTime();
+                FleetSnapshot.save(system, file);
+                return (System.nanoTime() - start) / 1e6;
+            });
+            double load = median(() -> {
+                long start = System.nanoTime();
+                blackhole(FleetSnapshot.load(file).getBoatCount());
+                return (System.nanoTime() - start) / 1e6;
+            });
+            System.out.printf("%,d boats (%d MB): save %.0f ms, load %.0f ms%n", boats, Files.size(file) >> 20, save, load);
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * A year of alerts, 2,000 a day from 500 boats, appended to an
+     * archive and then queried by boat and type.
+     */
+    private void archive() throws IOException {
+        int days = 365;
+        int perDay = 2_000;
+        AlertType[] types = AlertType.values();
+        LocalDateTime first = DAY_START.minusDays(days);
+        Path dir = Files.createTempDirectory("bench-archive");
+        try {
+            long start = System.nanoTime();
+            try (AlertArchive archive = AlertArchive.open(dir)) {
+                for (int d = 0; d < days; d++) {
+                    LocalDateTime day = first.plusDays(d);
+                    for (int i = 0; i < perDay; i++) {
+                        archive.append(new Alert(String.format("B%04d", i % 500), types[i % types.length],
+                                17.0, 40.0, day.plusSeconds(i * 20L)));
+                    }
+                }
+            }
+            double append = (double) days * perDay * 1e3 / (System.nanoTime() - start);
+            try (AlertArchive archive = AlertArchive.open(dir)) {
+                LocalDateTime to = first.plusDays(days);
+                int[] found = new int[2];
+                double month = median(() -> {
+                    long begin = System.nanoTime();
+                    found[0] = archive.query("B0042", AlertType.RESTRICTED_ZONE, to.minusDays(30), to).size();
+                    return (System.nanoTime() - begin) / 1e6;
+                });
+                double year = median(() -> {
+                    long begin = System.nanoTime();
+                    found[1] = archive.query("B0042", AlertType.RESTRICTED_ZONE, first, to).size();
+                    return (System.nanoTime() - begin) / 1e6;
+                });
+                System.out.printf("%,d alerts: %.2fM appends/s; boat and type over 30 days %.2f ms (%d alerts), "
+                        + "over %d days %.2f ms (%d alerts)%n",
+                        (long) days * perDay, append, month, found[0], days, year, found[1]);
+            }
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * JSON reader throughput on a file shaped like
+     * {@code boats_input_example.json}, against the CSV reader on the
+     * same entries.
+     */
+    private void json() throws IOException {
+        long target = options.get("jsonMb") << 20;
+        Path dir = Files.createTempDirectory("bench-json");
+        try {
+            Path json = dir.resolve("boats.json");
+            Path csv = dir.resolve("boats.csv");
+            try (BufferedWriter jsonOut = Files.newBufferedWriter(json);
+                 BufferedWriter csvOut = Files.newBufferedWriter(csv)) {
+                jsonOut.write("{\n  \"boats\": [\n");
+                long written = 0;
+                for (long i = 0; written < target; i++) {
+                    StringBuilder entry = new StringBuilder(i > 0 ? ",\n" : "")
+                            .append("    {\n      \"boatId\": \"").append(boatId(i))
+                            .append("\",\n      \"chipId\": \"").append(chipId(i))
+                            .append("\",\n      \"latitude\": ").append(latitude(i))
+                            .append(",\n      \"longitude\": ").append(longitude(i))
+                            .append(",\n      \"timestamp\": \"").append(timestamp(i))
+                            .append("\"\n    }");
+                    jsonOut.append(entry);
+                    written += entry.length();
+                    writeCsvLine(csvOut, i);
+                }
+                jsonOut.write("\n  ]\n}\n");
+            }
+            long[] entries = new long[1];
+            double jsonRate = median(() -> {
+                long start = System.nanoTime();
+                try (Stream<BoatFileReader.BoatEntry> stream = BoatFileReader.streamBoatsFromJson(json.toString())) {
+                    entries[0] = stream.count();
+                }
+                return entries[0] * 1e3 / (System.nanoTime() - start);
+            });
+            double csvRate = median(() -> {
+                long start = System.nanoTime();
+                long count;
+                try (Stream<BoatFileReader.BoatEntry> stream = BoatFileReader.streamBoatsFromFile(csv.toString())) {
+                    count = stream.count();
+                }
+                return count * 1e3 / (System.nanoTime() - start);
+            });
+            long jsonBytes = Files.size(json);
+            System.out.printf("%,d entries: JSON (%d MB) %.2fM entries/s, %.0f MB/s; CSV (%d MB) %.2fM entries/s%n",
+                    entries[0], jsonBytes >> 20, jsonRate, jsonRate * jsonBytes / entries[0], Files.size(csv) >> 20,
+                    csvRate);
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Update throughput of the registry as receivers are added.  Each
+     * receiver owns its own boats, as separate receivers do, so the
+     * threads meet only on the shared lock stripes and the alert log.
+     */
+    private void registry() {
+        int maxThreads = (int) (long) options.get("threads");
+        int boatsPerThread = 1_000;
+        int fixesPerThread = 2_000_000;
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        system.clearRestrictedZones();
+        String[][] ids = new String[maxThreads][boatsPerThread];
+        for (int t = 0; t < maxThreads; t++) {
+            for (int b = 0; b < boatsPerThread; b++) {
+                ids[t][b] = system.addBoat("chip" + t + "-" + b).getId();
+            }
+        }
+        long time = BoatDetectionSystem.toEpochMillis(DAY_START.plusHours(2));
+        int offset = BoatDetectionSystem.LOCAL_OFFSET.getTotalSeconds();
+        System.out.println("threads   updates/s   speedup");
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(maxThreads);
+        double single = 0;
+        for (int count : counts) {
+            double seconds = median(() -> {
+                CountDownLatch start = new CountDownLatch(1);
+                Thread[] receivers = new Thread[count];
+                for (int t = 0; t < count; t++) {
+                    String[] own = ids[t];
+                    receivers[t] = new Thread(() -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        for (int i = 0; i < fixesPerThread; i++) {
+                            double lat = BoatDetectionSystem.MIN_LAT + 0.5 + (i % 400) * 0.01;
+                            double lon = BoatDetectionSystem.MIN_LON + 0.5 + (i % 200) * 0.01;
+                            system.updateBoatLocation(own[i % boatsPerThread], lat, lon, time, offset);
+                        }
+                    });
+                    receivers[t].start();
+                }
+                long begin = System.nanoTime();
+                start.countDown();
+                try {
+                    for (Thread receiver : receivers) {
+                        receiver.join();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return (System.nanoTime() - begin) / 1e9;
+            });
+            double rate = (double) count * fixesPerThread / seconds;
+            if (count == 1) {
+                single = rate;
+            }
+            System.out.printf("%7d %11.0f %9.2f%n", count, rate, rate / single);
+        }
+    }
+
+    /**
+     * Heap per boat of a registry that has received one fix per boat,
+     * measured as the growth of the used heap after full collections.
+     */
+    private void fleet() {
+        int boats = (int) (long) options.get("boats");
+        long time = BoatDetectionSystem.toEpochMillis(DAY_START.plusHours(2));
+        int offset = BoatDetectionSystem.LOCAL_OFFSET.getTotalSeconds();
+        long before = usedHeap();
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        for (int b = 0; b < boats; b++) {
+            Boat boat = system.addBoat(String.format("CHIP%07d", b));
+            system.updateBoatLocation(boat.getId(), 18.5 + (b % 5_000) * 7e-4, 39.5 + (b % 3_000) * 7e-4,
+                    time + b, offset);
+        }
+        long used = usedHeap() - before;
+        blackhole(system);
+        System.out.printf("%,d boats: %,d MB, %.0f bytes per boat%n", boats, used >> 20, (double) used / boats);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void writeCsvLine(BufferedWriter out, long i) throws IOException {
+        out.append(boatId(i)).append(',').append(chipId(i)).append(',').append(latitude(i)).append(',')
+                .append(longitude(i)).append(',').append(timestamp(i)).append('\n');
+    }
+
+    private static String boatId(long i) {
+        return String.format("B%07d", i);
+    }
+
+    private static String chipId(long i) {
+        return String.format("CHIP%06d", i % 100_000);
+    }
+
+    private static String latitude(long i) {
+        return String.format("%.5f", 18.0 + (i % 5_000) * 0.001);
+    }
+
+    private static String longitude(long i) {
+        return String.format("%.5f", 39.0 + (i % 3_000) * 0.001);
+    }
+
+    private static String timestamp(long i) {
+        return DAY_START.plusMinutes(i % 720).format(CSV_TIME);
+    }
+
+    private interface Measurement {
+        double measure() throws IOException;
+    }
+
+    /**
+     * Runs a measurement once to warm up, then {@code runs} times, and
+     * returns the median result.
+     */
+    private double median(Measurement measurement) {
+        try {
+            measurement.measure();
+            double[] results = new double[(int) (long) options.get("runs")];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = measurement.measure();
+            }
+            Arrays.sort(results);
+            return results[results.length / 2];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread.
+     */
+    @SuppressWarnings("deprecation")
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static volatile Object sink;
+
+    /**
+     * Keeps a result alive so that the JIT cannot drop the work behind it.
+     */
+    private static void blackhole(Object value) {
+        sink = value;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            Iterator<Path> it = paths.sorted(Comparator.reverseOrder()).iterator();
+            while (it.hasNext()) {
+                Files.delete(it.next());
+            }
+        }
+    }
+}
@@ -11,14 +11,21 @@ import java.util.Objects;
  * Authority, and maintains its current geographical location and
  * operational status. The status is updated whenever new location
  * information is received.</p>
+ *
+ * <p>A boat is a view of one slot of a {@link FleetStore}.  Boats of a
+ * {@link BoatDetectionSystem} read and write the store of the system, so
+ * the registry needs no object per boat, and two {@code Boat} objects for
+ * the same slot are equal and always agree.  A boat constructed on its
+ * own gets a store of its own.</p>
  */
 public class Boat {
-    private final String id;
-    private final String chipId;
-    private double latitude;
-    private double longitude;
-    private Status status;
-    private LocalDateTime lastUpdate;
+    /**
+     * Value of {@link #getLastUpdateEpochMillis()} before the first fix.
+     */
+    public static final long NO_UPDATE = FleetStore.NO_FIX;
+
+    private final FleetStore store;
+    private final int slot;
 
     /**
      * Constructs a new boat with the given identifiers.
@@ -27,62 +34,149 @@ public class Boat {
      * @param chipId  the identifier of the physical chip attached to the boat
      */
     public Boat(String id, String chipId) {
-        this.id = Objects.requireNonNull(id, "id must not be null");
-        this.chipId = Objects.requireNonNull(chipId, "chipId must not be null");
-        this.status = Status.GREEN;
+        Objects.requireNonNull(id, "id must not be null");
+        Objects.requireNonNull(chipId, "chipId must not be null");
+        this.store = new FleetStore(1);
+        this.slot = store.add(id, chipId);
+    }
+
+    /**
+     * Creates a view of a boat already in a store.
+     */
+    Boat(FleetStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
     }
 
     /**
      * Updates the boat's position and timestamp.  The status will need to be
-     * updated by the tracking system after calling this method.
+     * updated by the tracking system after calling this method.  The time is
+     * kept to the millisecond, so {@link #getLastUpdate()} returns it with
+     * any finer fraction of a second dropped.
      *
      * @param latitude  the new latitude
      * @param longitude the new longitude
-     * @param time      the time the update was recorded
+     * @param time      the time the update was recorded, or {@code null} if
+     *                  unknown, in which case {@link #getLastUpdate()}
+     *                  returns {@code null}
      */
     public void updatePosition(double latitude, double longitude, LocalDateTime time) {
-        this.latitude = latitude;
-        this.longitude = longitude;
-        this.lastUpdate = time;
+        updatePosition(latitude, longitude, time == null ? NO_UPDATE : BoatDetectionSystem.toEpochMillis(time),
+                BoatDetectionSystem.LOCAL_OFFSET.getTotalSeconds());
+    }
+
+    /**
+     * Updates the boat's position and timestamp from a primitive time
+     * value.  The timestamp is kept with millisecond precision.
+     *
+     * @param latitude      the new latitude
+     * @param longitude     the new longitude
+     * @param epochMillis   the time of the fix in milliseconds since the epoch
+     * @param offsetSeconds the offset from UTC of the local time of the fix
+     */
+    public void updatePosition(double latitude, double longitude, long epochMillis, int offsetSeconds) {
+        synchronized (store.lockFor(slot)) {
+            store.setPosition(slot, latitude, longitude, epochMillis, offsetSeconds);
+        }
     }
 
     public String getId() {
-        return id;
+        return store.getBoatId(slot);
     }
 
     public String getChipId() {
-        return chipId;
+        return store.getChipId(slot);
     }
 
     public double getLatitude() {
-        return latitude;
+        return store.getLatitude(slot);
     }
 
     public double getLongitude() {
-        return longitude;
+        return store.getLongitude(slot);
     }
 
     public Status getStatus() {
-        return status;
+        return store.getStatus(slot);
     }
 
+    /**
+     * Sets the boat's status.  A boat of a tracking system moves to the
+     * system's list of boats with the new status.
+     *
+     * @param status the new status
+     */
     public void setStatus(Status status) {
-        this.status = status;
+        synchronized (store.lockFor(slot)) {
+            store.setStatus(slot, status);
+        }
     }
 
+    /**
+     * Returns the local time of the last fix, derived from its epoch
+     * time and offset.
+     *
+     * @return the time of the last fix, or {@code null} if none
+     */
     public LocalDateTime getLastUpdate() {
-        return lastUpdate;
+        long millis = store.getFixTime(slot);
+        return millis == NO_UPDATE ? null : BoatDetectionSystem.toLocalDateTime(millis, store.getOffsetSeconds(slot));
+    }
+
+    /**
+     * Returns the time of the last fix in milliseconds since the epoch.
+     *
+     * @return the epoch time, or {@link #NO_UPDATE} if none
+     */
+    public long getLastUpdateEpochMillis() {
+        return store.getFixTime(slot);
+    }
+
+    /**
+     * Returns the type of the violation the boat is currently in, as of
+     * its last evaluated position.
+     *
+     * @return the open violation, or {@code null} if the boat is not RED
+     */
+    public AlertType getOpenViolation() {
+        return store.getOpenViolation(slot);
+    }
+
+    void setOpenViolation(AlertType openViolation) {
+        synchronized (store.lockFor(slot)) {
+            store.setOpenViolation(slot, openViolation);
+        }
+    }
+
+    /**
+     * Returns whether {@code other} is a view of the same boat.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Boat)) {
+            return false;
+        }
+        Boat boat = (Boat) other;
+        return store == boat.store && slot == boat.slot;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(store) * 31 + slot;
     }
 
     @Override
     public String toString() {
         return "Boat{" +
-                "id='" + id + '\'' +
-                ", chipId='" + chipId + '\'' +
-                ", latitude=" + latitude +
-                ", longitude=" + longitude +
-                ", status=" + status +
-                ", lastUpdate=" + lastUpdate +
+                "id='" + getId() + '\'' +
+                ", chipId='" + getChipId() + '\'' +
+                ", latitude=" + getLatitude() +
+                ", longitude=" + getLongitude() +
+                ", status=" + getStatus() +
+                ", lastUpdate=" + getLastUpdate() +
                 '}';
     }
 }
\ No newline at end of file
@@ -1,19 +1,27 @@
 package com.boattracking;
 
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Core class responsible for managing boats and monitoring their
  * locations.  It provides operations for registering boats, updating
  * their positions, checking for violations, filtering by status and
  * retrieving information about individual boats.
+ *
+ * <p>The system is safe for use by several receivers at once.  Boats
+ * live in a columnar {@link FleetStore}; lookups go straight to its
+ * indexes without locking, while position updates are serialised per
+ * boat through a small set of striped locks so that updates for
+ * different boats proceed in parallel.</p>
  */
 public class BoatDetectionSystem {
 
@@ -53,34 +61,180 @@ public class BoatDetectionSystem {
     private static final LocalTime END_OPERATING_TIME = LocalTime.of(18, 0);
 
     /**
-     * List of restricted zones represented as simple rectangular
-     * bounding boxes.  A real implementation would likely use
-     * polygons and more complex geofencing.
+     * Operating hours and the start of the YELLOW warning window as
+     * milliseconds since local midnight, so that the hot path compares
+     * plain longs.
      */
-    private final List<double[]> restrictedZones = new ArrayList<>();
+    private static final long START_OPERATING_MILLIS = START_OPERATING_TIME.toNanoOfDay() / 1_000_000;
+    private static final long END_OPERATING_MILLIS = END_OPERATING_TIME.toNanoOfDay() / 1_000_000;
+    private static final long NEAR_END_MILLIS = END_OPERATING_TIME.minusMinutes(30).toNanoOfDay() / 1_000_000;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
 
     /**
-     * Registry of all boats keyed by their system ID.
+     * Offset of local time in the monitoring region (Arabia Standard
+     * Time, which has no daylight saving).  {@link LocalDateTime} values
+     * passed to the system are interpreted in this offset.
      */
-    private final Map<String, Boat> boats = new HashMap<>();
+    public static final ZoneOffset LOCAL_OFFSET = ZoneOffset.ofHours(3);
+
+    /**
+     * Edge length, in degrees, of the grid cells used to index
+     * restricted zones.  Roughly 5 km at these latitudes.
+     */
+    private static final double ZONE_CELL_SIZE = 0.05;
+
+    /**
+     * Restricted zones, either simple rectangular bounding boxes or
+     * polygons, indexed on a uniform grid over the monitoring region so
+     * that a fix only checks the zones near it.
+     */
+    private final ZoneIndex restrictedZones = new ZoneIndex(MIN_LAT, MAX_LAT, MIN_LON, MAX_LON, ZONE_CELL_SIZE);
+
+    /**
+     * Number of lock stripes guarding position updates.  Must be a
+     * power of two so a stripe can be selected with a mask.
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * Registry of all boats.  Boats are found by system ID or by chip,
+     * the chip index letting repeated reports from the same chip update
+     * one boat instead of registering a new boat per report.  The store
+     * also lists boats by status, so filtering costs O(result size).
+     * Updates of one boat are serialised by the store's stripe lock for
+     * its slot, so two receivers reporting the same boat never
+     * interleave their status evaluation.
+     */
+    private final FleetStore store;
+
+    /**
+     * Serialises registrations, so that concurrent upserts of a new chip
+     * register a single boat.
+     */
+    private final Object registrationLock = new Object();
+
+    /**
+     * Number of alerts retained by default before the oldest are
+     * evicted.
+     */
+    public static final int DEFAULT_ALERT_CAPACITY = 10_000;
 
     /**
      * Log of alerts that have been generated. This acts as a simple
-     * database of violations and warnings for reporting.
+     * database of violations and warnings for reporting.  It is bounded
+     * so that a long-running deployment cannot run out of memory.
+     */
+    private final AlertLog alertLog;
+
+    /**
+     * Controls whether every violating fix raises an alert or only the
+     * fix that opens a new violation.
      */
-    private final List<Alert> alertLog = new ArrayList<>();
+    private volatile AlertMode alertMode = AlertMode.EVERY_FIX;
+
+    /**
+     * Position history receiving every applied fix, or {@code null} if
+     * history is not recorded.
+     */
+    private volatile TrackStore trackStore;
+
+    /**
+     * Archive receiving every raised alert, or {@code null} if alerts
+     * are not archived.
+     */
+    private volatile AlertArchive alertArchive;
+
+    /**
+     * Journal receiving every change, or {@code null} if the system is
+     * not journaled.  Only changed while all update locks are held, see
+     * {@link #quiesce(Runnable)}.
+     */
+    private volatile WriteAheadLog writeAheadLog;
 
     /**
      * Counter used to generate unique system identifiers for new
      * boats.  Each invocation of {@link #assignIdToChip()} will
      * increment this counter.
      */
-    private int nextId = 1;
+    private final AtomicInteger nextId = new AtomicInteger(1);
 
     public BoatDetectionSystem() {
+        this(DEFAULT_ALERT_CAPACITY);
+    }
+
+    /**
+     * Creates a system whose alert log retains at most
+     * {@code alertCapacity} of the most recent alerts.
+     *
+     * @param alertCapacity the maximum number of alerts kept in memory
+     */
+    public BoatDetectionSystem(int alertCapacity) {
+        this(alertCapacity, 16);
+    }
+
+    /**
+     * Creates a system with room for {@code expectedBoats} boats before
+     * its indexes have to grow.  Used when the fleet size is known up
+     * front, such as when loading a snapshot.
+     */
+    BoatDetectionSystem(int alertCapacity, int expectedBoats) {
+        alertLog = new AlertLog(alertCapacity);
+        store = new FleetStore(expectedBoats, LOCK_STRIPES);
         // Example restricted zone: dummy fishing area within allowed region
-        // Format: {minLat, maxLat, minLon, maxLon}
-        restrictedZones.add(new double[]{20.5, 21.0, 40.5, 41.0});
+        addRestrictedZone(20.5, 21.0, 40.5, 41.0);
+    }
+
+    /**
+     * Registers a rectangular restricted zone.  Boats reporting a
+     * position inside the zone (bounds inclusive) raise a
+     * RESTRICTED_ZONE alert.  Only the part of the zone inside the
+     * monitoring region is effective, since positions outside the region
+     * already raise an AREA_BREACH alert.
+     *
+     * @param minLat southern boundary of the zone
+     * @param maxLat northern boundary of the zone
+     * @param minLon western boundary of the zone
+     * @param maxLon eastern boundary of the zone
+     */
+    public void addRestrictedZone(double minLat, double maxLat, double minLon, double maxLon) {
+        restrictedZones.add(minLat, maxLat, minLon, maxLon);
+    }
+
+    /**
+     * Registers a polygonal restricted zone, such as a reef or coastal
+     * exclusion area.  Holes and multi-part zones are expressed through
+     * the rings of the polygon.
+     *
+     * @param polygon the outline of the zone
+     */
+    public void addRestrictedZone(GeoPolygon polygon) {
+        restrictedZones.add(polygon);
+    }
+
+    /**
+     * Returns the registered restricted zones in registration order,
+     * each as {@code {minLat, maxLat, minLon, maxLon}}.  Polygonal
+     * zones are reported by their bounding box.
+     *
+     * @return a list of zone bounds
+     */
+    public List<double[]> getRestrictedZones() {
+        return restrictedZones.getZones();
+    }
+
+    /**
+     * Removes all restricted zones, including the example zone every
+     * system starts with.
+     */
+    public void clearRestrictedZones() {
+        restrictedZones.clear();
+    }
+
+    /**
+     * Returns the index of restricted zones, for saving them.
+     */
+    ZoneIndex getZoneIndex() {
+        return restrictedZones;
     }
 
     /**
@@ -89,8 +243,8 @@ public class BoatDetectionSystem {
      *
      * @return a newly generated boat ID
      */
-    public synchronized String assignIdToChip() {
-        return String.format("B%04d", nextId++);
+    public String assignIdToChip() {
+        return String.format("B%04d", nextId.getAndIncrement());
     }
 
     /**
@@ -103,10 +257,63 @@ public class BoatDetectionSystem {
      */
     public Boat addBoat(String chipId) {
         Objects.requireNonNull(chipId, "chipId must not be null");
+        synchronized (registrationLock) {
+            return new Boat(store, createBoat(chipId));
+        }
+    }
+
+    /**
+     * Returns the boat carrying the given chip, registering a new boat
+     * if the chip has not been seen before.  This is the upsert used when
+     * replaying track files, where the same chip reports many fixes.
+     * Concurrent calls for the same chip return the same boat.
+     *
+     * @param chipId the identifier of the chip attached to the boat
+     * @return the existing or newly created {@link Boat}
+     */
+    public Boat getOrAddBoat(String chipId) {
+        Objects.requireNonNull(chipId, "chipId must not be null");
+        int slot = store.slotOfChip(chipId);
+        if (slot < 0) {
+            synchronized (registrationLock) {
+                slot = store.slotOfChip(chipId);
+                if (slot < 0) {
+                    slot = createBoat(chipId);
+                }
+            }
+        }
+        return new Boat(store, slot);
+    }
+
+    /**
+     * Retrieves a boat by the identifier of its chip.  If several boats
+     * were registered with the same chip, the first one is returned.
+     *
+     * @param chipId the identifier of the chip
+     * @return the {@link Boat} if found or {@code null} otherwise
+     */
+    public Boat getBoatByChip(String chipId) {
+        return view(store.slotOfChip(chipId));
+    }
+
+    /**
+     * Registers a boat for a chip and returns its slot.  The caller holds
+     * {@link #registrationLock}.
+     */
+    private int createBoat(String chipId) {
         String boatId = assignIdToChip();
-        Boat boat = new Boat(boatId, chipId);
-        boats.put(boatId, boat);
-        return boat;
+        int slot = store.add(boatId, chipId);
+        synchronized (store.lockFor(slot)) {
+            WriteAheadLog wal = writeAheadLog;
+            if (wal != null) {
+                wal.logBoatAdded(boatId, chipId, nextId.get());
+            }
+        }
+        return slot;
+    }
+
+    private Boat view(int slot) {
+        return slot < 0 ? null : new Boat(store, slot);
     }
 
     /**
@@ -116,7 +323,7 @@ public class BoatDetectionSystem {
      * @return the {@link Boat} if found or {@code null} otherwise
      */
     public Boat getBoat(String boatId) {
-        return boats.get(boatId);
+        return view(store.slotOf(boatId));
     }
 
     /**
@@ -139,11 +346,11 @@ public class BoatDetectionSystem {
      * @return a double array {latitude, longitude} or {@code null}
      */
     public double[] displayBoatLocation(String boatId) {
-        Boat boat = boats.get(boatId);
-        if (boat == null) {
+        int slot = store.slotOf(boatId);
+        if (slot < 0) {
             return null;
         }
-        return new double[]{boat.getLatitude(), boat.getLongitude()};
+        return new double[]{store.getLatitude(slot), store.getLongitude(slot)};
     }
 
     /**
@@ -158,61 +365,264 @@ public class BoatDetectionSystem {
      * @return a list of alerts raised due to this update (empty if none)
      */
     public List<Alert> updateBoatLocation(String boatId, double latitude, double longitude, LocalDateTime time) {
-        Boat boat = boats.get(boatId);
-        if (boat == null) {
+        int slot = store.slotOf(boatId);
+        if (slot < 0) {
             return Collections.emptyList();
         }
-        boat.updatePosition(latitude, longitude, time);
+        Alert alert;
+        synchronized (store.lockFor(slot)) {
+            alert = evaluateLocation(slot, latitude, longitude, time);
+        }
+        List<Alert> newAlerts = new ArrayList<>(1);
+        if (alert != null) {
+            archive(alert);
+            newAlerts.add(alert);
+        }
+        return newAlerts;
+    }
+
+    /**
+     * Updates the location of the specified boat from a primitive
+     * timestamp.  Operating hours are checked by comparing the
+     * millisecond of the local day, so a fix that raises no alert
+     * allocates nothing.  Unlike the {@link LocalDateTime} overload, the
+     * returned list cannot be modified.
+     *
+     * @param boatId        the boat's identifier
+     * @param latitude      the new latitude
+     * @param longitude     the new longitude
+     * @param epochMillis   the time of the fix in milliseconds since the epoch
+     * @param offsetSeconds the offset of local time from UTC in seconds,
+     *                      e.g. {@code LOCAL_OFFSET.getTotalSeconds()}
+     * @return an unmodifiable list of alerts raised due to this update
+     *         (empty if none)
+     */
+    public List<Alert> updateBoatLocation(String boatId, double latitude, double longitude, long epochMillis, int offsetSeconds) {
+        int slot = store.slotOf(boatId);
+        if (slot < 0) {
+            return Collections.emptyList();
+        }
+        Alert alert;
+        synchronized (store.lockFor(slot)) {
+            alert = evaluateLocation(slot, latitude, longitude, epochMillis, offsetSeconds, null);
+        }
+        if (alert == null) {
+            return Collections.emptyList();
+        }
+        archive(alert);
+        return Collections.singletonList(alert);
+    }
+
+    /**
+     * Applies a batch of position reports in a single pass.  Reports
+     * are processed in list order, so several fixes for the same boat
+     * are evaluated in the order they were received.  Reports for
+     * unknown boats are ignored, as with
+     * {@link #updateBoatLocation(String, double, double, LocalDateTime)}.
+     *
+     * @param reports the position reports to apply
+     * @return the alerts raised by the batch, in report order (empty if none)
+     */
+    public List<Alert> updateBoatLocations(List<PositionReport> reports) {
+        Objects.requireNonNull(reports, "reports must not be null");
+        List<Alert> raised = null;
+        for (int i = 0, n = reports.size(); i < n; i++) {
+            PositionReport report = reports.get(i);
+            int slot = store.slotOf(report.getBoatId());
+            if (slot < 0) {
+                continue;
+            }
+            Alert alert;
+            synchronized (store.lockFor(slot)) {
+                alert = evaluateLocation(slot, report.getLatitude(), report.getLongitude(), report.getTimestamp());
+            }
+            if (alert != null) {
+                archive(alert);
+                if (raised == null) {
+                    raised = new ArrayList<>();
+                }
+                raised.add(alert);
+            }
+        }
+        return raised == null ? Collections.emptyList() : raised;
+    }
+
+    /**
+     * Applies a position update to a boat and evaluates its status.
+     * Callers must hold the stripe lock for the boat's slot.
+     *
+     * @return the alert raised by the update, or {@code null} if none
+     */
+    private Alert evaluateLocation(int slot, double latitude, double longitude, LocalDateTime time) {
+        return evaluateLocation(slot, latitude, longitude, toEpochMillis(time), LOCAL_OFFSET.getTotalSeconds(), time);
+    }
+
+    /**
+     * Applies a position update given as a primitive timestamp and
+     * evaluates the boat's status.  {@code time} is the same instant as a
+     * local date-time if the caller already has one; otherwise it is
+     * only built when an alert is raised.  Callers must hold the stripe
+     * lock for the boat's slot.
+     *
+     * @return the alert raised by the update, or {@code null} if none
+     */
+    private Alert evaluateLocation(int slot, double latitude, double longitude,
+                                   long epochMillis, int offsetSeconds, LocalDateTime time) {
+        String boatId = store.getBoatId(slot);
+        store.setPosition(slot, latitude, longitude, epochMillis, offsetSeconds);
+        TrackStore tracks = trackStore;
+        if (tracks != null) {
+            tracks.append(boatId, epochMillis, latitude, longitude);
+        }
 
-        List<Alert> newAlerts = new ArrayList<>();
         // Determine status and check for violations
         Status status = Status.GREEN;
         AlertType alertType = null;
-        String alertMsg = null;
         // Check operating hours
-        LocalTime updateTime = time.toLocalTime();
-        if (updateTime.isBefore(START_OPERATING_TIME) || updateTime.isAfter(END_OPERATING_TIME)) {
+        long millisOfDay = Math.floorMod(epochMillis + offsetSeconds * 1000L, MILLIS_PER_DAY);
+        if (millisOfDay < START_OPERATING_MILLIS || millisOfDay > END_OPERATING_MILLIS) {
             status = Status.RED;
             alertType = AlertType.TIME_EXCEEDED;
-            alertMsg = String.format("Boat %s exceeded operating hours at %s", boatId, updateTime);
         } else {
             // Check allowed region
             boolean outside = latitude < MIN_LAT || latitude > MAX_LAT || longitude < MIN_LON || longitude > MAX_LON;
             if (outside) {
                 status = Status.RED;
                 alertType = AlertType.AREA_BREACH;
-                alertMsg = String.format("Boat %s left permitted area at (%.2f, %.2f)", boatId, latitude, longitude);
             } else {
                 // Check restricted zones
-                for (double[] zone : restrictedZones) {
-                    double zMinLat = zone[0];
-                    double zMaxLat = zone[1];
-                    double zMinLon = zone[2];
-                    double zMaxLon = zone[3];
-                    if (latitude >= zMinLat && latitude <= zMaxLat && longitude >= zMinLon && longitude <= zMaxLon) {
-                        status = Status.RED;
-                        alertType = AlertType.RESTRICTED_ZONE;
-                        alertMsg = String.format("Boat %s entered restricted zone at (%.2f, %.2f)", boatId, latitude, longitude);
-                        break;
-                    }
+                if (restrictedZones.find(latitude, longitude) >= 0) {
+                    status = Status.RED;
+                    alertType = AlertType.RESTRICTED_ZONE;
                 }
                 if (status != Status.RED) {
                     // If near boundaries or close to end time, mark as YELLOW
                     boolean nearBoundary = (latitude - MIN_LAT) < 0.1 || (MAX_LAT - latitude) < 0.1 ||
                             (longitude - MIN_LON) < 0.1 || (MAX_LON - longitude) < 0.1;
-                    boolean nearTime = updateTime.isAfter(END_OPERATING_TIME.minusMinutes(30));
+                    boolean nearTime = millisOfDay > NEAR_END_MILLIS;
                     status = (nearBoundary || nearTime) ? Status.YELLOW : Status.GREEN;
                 }
             }
         }
-        boat.setStatus(status);
-        // If violation occurred (status RED), create alert
-        if (status == Status.RED && alertType != null) {
-            Alert alert = new Alert(boatId, alertType, alertMsg, time);
-            alertLog.add(alert);
-            newAlerts.add(alert);
+        store.setStatus(slot, status);
+        AlertType previousViolation = store.getOpenViolation(slot);
+        store.setOpenViolation(slot, alertType);
+        WriteAheadLog wal = writeAheadLog;
+        if (wal != null) {
+            wal.logBoatState(store, slot);
         }
-        return newAlerts;
+        // If violation occurred (status RED), create alert unless only
+        // transitions are reported and this violation is already open
+        if (status == Status.RED && alertType != null
+                && (alertMode == AlertMode.EVERY_FIX || alertType != previousViolation)) {
+            if (time == null) {
+                time = toLocalDateTime(epochMillis, offsetSeconds);
+            }
+            Alert alert = new Alert(boatId, alertType, latitude, longitude, time);
+            alertLog.append(alert);
+            if (wal != null) {
+                wal.logAlert(alert);
+            }
+            return alert;
+        }
+        return null;
+    }
+
+    /**
+     * Hands a raised alert to the alert archive, if one is set.  Called
+     * after the stripe lock is released, so disk writes do not hold up
+     * other boats on the stripe.  The update has been applied by then,
+     * so a write failure, or an archive closed under a running system,
+     * is reported without failing it.
+     */
+    private void archive(Alert alert) {
+        AlertArchive archive = alertArchive;
+        if (archive == null) {
+            return;
+        }
+        try {
+            archive.append(alert);
+        } catch (UncheckedIOException e) {
+            System.err.println("Could not archive alert for " + alert.getBoatId() + ": " + e.getCause().getMessage());
+        } catch (IllegalStateException e) {
+            System.err.println("Could not archive alert for " + alert.getBoatId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Converts a local date-time in {@link #LOCAL_OFFSET} to milliseconds
+     * since the epoch.
+     */
+    static long toEpochMillis(LocalDateTime time) {
+        return time.toEpochSecond(LOCAL_OFFSET) * 1000 + time.getNano() / 1_000_000;
+    }
+
+    /**
+     * Converts milliseconds since the epoch to a local date-time at the
+     * given offset from UTC.
+     */
+    static LocalDateTime toLocalDateTime(long epochMillis, int offsetSeconds) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L),
+                (int) Math.floorMod(epochMillis, 1000L) * 1_000_000, ZoneOffset.ofTotalSeconds(offsetSeconds));
+    }
+
+    /**
+     * Runs {@code action} while holding every update lock, so that no
+     * position update or boat registration is in progress.  Used to take
+     * consistent snapshots.
+     */
+    void quiesce(Runnable action) {
+        store.quiesce(action);
+    }
+
+    void setWriteAheadLog(WriteAheadLog wal) {
+        this.writeAheadLog = wal;
+    }
+
+    /**
+     * Registers a boat with the given identifier if it does not exist.
+     * Used when restoring state; nothing is journaled.
+     *
+     * @return the slot of the boat
+     */
+    int restoreBoat(String boatId, String chipId) {
+        int slot = store.slotOf(boatId);
+        return slot >= 0 ? slot : store.add(boatId, chipId);
+    }
+
+    /**
+     * Registers a boat in the given state, or sets the state of the boat
+     * if it already exists.  Used when loading snapshots and replaying
+     * the write-ahead log; the position is not evaluated again.
+     */
+    void restoreBoat(String boatId, String chipId, double latitude, double longitude, long epochMillis,
+                     int offsetSeconds, Status status, AlertType openViolation) {
+        int slot = restoreBoat(boatId, chipId);
+        synchronized (store.lockFor(slot)) {
+            store.setPosition(slot, latitude, longitude, epochMillis, offsetSeconds);
+            store.setStatus(slot, status);
+            store.setOpenViolation(slot, openViolation);
+        }
+    }
+
+    void restoreAlert(Alert alert) {
+        alertLog.append(alert);
+    }
+
+    /**
+     * Makes sure identifiers assigned from now on are at least
+     * {@code value}.
+     */
+    void restoreNextId(int value) {
+        nextId.accumulateAndGet(value, Math::max);
+    }
+
+    int peekNextId() {
+        return nextId.get();
+    }
+
+    int getAlertCapacity() {
+        return alertLog.getCapacity();
     }
 
     /**
@@ -221,7 +631,45 @@ public class BoatDetectionSystem {
      * @return an unmodifiable list of boats
      */
     public List<Boat> getAllBoats() {
-        return Collections.unmodifiableList(new ArrayList<>(boats.values()));
+        int size = store.size();
+        List<Boat> all = new ArrayList<>(size);
+        for (int slot = 0; slot < size; slot++) {
+            all.add(new Boat(store, slot));
+        }
+        return Collections.unmodifiableList(all);
+    }
+
+    /**
+     * Returns the number of registered boats.
+     */
+    public int getBoatCount() {
+        return store.size();
+    }
+
+    /**
+     * Calls {@code action} for every registered boat, in registration
+     * order, without copying the registry.  Boats registered while it
+     * runs may or may not be visited.
+     *
+     * @param action the action to perform for each boat
+     */
+    public void forEachBoat(Consumer<Boat> action) {
+        Objects.requireNonNull(action, "action must not be null");
+        for (int slot = 0, size = store.size(); slot < size; slot++) {
+            action.accept(new Boat(store, slot));
+        }
+    }
+
+    /**
+     * Returns the columnar store holding the registry.  Whole-fleet
+     * scans, such as building map frames, read it slot by slot instead of
+     * going through {@link Boat} views.  The store is live: it reflects
+     * every later registration and update.
+     *
+     * @return the store of the registry
+     */
+    public FleetStore getFleetStore() {
+        return store;
     }
 
     /**
@@ -233,40 +681,109 @@ public class BoatDetectionSystem {
      */
     public void displayAllBoats() {
         System.out.println("Current boat positions:");
-        if (boats.isEmpty()) {
+        int size = store.size();
+        if (size == 0) {
             System.out.println("  (no registered boats)");
             return;
         }
-        for (Boat boat : boats.values()) {
+        for (int slot = 0; slot < size; slot++) {
             System.out.printf("  %s (%.2f, %.2f) – %s%n",
-                    boat.getId(), boat.getLatitude(), boat.getLongitude(), boat.getStatus());
+                    store.getBoatId(slot), store.getLatitude(slot), store.getLongitude(slot), store.getStatus(slot));
         }
     }
 
     /**
-     * Filters boats by their status.
+     * Filters boats by their status.  Boats are kept in per-status lists,
+     * so the cost depends on the number of matches rather than on the
+     * size of the fleet.
      *
      * @param status the status to filter by
      * @return a list of boats whose status matches the given status
      */
     public List<Boat> filterBoatsByStatus(Status status) {
         Objects.requireNonNull(status, "status must not be null");
-        List<Boat> result = new ArrayList<>();
-        for (Boat boat : boats.values()) {
-            if (boat.getStatus() == status) {
-                result.add(boat);
-            }
+        int[] slots = store.slotsWithStatus(status);
+        List<Boat> matches = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            matches.add(new Boat(store, slot));
         }
-        return result;
+        return matches;
+    }
+
+    /**
+     * Counts the boats with the given status without scanning the
+     * registry.
+     *
+     * @param status the status to count
+     * @return the number of boats whose status matches
+     */
+    public int countBoatsByStatus(Status status) {
+        Objects.requireNonNull(status, "status must not be null");
+        return store.countByStatus(status);
     }
 
     /**
-     * Returns the alert log containing all alerts generated by the
-     * system.
+     * Returns the alert log containing the most recent alerts generated
+     * by the system, oldest first.  The returned list is a snapshot taken
+     * at the time of the call and is not affected by later alerts.
      *
      * @return a list of {@link Alert} objects
      */
     public List<Alert> getAlertLog() {
-        return Collections.unmodifiableList(alertLog);
+        return alertLog.snapshot();
+    }
+
+    /**
+     * Selects when alerts are raised.  With {@link AlertMode#TRANSITIONS}
+     * a boat that stays in violation raises a single alert until its
+     * violation type changes or it returns to GREEN or YELLOW.
+     *
+     * @param mode the alerting mode
+     */
+    public void setAlertMode(AlertMode mode) {
+        this.alertMode = Objects.requireNonNull(mode, "mode must not be null");
+    }
+
+    public AlertMode getAlertMode() {
+        return alertMode;
+    }
+
+    /**
+     * Installs a listener receiving alerts evicted from the bounded alert
+     * log, e.g. to spill them to disk.
+     *
+     * @param listener the listener, or {@code null} to drop evicted alerts
+     */
+    public void setAlertEvictionListener(Consumer<Alert> listener) {
+        alertLog.setEvictionListener(listener);
+    }
+
+    /**
+     * Starts recording every position update into a track store, or
+     * stops recording when {@code store} is {@code null}.
+     *
+     * @param store the store receiving fixes
+     */
+    public void setTrackStore(TrackStore store) {
+        this.trackStore = store;
+    }
+
+    public TrackStore getTrackStore() {
+        return trackStore;
+    }
+
+    /**
+     * Starts archiving every raised alert, or stops archiving when
+     * {@code archive} is {@code null}.  Unlike the alert log, the archive
+     * keeps alerts indefinitely and can be queried by boat, type and time.
+     *
+     * @param archive the archive receiving alerts
+     */
+    public void setAlertArchive(AlertArchive archive) {
+        this.alertArchive = archive;
+    }
+
+    public AlertArchive getAlertArchive() {
+        return alertArchive;
     }
 }
\ No newline at end of file
@@ -1,21 +1,76 @@
 package com.boattracking;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Reads boat information from an input file and loads it into the system.
- * Supports CSV format with boat details including ID, chip ID, position, and timestamp.
+ * Supports CSV format with boat details including ID, chip ID, position, and timestamp,
+ * and the equivalent JSON format of {@code boats_input_example.json} for files whose
+ * name ends in {@code .json}.
  */
 public class BoatFileReader {
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
     
+    /**
+     * Smallest chunk handed to a single parsing task.
+     */
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    
+    /**
+     * Largest chunk handed to a single parsing task.  Also keeps every
+     * mapping well below the 2 GB limit of a single buffer.
+     */
+    private static final long MAX_CHUNK_SIZE = 1L << 28;
+    
+    /**
+     * Largest chunk parsed at a time by
+     * {@link #loadBoatsParallel(BoatDetectionSystem, String)}, which keeps
+     * only a batch of chunks in memory.
+     */
+    private static final long LOAD_CHUNK_SIZE = 1L << 23;
+    
+    /**
+     * Bytes read at a time by the CSV reader.
+     */
+    static final int CSV_BUFFER_BYTES = 1 << 16;
+    
+    /**
+     * Characters read at a time by the JSON reader.
+     */
+    static final int JSON_BUFFER_CHARS = 1 << 16;
+    
     /**
      * Represents a boat entry from the input file.
      */
@@ -48,39 +103,680 @@ public class BoatFileReader {
     }
     
     /**
-     * Reads boat entries from a CSV file.
+     * Reads boat entries from a CSV file.  The whole file is held in
+     * memory; prefer {@link #streamBoatsFromFile(String)} for large files.
      * 
      * @param filename the path to the input file
      * @return list of boat entries
      * @throws IOException if file cannot be read
      */
     public static List<BoatEntry> readBoatsFromFile(String filename) throws IOException {
-        List<BoatEntry> entries = new ArrayList<>();
+        try (Stream<BoatEntry> entries = streamBoatsFromFile(filename)) {
+            return entries.collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Opens a lazy stream of boat entries from a CSV file, or from a JSON
+     * file if the name ends in {@code .json}.  The file is read as UTF-8.
+     * Lines are read and parsed only as the stream is consumed, so memory use does
+     * not depend on the size of the file.  Empty lines and comments are
+     * skipped and invalid lines are reported on standard error.  The
+     * stream must be closed to release the file; read errors surface as
+     * {@link UncheckedIOException}.
+     * 
+     * @param filename the path to the input file
+     * @return a stream of boat entries in file order
+     * @throws IOException if file cannot be opened
+     */
+    public static Stream<BoatEntry> streamBoatsFromFile(String filename) throws IOException {
+        return streamBoatsFromFile(filename, null);
+    }
+    
+    /**
+     * Opens a lazy stream of boat entries, counting invalid lines in the
+     * given report instead of printing them when a report is supplied.
+     */
+    private static Stream<BoatEntry> streamBoatsFromFile(String filename, LoadReport report) throws IOException {
+        if (isJson(filename)) {
+            return streamBoatsFromJson(filename, report);
+        }
+        InputStream input = Files.newInputStream(Paths.get(filename));
+        return stream(new EntryIterator(input, report), input);
+    }
+    
+    /**
+     * Reads boat entries from a JSON file in the format of
+     * {@code boats_input_example.json}.
+     * 
+     * @param filename the path to the input file
+     * @return list of boat entries
+     * @throws IOException if file cannot be read or is not valid JSON
+     */
+    public static List<BoatEntry> readBoatsFromJson(String filename) throws IOException {
+        try (Stream<BoatEntry> entries = streamBoatsFromJson(filename)) {
+            return entries.collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Opens a lazy stream of boat entries from a JSON file in the format
+     * of {@code boats_input_example.json}.  The file is read as UTF-8 and
+     * parsed incrementally as the stream is consumed, without building a
+     * document tree, so memory use does not depend on the size of the
+     * file.  Entries with missing or invalid fields are reported on
+     * standard error and skipped.  The stream must be closed to release
+     * the file; read errors and malformed JSON surface as
+     * {@link UncheckedIOException}.
+     * 
+     * @param filename the path to the input file
+     * @return a stream of boat entries in file order
+     * @throws IOException if file cannot be opened
+     */
+    public static Stream<BoatEntry> streamBoatsFromJson(String filename) throws IOException {
+        return streamBoatsFromJson(filename, null);
+    }
+    
+    private static Stream<BoatEntry> streamBoatsFromJson(String filename, LoadReport report) throws IOException {
+        Reader reader = new InputStreamReader(Files.newInputStream(Paths.get(filename)), StandardCharsets.UTF_8);
+        return stream(new JsonEntryIterator(reader, report), reader);
+    }
+    
+    private static boolean isJson(String filename) {
+        return filename.regionMatches(true, filename.length() - 5, ".json", 0, 5);
+    }
+    
+    /**
+     * Wraps an entry iterator in a stream that closes its input.
+     */
+    private static Stream<BoatEntry> stream(Iterator<BoatEntry> iterator, Closeable input) {
+        Spliterator<BoatEntry> entries = Spliterators.spliteratorUnknownSize(
+                iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(entries, false).onClose(() -> {
+            try {
+                input.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+    
+    /**
+     * Iterates over the valid entries of a UTF-8 CSV input, one line at a
+     * time.  Lines are located and trimmed in place in a byte buffer and
+     * handed to {@link #parseLine(byte[], int, int)} as a range of it.
+     * Nothing is decoded or copied for a line beyond the fields it
+     * yields, and the line becomes a string only when it is reported.
+     * Like {@link BufferedReader#readLine()}, a line ends at {@code \n},
+     * {@code \r} or {@code \r\n}.
+     */
+    private static class EntryIterator implements Iterator<BoatEntry> {
+        private final InputStream input;
+        private final LoadReport report;
+        private byte[] buffer = new byte[CSV_BUFFER_BYTES];
+        private int position;
+        private int limit;
+        private boolean endOfInput;
+        private boolean skipLineFeed;
+        private int lineNumber;
+        private BoatEntry next;
+        
+        EntryIterator(InputStream input, LoadReport report) {
+            this.input = input;
+            this.report = report;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            try {
+                while (true) {
+                    if (skipLineFeed) {
+                        // The previous line ended in \r; drop the \n of a \r\n pair
+                        if (position == limit && !endOfInput) {
+                            fill();
+                            continue;
+                        }
+                        skipLineFeed = false;
+                        if (position < limit && buffer[position] == '\n') {
+                            position++;
+                        }
+                    }
+                    int lineStart = position;
+                    int lineEnd = lineEnd(lineStart);
+                    if (lineEnd < 0) {
+                        if (endOfInput) {
+                            if (lineStart == limit) {
+                                return false;
+                            }
+                            lineEnd = limit;
+                        } else {
+                            fill();
+                            continue;
+                        }
+                    }
+                    position = Math.min(lineEnd + 1, limit);
+                    skipLineFeed = lineEnd < limit && buffer[lineEnd] == '\r';
+                    lineNumber++;
+                    
+                    // Skip empty lines and comments
+                    int from = trimStart(buffer, lineStart, lineEnd);
+                    int to = trimEnd(buffer, from, lineEnd);
+                    if (from == to || buffer[from] == '#') {
+                        continue;
+                    }
+                    
+                    try {
+                        next = parseLine(buffer, from, to);
+                        return true;
+                    } catch (Exception e) {
+                        if (report != null) {
+                            report.recordInvalidLine("line " + lineNumber, e.getMessage());
+                        } else {
+                            System.err.printf("Warning: Skipping invalid line %d: %s (Error: %s)%n", 
+                                    lineNumber, new String(buffer, from, to - from, StandardCharsets.UTF_8), e.getMessage());
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        /**
+         * Returns the index of the terminator of the line starting at
+         * {@code from}, or {@code -1} if it is not in the buffer yet.
+         */
+        private int lineEnd(int from) {
+            for (int i = from; i < limit; i++) {
+                byte c = buffer[i];
+                if (c == '\n' || c == '\r') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        /**
+         * Moves the unread part of the buffer to its start, growing the
+         * buffer if a single line fills it, and reads more input.
+         */
+        private void fill() throws IOException {
+            int remaining = limit - position;
+            if (remaining == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else {
+                System.arraycopy(buffer, position, buffer, 0, remaining);
+            }
+            position = 0;
+            limit = remaining;
+            int read = input.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                endOfInput = true;
+            } else {
+                limit += read;
+            }
+        }
+        
+        @Override
+        public BoatEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BoatEntry entry = next;
+            next = null;
+            return entry;
+        }
+    }
+    
+    /**
+     * Iterates over the entries of a JSON document shaped like
+     * {@code boats_input_example.json}: an object whose {@code boats}
+     * member is an array of objects with {@code boatId}, {@code chipId},
+     * {@code latitude}, {@code longitude} and {@code timestamp} members.
+     * A bare array of such objects is accepted too.  The document is
+     * tokenised on demand from a character buffer, one entry at a time,
+     * without building a tree, and unknown members are skipped.  Entries
+     * with missing or invalid fields are reported and skipped like invalid
+     * CSV lines; malformed JSON ends the iteration with an
+     * {@link UncheckedIOException}.
+     */
+    private static class JsonEntryIterator implements Iterator<BoatEntry> {
+        private static final int MEMBER_OTHER = 0;
+        private static final int MEMBER_BOAT_ID = 1;
+        private static final int MEMBER_CHIP_ID = 2;
+        private static final int MEMBER_LATITUDE = 3;
+        private static final int MEMBER_LONGITUDE = 4;
+        private static final int MEMBER_TIMESTAMP = 5;
+        
+        private final Reader reader;
+        private final LoadReport report;
+        private final char[] buffer = new char[JSON_BUFFER_CHARS];
+        private final CharSequence bufferChars = new CharArrayChars(buffer);
+        private final StringBuilder escaped = new StringBuilder();
+        
+        /**
+         * The last value read, in {@code text[textStart, textEnd)}: a
+         * range of the buffer, or {@link #escaped} for strings that had
+         * escapes or crossed the end of the buffer.
+         */
+        private CharSequence text;
+        private int textStart;
+        private int textEnd;
+        
+        private int position;
+        private int limit;
+        private long bufferOffset;
+        private int entryNumber;
+        private boolean started;
+        private boolean finished;
+        private BoatEntry next;
+        
+        JsonEntryIterator(Reader reader, LoadReport report) {
+            this.reader = reader;
+            this.report = report;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            try {
+                if (!started) {
+                    started = true;
+                    enterBoatsArray();
+                    if (skipWhitespace() == ']') {
+                        position++;
+                        finished = true;
+                    }
+                } else if (!finished) {
+                    int c = skipWhitespace();
+                    if (c == ']') {
+                        position++;
+                        finished = true;
+                    } else if (c == ',') {
+                        position++;
+                    } else {
+                        throw malformed("',' or ']'");
+                    }
+                }
+                while (!finished) {
+                    entryNumber++;
+                    next = readEntry();
+                    if (next != null) {
+                        return true;
+                    }
+                    int c = skipWhitespace();
+                    if (c == ']') {
+                        position++;
+                        finished = true;
+                    } else if (c == ',') {
+                        position++;
+                    } else {
+                        throw malformed("',' or ']'");
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                finished = true;
+                throw new UncheckedIOException(e);
+            }
+        }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            int lineNumber = 0;
+        @Override
+        public BoatEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BoatEntry entry = next;
+            next = null;
+            return entry;
+        }
+        
+        /**
+         * Moves past the opening bracket of the array of entries, either
+         * the top-level value or the {@code boats} member of the top-level
+         * object.
+         */
+        private void enterBoatsArray() throws IOException {
+            int c = skipWhitespace();
+            if (c == '[') {
+                position++;
+                return;
+            }
+            if (c != '{') {
+                throw malformed("'{' or '['");
+            }
+            position++;
+            while (true) {
+                c = skipWhitespace();
+                if (c != '"') {
+                    throw malformed(c == '}' ? "a \"boats\" member" : "a member name");
+                }
+                readString();
+                boolean boats = isText("boats");
+                expectColon();
+                if (boats) {
+                    if (skipWhitespace() != '[') {
+                        throw malformed("'[' after \"boats\"");
+                    }
+                    position++;
+                    return;
+                }
+                skipValue();
+                c = skipWhitespace();
+                if (c != ',') {
+                    throw malformed(c == '}' ? "a \"boats\" member" : "',' or '}'");
+                }
+                position++;
+            }
+        }
+        
+        /**
+         * Reads one entry object.
+         *
+         * @return the entry, or {@code null} if it was reported as invalid
+         */
+        private BoatEntry readEntry() throws IOException {
+            if (skipWhitespace() != '{') {
+                throw malformed("'{'");
+            }
+            position++;
+            String boatId = null;
+            String chipId = null;
+            double latitude = Double.NaN;
+            double longitude = Double.NaN;
+            LocalDateTime timestamp = null;
+            String problem = null;
             
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                
-                // Skip empty lines and comments
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("#")) {
-                    continue;
+            int c = skipWhitespace();
+            if (c == '}') {
+                position++;
+            }
+            while (c != '}') {
+                if (c != '"') {
+                    throw malformed("a member name");
                 }
-                
+                readString();
+                // Identify the member before reading on, which may refill the buffer
+                int member = memberOf();
+                expectColon();
                 try {
-                    BoatEntry entry = parseLine(line);
-                    entries.add(entry);
-                } catch (Exception e) {
-                    System.err.printf("Warning: Skipping invalid line %d: %s (Error: %s)%n", 
-                            lineNumber, line, e.getMessage());
+                    if (member == MEMBER_OTHER) {
+                        skipValue();
+                    } else {
+                        boolean quoted = readScalar();
+                        switch (member) {
+                            case MEMBER_BOAT_ID:
+                                requireString(quoted, "boatId");
+                                boatId = text.subSequence(textStart, textEnd).toString();
+                                break;
+                            case MEMBER_CHIP_ID:
+                                requireString(quoted, "chipId");
+                                chipId = text.subSequence(textStart, textEnd).toString();
+                                break;
+                            case MEMBER_LATITUDE:
+                                latitude = parseDecimal(text, textStart, textEnd);
+                                break;
+                            case MEMBER_LONGITUDE:
+                                longitude = parseDecimal(text, textStart, textEnd);
+                                break;
+                            default:
+                                requireString(quoted, "timestamp");
+                                timestamp = parseTimestamp(text, textStart, textEnd);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    if (problem == null) {
+                        problem = e.getMessage();
+                    }
+                }
+                c = skipWhitespace();
+                if (c == ',') {
+                    position++;
+                    c = skipWhitespace();
+                } else if (c == '}') {
+                    position++;
+                } else {
+                    throw malformed("',' or '}'");
+                }
+            }
+            
+            if (problem == null) {
+                problem = boatId == null ? "Missing boatId"
+                        : chipId == null ? "Missing chipId"
+                        : Double.isNaN(latitude) ? "Missing latitude"
+                        : Double.isNaN(longitude) ? "Missing longitude"
+                        : timestamp == null ? "Missing timestamp"
+                        : null;
+            }
+            if (problem != null) {
+                if (report != null) {
+                    report.recordInvalidLine("entry " + entryNumber, problem);
+                } else {
+                    System.err.printf("Warning: Skipping invalid entry %d (Error: %s)%n", entryNumber, problem);
                 }
+                return null;
             }
+            return new BoatEntry(boatId, chipId, latitude, longitude, timestamp);
         }
         
-        return entries;
+        /**
+         * Rejects a bare number or literal such as {@code null} where the
+         * schema expects a string.
+         */
+        private static void requireString(boolean quoted, String member) {
+            if (!quoted) {
+                throw new IllegalArgumentException(member + " must be a string");
+            }
+        }
+        
+        private int memberOf() {
+            return isText("boatId") ? MEMBER_BOAT_ID
+                    : isText("chipId") ? MEMBER_CHIP_ID
+                    : isText("latitude") ? MEMBER_LATITUDE
+                    : isText("longitude") ? MEMBER_LONGITUDE
+                    : isText("timestamp") ? MEMBER_TIMESTAMP
+                    : MEMBER_OTHER;
+        }
+        
+        private boolean isText(String name) {
+            if (textEnd - textStart != name.length()) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (text.charAt(textStart + i) != name.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Reads a string, number or literal value into {@link #text}.
+         * Strings are unquoted and unescaped; other values are kept as
+         * written.
+         *
+         * @return {@code true} if the value was a string
+         */
+        private boolean readScalar() throws IOException {
+            int c = skipWhitespace();
+            if (c == '"') {
+                readString();
+                return true;
+            }
+            if (c == '{' || c == '[') {
+                throw malformed("a string or number");
+            }
+            int start = position;
+            while (position < limit && !endsScalar(buffer[position])) {
+                position++;
+            }
+            if (position < limit) {
+                setText(bufferChars, start, position);
+            } else {
+                // The value continues in the next buffer
+                escaped.setLength(0);
+                escaped.append(buffer, start, position - start);
+                while ((position < limit || fill()) && !endsScalar(buffer[position])) {
+                    escaped.append(buffer[position++]);
+                }
+                setText(escaped, 0, escaped.length());
+            }
+            if (textStart == textEnd) {
+                throw malformed("a value");
+            }
+            return false;
+        }
+        
+        private static boolean endsScalar(char c) {
+            return c == ',' || c == '}' || c == ']' || c <= ' ';
+        }
+        
+        /**
+         * Reads the string starting at the current quote into
+         * {@link #text}, resolving escapes.  Strings without escapes that
+         * lie within the buffer are not copied.
+         */
+        private void readString() throws IOException {
+            position++;
+            int start = position;
+            while (position < limit && buffer[position] != '"' && buffer[position] != '\\') {
+                position++;
+            }
+            if (position < limit && buffer[position] == '"') {
+                setText(bufferChars, start, position++);
+                return;
+            }
+            escaped.setLength(0);
+            escaped.append(buffer, start, position - start);
+            while (true) {
+                if (position == limit && !fill()) {
+                    throw malformed("the end of the string");
+                }
+                start = position;
+                while (position < limit && buffer[position] != '"' && buffer[position] != '\\') {
+                    position++;
+                }
+                escaped.append(buffer, start, position - start);
+                if (position == limit) {
+                    continue;
+                }
+                if (buffer[position++] == '"') {
+                    setText(escaped, 0, escaped.length());
+                    return;
+                }
+                char c = nextChar();
+                switch (c) {
+                    case 'b': escaped.append('\b'); break;
+                    case 'f': escaped.append('\f'); break;
+                    case 'n': escaped.append('\n'); break;
+                    case 'r': escaped.append('\r'); break;
+                    case 't': escaped.append('\t'); break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(nextChar(), 16);
+                            if (digit < 0) {
+                                throw malformed("a hexadecimal digit");
+                            }
+                            code = code * 16 + digit;
+                        }
+                        escaped.append((char) code);
+                        break;
+                    default:
+                        escaped.append(c);
+                }
+            }
+        }
+        
+        private void setText(CharSequence chars, int start, int end) {
+            text = chars;
+            textStart = start;
+            textEnd = end;
+        }
+        
+        /**
+         * Skips a value of any type, including nested objects and arrays.
+         */
+        private void skipValue() throws IOException {
+            int c = skipWhitespace();
+            if (c == '"') {
+                readString();
+                return;
+            }
+            if (c != '{' && c != '[') {
+                readScalar();
+                return;
+            }
+            int depth = 0;
+            do {
+                c = skipWhitespace();
+                if (c == '"') {
+                    readString();
+                    continue;
+                }
+                if (c < 0) {
+                    throw malformed("the end of the value");
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+                position++;
+            } while (depth > 0);
+        }
+        
+        private void expectColon() throws IOException {
+            if (skipWhitespace() != ':') {
+                throw malformed("':'");
+            }
+            position++;
+        }
+        
+        /**
+         * Skips whitespace and returns the next character without
+         * consuming it, or {@code -1} at the end of the input.
+         */
+        private int skipWhitespace() throws IOException {
+            while (true) {
+                if (position == limit && !fill()) {
+                    return -1;
+                }
+                char c = buffer[position];
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                    return c;
+                }
+                position++;
+            }
+        }
+        
+        private char nextChar() throws IOException {
+            if (position == limit && !fill()) {
+                throw malformed("more input");
+            }
+            return buffer[position++];
+        }
+        
+        private boolean fill() throws IOException {
+            bufferOffset += limit;
+            position = 0;
+            limit = Math.max(reader.read(buffer, 0, buffer.length), 0);
+            return limit > 0;
+        }
+        
+        private IOException malformed(String expected) {
+            return new IOException("Malformed JSON at character " + (bufferOffset + position)
+                    + ": expected " + expected);
+        }
     }
     
     /**
@@ -88,47 +784,304 @@ public class BoatFileReader {
      * Format: BoatID,ChipID,Latitude,Longitude,Timestamp
      */
     private static BoatEntry parseLine(String line) {
-        String[] parts = line.split(",");
+        return parseLine(line, 0, line.length());
+    }
+    
+    /**
+     * Parses the CSV line held in {@code line[start, end)} into a
+     * BoatEntry.  Fields are located by scanning for commas in place and
+     * trimmed by moving their bounds.  The only allocations are the two
+     * identifier strings, the timestamp and the entry itself.  Plain
+     * decimal coordinates and {@code yyyy-MM-dd HH:mm} timestamps are
+     * decoded directly; anything unusual falls back to the standard
+     * parsers so the accepted input and error messages stay the same.
+     */
+    static BoatEntry parseLine(CharSequence line, int start, int end) {
+        // String.split drops trailing empty fields; do the same
+        while (end > start && line.charAt(end - 1) == ',') {
+            end--;
+        }
+        int fields = 1;
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) == ',') {
+                fields++;
+            }
+        }
         
-        if (parts.length != 5) {
-            throw new IllegalArgumentException("Expected 5 fields, found " + parts.length);
+        if (fields != 5) {
+            throw new IllegalArgumentException("Expected 5 fields, found " + fields);
         }
         
-        String boatId = parts[0].trim();
-        String chipId = parts[1].trim();
-        double latitude = Double.parseDouble(parts[2].trim());
-        double longitude = Double.parseDouble(parts[3].trim());
-        LocalDateTime timestamp = LocalDateTime.parse(parts[4].trim(), DATE_FORMATTER);
+        int c1 = nextComma(line, start, end);
+        int c2 = nextComma(line, c1 + 1, end);
+        int c3 = nextComma(line, c2 + 1, end);
+        int c4 = nextComma(line, c3 + 1, end);
+        
+        String boatId = trimmed(line, start, c1).toString();
+        String chipId = trimmed(line, c1 + 1, c2).toString();
+        double latitude = parseDecimal(line, trimStart(line, c2 + 1, c3), trimEnd(line, c2 + 1, c3));
+        double longitude = parseDecimal(line, trimStart(line, c3 + 1, c4), trimEnd(line, c3 + 1, c4));
+        LocalDateTime timestamp = parseTimestamp(line, trimStart(line, c4 + 1, end), trimEnd(line, c4 + 1, end));
         
         return new BoatEntry(boatId, chipId, latitude, longitude, timestamp);
     }
     
     /**
-     * Loads boats from file into the detection system.
+     * Parses the UTF-8 CSV line held in {@code line[start, end)} into a
+     * BoatEntry.  Lines of the usual shape, with plain decimal
+     * coordinates and a {@code yyyy-MM-dd HH:mm} timestamp, are decoded
+     * straight from the bytes.  Anything else, including every invalid
+     * line, is decoded to a string and handed to
+     * {@link #parseLine(CharSequence, int, int)}, so the accepted input
+     * and error messages are the same.
+     */
+    static BoatEntry parseLine(byte[] line, int start, int end) {
+        int c1 = nextComma(line, start, end);
+        int c2 = nextComma(line, c1 + 1, end);
+        int c3 = nextComma(line, c2 + 1, end);
+        int c4 = nextComma(line, c3 + 1, end);
+        if (c4 < end && nextComma(line, c4 + 1, end) == end) {
+            double latitude = plainDecimal(line, trimStart(line, c2 + 1, c3), trimEnd(line, c2 + 1, c3));
+            double longitude = plainDecimal(line, trimStart(line, c3 + 1, c4), trimEnd(line, c3 + 1, c4));
+            LocalDateTime timestamp = plainTimestamp(line, trimStart(line, c4 + 1, end), trimEnd(line, c4 + 1, end));
+            if (!Double.isNaN(latitude) && !Double.isNaN(longitude) && timestamp != null) {
+                return new BoatEntry(trimmed(line, start, c1), trimmed(line, c1 + 1, c2),
+                        latitude, longitude, timestamp);
+            }
+        }
+        String text = new String(line, start, end - start, StandardCharsets.UTF_8);
+        return parseLine(text, 0, text.length());
+    }
+    
+    private static int nextComma(byte[] s, int from, int end) {
+        while (from < end && s[from] != ',') {
+            from++;
+        }
+        return from;
+    }
+    
+    private static int trimStart(byte[] s, int from, int to) {
+        // Bytes of multi-byte characters are negative, so never trimmed
+        while (from < to && s[from] >= 0 && s[from] <= ' ') {
+            from++;
+        }
+        return from;
+    }
+    
+    private static int trimEnd(byte[] s, int from, int to) {
+        while (to > from && s[to - 1] >= 0 && s[to - 1] <= ' ') {
+            to--;
+        }
+        return to;
+    }
+    
+    private static String trimmed(byte[] s, int from, int to) {
+        int start = trimStart(s, from, to);
+        return new String(s, start, trimEnd(s, start, to) - start, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Decodes an optionally negative decimal of at most 15 digits, such
+     * as {@code -20.5}, like {@link #parseDecimal(CharSequence, int, int)}.
+     *
+     * @return the value, or {@code NaN} if the text has any other form
+     */
+    private static double plainDecimal(byte[] s, int from, int to) {
+        int i = from;
+        boolean negative = i < to && s[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < to; i++) {
+            byte c = s[i];
+            if (c >= '0' && c <= '9' && digits < 15) {
+                digits++;
+                mantissa = mantissa * 10 + (c - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+    
+    /**
+     * Decodes a {@code yyyy-MM-dd HH:mm} timestamp whose day is at most
+     * 28, like {@link #parseTimestamp(CharSequence, int, int)}.
+     *
+     * @return the time, or {@code null} if the text has any other form
+     */
+    private static LocalDateTime plainTimestamp(byte[] s, int from, int to) {
+        if (to - from != 16 || s[from + 4] != '-' || s[from + 7] != '-'
+                || s[from + 10] != ' ' || s[from + 13] != ':') {
+            return null;
+        }
+        int year = digits(s, from, 4);
+        int month = digits(s, from + 5, 2);
+        int day = digits(s, from + 8, 2);
+        int hour = digits(s, from + 11, 2);
+        int minute = digits(s, from + 14, 2);
+        if (year >= 1 && month >= 1 && month <= 12 && day >= 1 && day <= 28
+                && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59) {
+            return LocalDateTime.of(year, month, day, hour, minute);
+        }
+        return null;
+    }
+    
+    private static int digits(byte[] s, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            byte c = s[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+    
+    private static int nextComma(CharSequence s, int from, int end) {
+        while (from < end && s.charAt(from) != ',') {
+            from++;
+        }
+        return from;
+    }
+    
+    private static int trimStart(CharSequence s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+    
+    private static int trimEnd(CharSequence s, int from, int to) {
+        while (to > from && s.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+    
+    private static CharSequence trimmed(CharSequence s, int from, int to) {
+        return s.subSequence(trimStart(s, from, to), trimEnd(s, from, to));
+    }
+    
+    /**
+     * Powers of ten that are exactly representable as doubles.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    
+    /**
+     * Parses an optionally signed decimal number such as {@code 20.5}.
+     * The digits are accumulated into a long and divided by an exact
+     * power of ten, which yields the correctly rounded double as long as
+     * the digits fit in 53 bits.  Other inputs are delegated to
+     * {@link Double#parseDouble(String)}.
+     */
+    private static double parseDecimal(CharSequence s, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 15) {
+                    return Double.parseDouble(s.subSequence(from, to).toString());
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return Double.parseDouble(s.subSequence(from, to).toString());
+            }
+        }
+        if (digits == 0) {
+            return Double.parseDouble(s.subSequence(from, to).toString());
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+    
+    /**
+     * Parses a {@code yyyy-MM-dd HH:mm} timestamp by reading its digits
+     * at fixed offsets.  Any other shape, or an out of range field, is
+     * handed to {@link #DATE_FORMATTER}.
+     */
+    private static LocalDateTime parseTimestamp(CharSequence s, int from, int to) {
+        if (to - from == 16 && s.charAt(from + 4) == '-' && s.charAt(from + 7) == '-'
+                && s.charAt(from + 10) == ' ' && s.charAt(from + 13) == ':') {
+            int year = digits(s, from, 4);
+            int month = digits(s, from + 5, 2);
+            int day = digits(s, from + 8, 2);
+            int hour = digits(s, from + 11, 2);
+            int minute = digits(s, from + 14, 2);
+            if (year >= 1 && month >= 1 && month <= 12 && day >= 1 && day <= 28
+                    && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59) {
+                return LocalDateTime.of(year, month, day, hour, minute);
+            }
+        }
+        return LocalDateTime.parse(s.subSequence(from, to), DATE_FORMATTER);
+    }
+    
+    /**
+     * Reads {@code count} ASCII digits starting at {@code from}.
+     *
+     * @return the value of the digits, or {@code -1} if any is not a digit
+     */
+    private static int digits(CharSequence s, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+    
+    /**
+     * Loads boats from file into the detection system.  Entries for a
+     * chip that is already registered update that boat.
      * 
      * @param system the boat detection system
      * @param filename the input file path
-     * @return number of boats successfully loaded
+     * @return number of entries successfully loaded
      */
     public static int loadBoatsIntoSystem(BoatDetectionSystem system, String filename) {
-        try {
-            List<BoatEntry> entries = readBoatsFromFile(filename);
+        try (Stream<BoatEntry> entries = streamBoatsFromFile(filename)) {
             int successCount = 0;
+            int totalCount = 0;
             
             System.out.println("\n=== Loading boats from file: " + filename + " ===");
             
-            for (BoatEntry entry : entries) {
+            for (Iterator<BoatEntry> it = entries.iterator(); it.hasNext(); ) {
+                BoatEntry entry = it.next();
+                totalCount++;
                 try {
-                    // Add boat with chip ID
-                    Boat boat = system.addBoat(entry.getChipId());
-                    
-                    // Update position
-                    system.updateBoatLocation(
-                            boat.getId(),
-                            entry.getLatitude(),
-                            entry.getLongitude(),
-                            entry.getTimestamp()
-                    );
+                    Boat boat = applyEntry(system, entry);
                     
                     System.out.printf("✓ Loaded: %s (Chip: %s) at (%.2f, %.2f) - Status: %s%n",
                             boat.getId(),
@@ -143,14 +1096,346 @@ public class BoatFileReader {
                 }
             }
             
-            System.out.printf("\nSuccessfully loaded %d out of %d boats from file.%n", 
-                    successCount, entries.size());
+            System.out.printf("\nSuccessfully loaded %d out of %d entries from file (%d boats).%n", 
+                    successCount, totalCount, system.getBoatCount());
             
             return successCount;
             
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error reading file: " + e.getMessage());
             return 0;
         }
     }
+    
+    /**
+     * Loads boats from file into the detection system without printing
+     * anything per entry.  Counts, failures and timing are collected in
+     * the returned report, so the load runs at the speed of parsing
+     * rather than the speed of the console.
+     * 
+     * @param system the boat detection system
+     * @param filename the input file path
+     * @return a report describing the load
+     */
+    public static LoadReport loadBoatsQuietly(BoatDetectionSystem system, String filename) {
+        return loadBoatsQuietly(system, filename, 0, null);
+    }
+    
+    /**
+     * Loads boats from file into the detection system without printing
+     * anything per entry, reporting progress every
+     * {@code progressInterval} entries.  The callback receives the live
+     * report of the running load.
+     * 
+     * @param system the boat detection system
+     * @param filename the input file path
+     * @param progressInterval number of entries between progress
+     *                         callbacks, or {@code 0} for none
+     * @param progress the progress callback, may be {@code null}
+     * @return a report describing the load
+     */
+    public static LoadReport loadBoatsQuietly(BoatDetectionSystem system, String filename,
+                                              long progressInterval, Consumer<LoadReport> progress) {
+        LoadReport report = new LoadReport(filename);
+        try (Stream<BoatEntry> entries = streamBoatsFromFile(filename, report)) {
+            long sinceProgress = 0;
+            for (Iterator<BoatEntry> it = entries.iterator(); it.hasNext(); ) {
+                applyEntry(system, it.next(), report);
+                if (progress != null && progressInterval > 0 && ++sinceProgress == progressInterval) {
+                    sinceProgress = 0;
+                    progress.accept(report);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            report.recordReadError(e.getMessage());
+        }
+        report.finish();
+        return report;
+    }
+    
+    /**
+     * Applies an entry and records the outcome in the report.
+     */
+    private static void applyEntry(BoatDetectionSystem system, BoatEntry entry, LoadReport report) {
+        try {
+            applyEntry(system, entry);
+            report.recordLoaded();
+        } catch (Exception e) {
+            report.recordFailed(entry.getBoatId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Applies the position of an entry to the boat carrying its chip,
+     * registering the boat on its first fix.  The BoatID column is not
+     * used as a key since the system assigns its own identifiers.
+     */
+    private static Boat applyEntry(BoatDetectionSystem system, BoatEntry entry) {
+        // Find or add boat with chip ID
+        Boat boat = system.getOrAddBoat(entry.getChipId());
+        
+        // Update position
+        system.updateBoatLocation(
+                boat.getId(),
+                entry.getLatitude(),
+                entry.getLongitude(),
+                entry.getTimestamp()
+        );
+        return boat;
+    }
+    
+    /**
+     * Loads boats from a large file using all available cores.  The file
+     * is memory-mapped in newline-aligned chunks of at most
+     * {@value #LOAD_CHUNK_SIZE} bytes, processed a batch of chunks at a
+     * time so memory use does not grow with the file.  The chunks of a
+     * batch are parsed in parallel on the common fork-join pool.  Boats
+     * first seen in the batch are then registered in file order, so they
+     * are numbered as a sequential load would number them.  Finally the
+     * entries are split into partitions by chip and the partitions are
+     * applied in parallel, each in timestamp order.  The sort is stable,
+     * so fixes with equal timestamps keep their file order, and it spans
+     * one batch, so a fix recorded more than a batch away from its
+     * neighbours is applied where it stands in the file.  Like
+     * {@link #loadBoatsQuietly(BoatDetectionSystem, String)}, nothing is
+     * printed per entry.  JSON files are read sequentially, as
+     * {@link #loadBoatsQuietly(BoatDetectionSystem, String)} does.
+     * 
+     * @param system the boat detection system
+     * @param filename the input file path
+     * @return a report describing the load
+     */
+    public static LoadReport loadBoatsParallel(BoatDetectionSystem system, String filename) {
+        if (isJson(filename)) {
+            return loadBoatsQuietly(system, filename);
+        }
+        LoadReport report = new LoadReport(filename);
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            int parallelism = ForkJoinPool.getCommonPoolParallelism();
+            long chunkSize = Math.min(LOAD_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, channel.size() / (parallelism * 4)));
+            List<long[]> chunks = splitChunks(channel, chunkSize);
+            int batchSize = parallelism * 2;
+            int partitions = Integer.highestOneBit(parallelism * 8 - 1) << 1;
+            for (int from = 0; from < chunks.size(); from += batchSize) {
+                List<ParsedChunk> batch = chunks.subList(from, Math.min(chunks.size(), from + batchSize))
+                        .parallelStream()
+                        .map(chunk -> new ParsedChunk(parseChunk(channel, chunk[0], chunk[1], report), partitions))
+                        .collect(Collectors.toList());
+                for (ParsedChunk chunk : batch) {
+                    for (String chipId : chunk.chips) {
+                        system.getOrAddBoat(chipId);
+                    }
+                }
+                IntStream.range(0, partitions).parallel().forEach(partition -> {
+                    List<BoatEntry> entries = new ArrayList<>();
+                    for (ParsedChunk chunk : batch) {
+                        entries.addAll(chunk.partitions.get(partition));
+                    }
+                    entries.sort(Comparator.comparing(BoatEntry::getTimestamp));
+                    long loaded = 0;
+                    for (BoatEntry entry : entries) {
+                        try {
+                            applyEntry(system, entry);
+                            loaded++;
+                        } catch (Exception e) {
+                            report.recordFailed(entry.getBoatId(), e.getMessage());
+                        }
+                    }
+                    report.recordLoaded(loaded);
+                });
+            }
+        } catch (IOException | UncheckedIOException e) {
+            report.recordReadError(e.getMessage());
+        }
+        report.finish();
+        return report;
+    }
+    
+    /**
+     * Entries of one chunk, split into partitions by chip, together with
+     * the chips the chunk mentions in the order they first appear.
+     */
+    private static final class ParsedChunk {
+        final List<List<BoatEntry>> partitions;
+        final Collection<String> chips = new LinkedHashSet<>();
+        
+        ParsedChunk(List<BoatEntry> entries, int partitionCount) {
+            partitions = new ArrayList<>(partitionCount);
+            for (int i = 0; i < partitionCount; i++) {
+                partitions.add(new ArrayList<>());
+            }
+            for (BoatEntry entry : entries) {
+                String chipId = entry.getChipId();
+                chips.add(chipId);
+                int h = chipId.hashCode();
+                partitions.get((h ^ (h >>> 16)) & (partitionCount - 1)).add(entry);
+            }
+        }
+    }
+    
+    /**
+     * Reads boat entries from a CSV file by memory-mapping it and parsing
+     * newline-aligned chunks in parallel.  The file is expected to be
+     * UTF-8 (or plain ASCII); bytes are decoded only for the identifier
+     * fields.
+     * 
+     * @param filename the path to the input file
+     * @return list of boat entries in file order
+     * @throws IOException if file cannot be read
+     */
+    public static List<BoatEntry> readBoatsParallel(String filename) throws IOException {
+        return readBoatsParallel(filename, 0, null);
+    }
+    
+    /**
+     * Variant of {@link #readBoatsParallel(String)} with an explicit chunk
+     * size, or {@code 0} to derive it from the file size and the number
+     * of cores.  Invalid lines are counted in the report if one is given.
+     */
+    static List<BoatEntry> readBoatsParallel(String filename, long chunkSize, LoadReport report) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (chunkSize <= 0) {
+                int tasks = ForkJoinPool.getCommonPoolParallelism() * 4;
+                chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, channel.size() / tasks));
+            }
+            List<long[]> chunks = splitChunks(channel, chunkSize);
+            
+            List<List<BoatEntry>> parsed = chunks.parallelStream()
+                    .map(chunk -> parseChunk(channel, chunk[0], chunk[1], report))
+                    .collect(Collectors.toList());
+            
+            int total = 0;
+            for (List<BoatEntry> part : parsed) {
+                total += part.size();
+            }
+            List<BoatEntry> entries = new ArrayList<>(total);
+            for (List<BoatEntry> part : parsed) {
+                entries.addAll(part);
+            }
+            return entries;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Splits the file into newline-aligned chunks of about
+     * {@code chunkSize} bytes.
+     *
+     * @return the start and end offset of each chunk, in file order
+     */
+    private static List<long[]> splitChunks(FileChannel channel, long chunkSize) throws IOException {
+        long size = channel.size();
+        List<long[]> chunks = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = start + chunkSize >= size ? size : lineEnd(channel, start + chunkSize, size);
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+    
+    /**
+     * Returns the position just after the first newline at or after
+     * {@code from}, or {@code size} if the file ends first.
+     */
+    private static long lineEnd(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+    
+    /**
+     * Maps and parses the lines in {@code [start, end)} of the file.
+     * Each line is copied out of the mapping into a reused byte array and
+     * handed to {@link #parseLine(byte[], int, int)}.
+     */
+    private static List<BoatEntry> parseChunk(FileChannel channel, long start, long end, LoadReport report) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<BoatEntry> entries = new ArrayList<>();
+        byte[] line = new byte[256];
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int length = lineEnd - lineStart;
+            if (length > line.length) {
+                line = new byte[Math.max(length, line.length * 2)];
+            }
+            buffer.get(lineStart, line, 0, length);
+            int from = trimStart(line, 0, length);
+            int to = trimEnd(line, from, length);
+            
+            // Skip empty lines and comments
+            if (from < to && line[from] != '#') {
+                try {
+                    entries.add(parseLine(line, from, to));
+                } catch (Exception e) {
+                    if (report != null) {
+                        report.recordInvalidLine("byte " + (start + lineStart), e.getMessage());
+                    } else {
+                        System.err.printf("Warning: Skipping invalid line at byte %d: %s (Error: %s)%n", 
+                                start + lineStart, new String(line, from, to - from, StandardCharsets.UTF_8),
+                                e.getMessage());
+                    }
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return entries;
+    }
+    
+    /**
+     * Presents a range of a character array to the parsers without
+     * copying it.
+     */
+    private static final class CharArrayChars implements CharSequence {
+        private final char[] chars;
+        
+        CharArrayChars(char[] chars) {
+            this.chars = chars;
+        }
+        
+        @Override
+        public int length() {
+            return chars.length;
+        }
+        
+        @Override
+        public char charAt(int index) {
+            return chars[index];
+        }
+        
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+        
+        @Override
+        public String toString() {
+            return new String(chars);
+        }
+    }
 }
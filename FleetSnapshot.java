@@ -0,0 +1,459 @@
+package com.boattracking;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Compact binary image of the state of a {@link BoatDetectionSystem}.
+ *
+ * <p>A snapshot holds every boat with its chip, last fix, status and
+ * open violation, the retained alerts, the alerting mode, the next boat
+ * number and the restricted zones, so loading one restores the system
+ * without re-reading and re-parsing the original track files.  It also
+ * carries the generation of the write-ahead log it was taken for, so
+ * that recovery knows whether the log on disk continues this snapshot
+ * or predates it.</p>
+ *
+ * <p>The file starts with a magic number and a format version.  Version
+ * 1 has no restricted zones; version 2 adds them.  Readers accept both,
+ * and writers always produce the latest version.  All numbers are
+ * big-endian and strings are in the modified UTF-8 of
+ * {@link DataOutputStream#writeUTF(String)}.</p>
+ *
+ * <p>The state is copied while updates are paused and written out
+ * afterwards, so updates wait only for the copy, not for the disk.
+ * Snapshots are written to a temporary file and moved into place, so a
+ * crash never leaves a half-written snapshot behind.  They are read
+ * through a memory mapping and decoded straight from the mapped bytes.</p>
+ */
+public final class FleetSnapshot {
+
+    static final int MAGIC = 0x4254534E; // "BTSN"
+    static final int VERSION = 2;
+
+    private static final byte NONE = -1;
+    private static final byte RECTANGLE = 0;
+    private static final byte POLYGON = 1;
+
+    private FleetSnapshot() {
+    }
+
+    /**
+     * Saves the state of a system.  Updates are paused while the state
+     * is copied, so the file is a consistent image.
+     *
+     * @param system the system to save
+     * @param file   the destination file
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(BoatDetectionSystem system, Path file) throws IOException {
+        Image[] image = new Image[1];
+        system.quiesce(() -> image[0] = new Image(system));
+        write(image[0], 0, file);
+    }
+
+    /**
+     * Loads a system from a snapshot.
+     *
+     * @param file the snapshot file
+     * @return a new system in the saved state
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static BoatDetectionSystem load(Path file) throws IOException {
+        return read(file).system;
+    }
+
+    /**
+     * Result of reading a snapshot.
+     */
+    static final class Loaded {
+        final BoatDetectionSystem system;
+        final long generation;
+
+        Loaded(BoatDetectionSystem system, long generation) {
+            this.system = system;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * Copy of the state of a system, ready to be written while the system
+     * runs on.  Boats are copied column by column, so taking an image
+     * costs a few array copies.
+     */
+    static final class Image {
+        final int alertCapacity;
+        final int nextId;
+        final AlertMode alertMode;
+        final FleetStore boats;
+        final List<Alert> alerts;
+        final List<double[]> zones;
+        final GeoPolygon[] polygons;
+
+        /**
+         * Copies the state of a system.  The caller must make sure no
+         * updates run meanwhile if an exact image is needed, see
+         * {@link BoatDetectionSystem#quiesce(Runnable)}.
+         */
+        Image(BoatDetectionSystem system) {
+            alertCapacity = system.getAlertCapacity();
+            nextId = system.peekNextId();
+            alertMode = system.getAlertMode();
+            boats = system.getFleetStore().copyColumns();
+            alerts = system.getAlertLog();
+            ZoneIndex index = system.getZoneIndex();
+            zones = index.getZones();
+            polygons = new GeoPolygon[zones.size()];
+            for (int id = 0; id < polygons.length; id++) {
+                polygons[id] = index.getPolygon(id);
+            }
+        }
+    }
+
+    /**
+     * Writes an image of a system to {@code file} and forces it to disk.
+     *
+     * @param image      the state to save
+     * @param generation the write-ahead log generation the snapshot starts
+     * @param file       the destination file
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Image image, long generation, Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(generation);
+            out.writeInt(image.alertCapacity);
+            out.writeInt(image.nextId);
+            out.writeByte(image.alertMode.ordinal());
+
+            FleetStore store = image.boats;
+            int boatCount = store.size();
+            out.writeInt(boatCount);
+            for (int slot = 0; slot < boatCount; slot++) {
+                writeBoat(out, store, slot);
+            }
+            out.writeInt(image.alerts.size());
+            for (Alert alert : image.alerts) {
+                writeAlert(out, alert);
+            }
+            writeZones(out, image.zones, image.polygons);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot into a new system.
+     *
+     * @param file the snapshot file
+     * @return the restored system and the log generation it starts
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    static Loaded read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map");
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int version = readVersion(in, file);
+            long generation = in.getLong();
+            int alertCapacity = in.getInt();
+            int nextId = in.getInt();
+            AlertMode alertMode = AlertMode.values()[in.get()];
+            int boatCount = in.getInt();
+            BoatDetectionSystem system = new BoatDetectionSystem(alertCapacity, boatCount);
+            system.restoreNextId(nextId);
+            system.setAlertMode(alertMode);
+
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < boatCount; i++) {
+                readBoat(in, system, scratch);
+            }
+            int alertCount = in.getInt();
+            for (int i = 0; i < alertCount; i++) {
+                system.restoreAlert(readAlert(in));
+            }
+            if (version >= 2) {
+                readZones(in, system);
+            }
+            return new Loaded(system, generation);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(file + " is truncated", e);
+        }
+    }
+
+    /**
+     * Reads only the log generation of a snapshot.
+     *
+     * @param file the snapshot file
+     * @return the generation
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    static long readGeneration(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4 + 2 + 8);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete
+            }
+            header.flip();
+            readVersion(header, file);
+            return header.getLong();
+        } catch (BufferUnderflowException e) {
+            throw new IOException(file + " is truncated", e);
+        }
+    }
+
+    private static int readVersion(ByteBuffer in, Path file) throws IOException {
+        if (in.getInt() != MAGIC) {
+            throw new IOException(file + " is not a fleet snapshot");
+        }
+        int version = in.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + file);
+        }
+        return version;
+    }
+
+    static void writeBoat(DataOutputStream out, FleetStore store, int slot) throws IOException {
+        out.writeUTF(store.getBoatId(slot));
+        out.writeUTF(store.getChipId(slot));
+        out.writeDouble(store.getLatitude(slot));
+        out.writeDouble(store.getLongitude(slot));
+        out.writeLong(store.getFixTime(slot));
+        out.writeInt(store.getOffsetSeconds(slot));
+        Status status = store.getStatus(slot);
+        out.writeByte(status == null ? NONE : status.ordinal());
+        AlertType violation = store.getOpenViolation(slot);
+        out.writeByte(violation == null ? NONE : violation.ordinal());
+    }
+
+    /**
+     * Returns an upper bound of the bytes {@link #putBoat} writes for a
+     * boat.
+     */
+    static int maxBoatBytes(FleetStore store, int slot) {
+        return maxUTFBytes(store.getBoatId(slot)) + maxUTFBytes(store.getChipId(slot)) + 8 + 8 + 8 + 4 + 1 + 1;
+    }
+
+    /**
+     * Writes a boat in the same format as {@link #writeBoat}, straight
+     * into a buffer with at least {@link #maxBoatBytes} bytes remaining.
+     */
+    static void putBoat(ByteBuffer out, FleetStore store, int slot) {
+        putUTF(out, store.getBoatId(slot));
+        putUTF(out, store.getChipId(slot));
+        out.putDouble(store.getLatitude(slot));
+        out.putDouble(store.getLongitude(slot));
+        out.putLong(store.getFixTime(slot));
+        out.putInt(store.getOffsetSeconds(slot));
+        Status status = store.getStatus(slot);
+        out.put(status == null ? NONE : (byte) status.ordinal());
+        AlertType violation = store.getOpenViolation(slot);
+        out.put(violation == null ? NONE : (byte) violation.ordinal());
+    }
+
+    static void readBoat(ByteBuffer in, BoatDetectionSystem system) throws IOException {
+        readBoat(in, system, null);
+    }
+
+    /**
+     * Reads a boat, decoding its identifiers through {@code scratch} if
+     * given so that reading many boats in a row does not allocate a
+     * throwaway array per string.
+     */
+    private static void readBoat(ByteBuffer in, BoatDetectionSystem system, byte[] scratch) throws IOException {
+        String boatId = readUTF(in, scratch);
+        String chipId = readUTF(in, scratch);
+        double latitude = in.getDouble();
+        double longitude = in.getDouble();
+        long epochMillis = in.getLong();
+        int offsetSeconds = in.getInt();
+        byte status = in.get();
+        byte violation = in.get();
+        system.restoreBoat(boatId, chipId, latitude, longitude, epochMillis, offsetSeconds,
+                status == NONE ? null : Status.values()[status],
+                violation == NONE ? null : AlertType.values()[violation]);
+    }
+
+    /**
+     * Writes an alert.  Alerts raised from a fix are stored by their
+     * fields; alerts built from a message keep the message.
+     */
+    static void writeAlert(DataOutputStream out, Alert alert) throws IOException {
+        out.writeUTF(alert.getBoatId());
+        out.writeByte(alert.getType().ordinal());
+        out.writeLong(BoatDetectionSystem.toEpochMillis(alert.getTimestamp()));
+        boolean fromMessage = Double.isNaN(alert.getLatitude());
+        out.writeBoolean(fromMessage);
+        if (fromMessage) {
+            out.writeUTF(alert.getMessage());
+        } else {
+            out.writeDouble(alert.getLatitude());
+            out.writeDouble(alert.getLongitude());
+        }
+    }
+
+    /**
+     * Returns an upper bound of the bytes {@link #putAlert} writes for an
+     * alert.
+     */
+    static int maxAlertBytes(Alert alert) {
+        int body = Double.isNaN(alert.getLatitude()) ? maxUTFBytes(alert.getMessage()) : 16;
+        return maxUTFBytes(alert.getBoatId()) + 1 + 8 + 1 + body;
+    }
+
+    /**
+     * Writes an alert in the same format as {@link #writeAlert}, straight
+     * into a buffer with at least {@link #maxAlertBytes} bytes remaining.
+     */
+    static void putAlert(ByteBuffer out, Alert alert) {
+        putUTF(out, alert.getBoatId());
+        out.put((byte) alert.getType().ordinal());
+        out.putLong(BoatDetectionSystem.toEpochMillis(alert.getTimestamp()));
+        boolean fromMessage = Double.isNaN(alert.getLatitude());
+        out.put(fromMessage ? (byte) 1 : (byte) 0);
+        if (fromMessage) {
+            putUTF(out, alert.getMessage());
+        } else {
+            out.putDouble(alert.getLatitude());
+            out.putDouble(alert.getLongitude());
+        }
+    }
+
+    static Alert readAlert(ByteBuffer in) throws IOException {
+        String boatId = readUTF(in);
+        AlertType type = AlertType.values()[in.get()];
+        LocalDateTime timestamp = BoatDetectionSystem.toLocalDateTime(in.getLong(),
+                BoatDetectionSystem.LOCAL_OFFSET.getTotalSeconds());
+        if (in.get() != 0) {
+            return new Alert(boatId, type, readUTF(in), timestamp);
+        }
+        return new Alert(boatId, type, in.getDouble(), in.getDouble(), timestamp);
+    }
+
+    private static void writeZones(DataOutputStream out, List<double[]> bounds, GeoPolygon[] polygons)
+            throws IOException {
+        out.writeInt(bounds.size());
+        for (int id = 0; id < bounds.size(); id++) {
+            GeoPolygon polygon = polygons[id];
+            if (polygon == null) {
+                out.writeByte(RECTANGLE);
+                for (double value : bounds.get(id)) {
+                    out.writeDouble(value);
+                }
+            } else {
+                out.writeByte(POLYGON);
+                List<double[]> rings = polygon.getRings();
+                out.writeInt(rings.size());
+                for (double[] ring : rings) {
+                    out.writeInt(ring.length);
+                    for (double value : ring) {
+                        out.writeDouble(value);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void readZones(ByteBuffer in, BoatDetectionSystem system) throws IOException {
+        system.clearRestrictedZones();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            byte kind = in.get();
+            if (kind == RECTANGLE) {
+                system.addRestrictedZone(in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble());
+            } else if (kind == POLYGON) {
+                double[][] rings = new double[in.getInt()][];
+                for (int r = 0; r < rings.length; r++) {
+                    rings[r] = new double[in.getInt()];
+                    in.asDoubleBuffer().get(rings[r]);
+                    in.position(in.position() + rings[r].length * Double.BYTES);
+                }
+                system.addRestrictedZone(GeoPolygon.of(rings));
+            } else {
+                throw new IOException("Unknown zone kind " + kind);
+            }
+        }
+    }
+
+    static int maxUTFBytes(String s) {
+        return 2 + 3 * s.length();
+    }
+
+    /**
+     * Writes a string as {@link DataOutputStream#writeUTF(String)} does.
+     * ASCII strings, such as boat and chip identifiers, are copied
+     * directly.
+     *
+     * @throws java.io.UncheckedIOException if the string is too long
+     */
+    static void putUTF(ByteBuffer out, String s) {
+        int length = s.length();
+        boolean ascii = length <= 0xFFFF;
+        for (int i = 0; i < length && ascii; i++) {
+            char c = s.charAt(i);
+            ascii = c != 0 && c < 0x80;
+        }
+        if (ascii) {
+            out.putShort((short) length);
+            for (int i = 0; i < length; i++) {
+                out.put((byte) s.charAt(i));
+            }
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(length + 2);
+        try {
+            new DataOutputStream(bytes).writeUTF(s);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.put(bytes.toByteArray());
+    }
+
+    /**
+     * Reads a string written by {@link DataOutputStream#writeUTF(String)}.
+     * ASCII strings, such as boat and chip identifiers, are decoded
+     * directly from the buffer.
+     */
+    static String readUTF(ByteBuffer in) throws IOException {
+        return readUTF(in, null);
+    }
+
+    private static String readUTF(ByteBuffer in, byte[] scratch) throws IOException {
+        int length = in.getShort() & 0xFFFF;
+        int start = in.position();
+        for (int i = 0; i < length; i++) {
+            if (in.get(start + i) < 0) {
+                byte[] framed = new byte[length + 2];
+                framed[0] = (byte) (length >>> 8);
+                framed[1] = (byte) length;
+                in.get(framed, 2, length);
+                return new DataInputStream(new ByteArrayInputStream(framed)).readUTF();
+            }
+        }
+        byte[] ascii = scratch != null && length <= scratch.length ? scratch : new byte[length];
+        in.get(ascii, 0, length);
+        return new String(ascii, 0, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,607 @@
+package com.boattracking;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Columnar store of fleet state.
+ *
+ * <p>The store keeps the identifiers, latitude, longitude, time and
+ * offset of the last fix, status and open violation of every boat in
+ * parallel arrays indexed by an int slot.  It is the registry behind
+ * {@link BoatDetectionSystem}: a {@link Boat} is only a view of one slot,
+ * so the fleet costs no object per boat.  Besides the identifier strings
+ * a boat takes about 70 bytes, including the two open-addressing tables
+ * that map boat and chip identifiers to slots.  Whole-fleet scans such as
+ * rendering the map walk the arrays sequentially, which is cache
+ * friendly.</p>
+ *
+ * <p>Slots are assigned in registration order and never change, so a
+ * slot can be used as a compact key for a boat.  Boats are registered
+ * under the store's monitor.  The state of a slot is written under its
+ * stripe lock, {@link #lockFor(int)}, while reads take no lock and see
+ * the latest value of each field.  The arrays grow by copying while all
+ * stripe locks are held, so no write can land in an array that has been
+ * replaced.  Boats of each status are linked into per-stripe lists, so
+ * listing the boats of one status costs the number of matches rather
+ * than a scan of the fleet.</p>
+ */
+public class FleetStore {
+
+    /**
+     * Time stored for boats that have not reported a position yet.
+     */
+    public static final long NO_FIX = Long.MIN_VALUE;
+
+    private static final Status[] STATUSES = Status.values();
+    private static final AlertType[] ALERT_TYPES = AlertType.values();
+
+    private static final VarHandle DOUBLES = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    /**
+     * Per-boat arrays.  Replaced as a whole when the store grows.
+     */
+    private static final class Columns {
+        final String[] boatIds;
+        final String[] chipIds;
+        final double[] latitudes;
+        final double[] longitudes;
+        final long[] fixTimes;
+        final int[] offsets;
+        /** Ordinal of the status, or -1 for none. */
+        final byte[] statuses;
+        /** Ordinal of the open violation plus one, or 0 for none. */
+        final byte[] violations;
+        /** Neighbours in the status list of the slot's stripe, or -1. */
+        final int[] next;
+        final int[] previous;
+
+        Columns(int capacity) {
+            boatIds = new String[capacity];
+            chipIds = new String[capacity];
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+            fixTimes = new long[capacity];
+            offsets = new int[capacity];
+            statuses = new byte[capacity];
+            violations = new byte[capacity];
+            next = new int[capacity];
+            previous = new int[capacity];
+        }
+
+        Columns(Columns from, int capacity) {
+            boatIds = Arrays.copyOf(from.boatIds, capacity);
+            chipIds = Arrays.copyOf(from.chipIds, capacity);
+            latitudes = Arrays.copyOf(from.latitudes, capacity);
+            longitudes = Arrays.copyOf(from.longitudes, capacity);
+            fixTimes = Arrays.copyOf(from.fixTimes, capacity);
+            offsets = Arrays.copyOf(from.offsets, capacity);
+            statuses = Arrays.copyOf(from.statuses, capacity);
+            violations = Arrays.copyOf(from.violations, capacity);
+            next = Arrays.copyOf(from.next, capacity);
+            previous = Arrays.copyOf(from.previous, capacity);
+        }
+    }
+
+    private final Object[] locks;
+    private final int stripeMask;
+
+    /**
+     * First slot of each status list, indexed by
+     * {@code stripe * STATUSES.length + status}, or -1.  Guarded by the
+     * stripe lock.
+     */
+    private final int[] heads;
+
+    /**
+     * Length of each status list, indexed like {@link #heads}.  Written
+     * under the stripe lock and read without it.
+     */
+    private final int[] counts;
+
+    private volatile Columns columns;
+    private volatile int size;
+
+    /**
+     * Open-addressing indexes from boat identifier and from chip
+     * identifier to slot.  Each entry holds {@code slot + 1}, so
+     * {@code 0} marks a free entry; the length is a power of two and at
+     * most half the entries are used.  Written under the store's monitor
+     * and read without it.
+     */
+    private volatile int[] index;
+    private volatile int[] chipIndex;
+    private int chipCount;
+
+    /**
+     * Creates an empty store sized for a small fleet.
+     */
+    FleetStore() {
+        this(64);
+    }
+
+    /**
+     * Creates an empty store with room for {@code initialCapacity}
+     * boats before it needs to grow, for use by a single thread.
+     *
+     * @param initialCapacity the expected number of boats
+     */
+    FleetStore(int initialCapacity) {
+        this(initialCapacity, 1);
+    }
+
+    /**
+     * Creates an empty store whose slots are guarded by {@code stripes}
+     * locks.
+     *
+     * @param initialCapacity the expected number of boats
+     * @param stripes         the number of locks; a power of two
+     */
+    FleetStore(int initialCapacity, int stripes) {
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("stripes must be a power of two");
+        }
+        int capacity = Math.max(1, initialCapacity);
+        locks = new Object[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new Object();
+        }
+        stripeMask = stripes - 1;
+        heads = new int[stripes * STATUSES.length];
+        Arrays.fill(heads, -1);
+        counts = new int[heads.length];
+        columns = new Columns(capacity);
+        index = new int[tableLength(capacity)];
+        chipIndex = new int[tableLength(capacity)];
+    }
+
+    /**
+     * Creates a store for a single thread over existing columns, with or
+     * without its indexes and status lists.
+     */
+    private FleetStore(Columns columns, int size, boolean indexed) {
+        this(1, 1);
+        this.columns = columns;
+        this.size = size;
+        if (indexed) {
+            index = rehash(tableLength(size), columns.boatIds, size);
+            chipIndex = rehash(tableLength(size), columns.chipIds, size);
+            // Rebuild the status lists for the single stripe, lowest slot first
+            for (int slot = size - 1; slot >= 0; slot--) {
+                link(columns, slot, columns.statuses[slot]);
+            }
+        }
+    }
+
+    /**
+     * Registers a boat and assigns it the next free slot.  The boat
+     * starts GREEN without a fix.  The boat becomes the one found by
+     * {@link #slotOfChip(String)} unless a boat with the same chip is
+     * already stored.
+     *
+     * @param boatId the system identifier of the boat
+     * @param chipId the identifier of its chip
+     * @return the slot of the boat
+     */
+    synchronized int add(String boatId, String chipId) {
+        Objects.requireNonNull(boatId, "boatId must not be null");
+        Objects.requireNonNull(chipId, "chipId must not be null");
+        if (slotOf(boatId) >= 0) {
+            throw new IllegalArgumentException("Boat " + boatId + " is already stored");
+        }
+        int slot = size;
+        Columns c = columns;
+        if (slot == c.boatIds.length) {
+            c = grow(slot * 2);
+        }
+        synchronized (lockFor(slot)) {
+            c.boatIds[slot] = boatId;
+            c.chipIds[slot] = chipId;
+            c.fixTimes[slot] = NO_FIX;
+            c.statuses[slot] = (byte) Status.GREEN.ordinal();
+            link(c, slot, Status.GREEN.ordinal());
+        }
+        // Publishes the columns of the slot before the indexes point at it
+        size = slot + 1;
+        if (size * 2 > index.length) {
+            index = rehash(index.length * 2, c.boatIds, size);
+        } else {
+            insert(index, slot, c.boatIds);
+        }
+        if (slotOfChip(chipId) < 0) {
+            chipCount++;
+            if (chipCount * 2 > chipIndex.length) {
+                chipIndex = rehash(chipIndex.length * 2, c.chipIds, size);
+            } else {
+                insert(chipIndex, slot, c.chipIds);
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the lock guarding writes to a slot.
+     */
+    Object lockFor(int slot) {
+        return locks[slot & stripeMask];
+    }
+
+    /**
+     * Runs {@code action} while holding the store's monitor and every
+     * stripe lock, so that no boat is registered or written meanwhile.
+     */
+    void quiesce(Runnable action) {
+        synchronized (this) {
+            quiesce(0, action);
+        }
+    }
+
+    private void quiesce(int stripe, Runnable action) {
+        if (stripe == locks.length) {
+            action.run();
+            return;
+        }
+        synchronized (locks[stripe]) {
+            quiesce(stripe + 1, action);
+        }
+    }
+
+    /**
+     * Records a new fix for the boat in the given slot.  The caller holds
+     * {@link #lockFor(int)} of the slot, unless the store is used by a
+     * single thread.
+     *
+     * @param slot          the slot of the boat
+     * @param latitude      the latitude of the fix
+     * @param longitude     the longitude of the fix
+     * @param epochMillis   the time of the fix in milliseconds since the
+     *                      epoch, or {@link #NO_FIX}
+     * @param offsetSeconds the offset from UTC of the local time of the fix
+     */
+    void setPosition(int slot, double latitude, double longitude, long epochMillis, int offsetSeconds) {
+        Columns c = columns;
+        checkSlot(slot);
+        DOUBLES.setRelease(c.latitudes, slot, latitude);
+        DOUBLES.setRelease(c.longitudes, slot, longitude);
+        INTS.setRelease(c.offsets, slot, offsetSeconds);
+        LONGS.setRelease(c.fixTimes, slot, epochMillis);
+    }
+
+    /**
+     * Sets the status of the boat in the given slot and moves it to the
+     * matching status list.  A boat without a status is in no list.  The
+     * caller holds {@link #lockFor(int)} of
+     * the slot, unless the store is used by a single thread.
+     *
+     * @param slot   the slot of the boat
+     * @param status the new status, or {@code null}
+     */
+    void setStatus(int slot, Status status) {
+        Columns c = columns;
+        checkSlot(slot);
+        int old = c.statuses[slot];
+        int ordinal = status == null ? -1 : status.ordinal();
+        if (old != ordinal) {
+            unlink(c, slot, old);
+            link(c, slot, ordinal);
+            BYTES.setRelease(c.statuses, slot, (byte) ordinal);
+        }
+    }
+
+    /**
+     * Sets the open violation of the boat in the given slot.  The caller
+     * holds {@link #lockFor(int)} of the slot, unless the store is used
+     * by a single thread.
+     *
+     * @param slot      the slot of the boat
+     * @param violation the violation, or {@code null} for none
+     */
+    void setOpenViolation(int slot, AlertType violation) {
+        Columns c = columns;
+        checkSlot(slot);
+        BYTES.setRelease(c.violations, slot, violation == null ? (byte) 0 : (byte) (violation.ordinal() + 1));
+    }
+
+    /**
+     * Records a new fix and status for the boat in the given slot, with
+     * the fix in {@link BoatDetectionSystem#LOCAL_OFFSET}.  Meant for
+     * stores used by a single thread.
+     *
+     * @param slot        the slot of the boat
+     * @param latitude    the latitude of the fix
+     * @param longitude   the longitude of the fix
+     * @param epochMillis the time of the fix in milliseconds since the
+     *                    epoch, or {@link #NO_FIX}
+     * @param status      the status of the boat
+     */
+    void update(int slot, double latitude, double longitude, long epochMillis, Status status) {
+        Objects.requireNonNull(status, "status must not be null");
+        setPosition(slot, latitude, longitude, epochMillis, BoatDetectionSystem.LOCAL_OFFSET.getTotalSeconds());
+        setStatus(slot, status);
+    }
+
+    /**
+     * Returns the slot of a boat.
+     *
+     * @param boatId the system identifier of the boat
+     * @return the slot, or {@code -1} if the boat is not stored
+     */
+    public int slotOf(String boatId) {
+        return boatId == null ? -1 : lookup(index, boatId, false);
+    }
+
+    /**
+     * Returns the slot of the first boat stored with the given chip.
+     *
+     * @param chipId the identifier of the chip
+     * @return the slot, or {@code -1} if no boat carries the chip
+     */
+    public int slotOfChip(String chipId) {
+        return chipId == null ? -1 : lookup(chipIndex, chipId, true);
+    }
+
+    /**
+     * Returns the number of stored boats.  Valid slots are
+     * {@code 0 .. size() - 1}.
+     */
+    public int size() {
+        return size;
+    }
+
+    public String getBoatId(int slot) {
+        checkSlot(slot);
+        return columns.boatIds[slot];
+    }
+
+    public String getChipId(int slot) {
+        checkSlot(slot);
+        return columns.chipIds[slot];
+    }
+
+    public double getLatitude(int slot) {
+        checkSlot(slot);
+        return (double) DOUBLES.getAcquire(columns.latitudes, slot);
+    }
+
+    public double getLongitude(int slot) {
+        checkSlot(slot);
+        return (double) DOUBLES.getAcquire(columns.longitudes, slot);
+    }
+
+    /**
+     * Returns the time of the last fix in milliseconds since the epoch,
+     * or {@link #NO_FIX}.
+     */
+    public long getFixTime(int slot) {
+        checkSlot(slot);
+        return (long) LONGS.getAcquire(columns.fixTimes, slot);
+    }
+
+    /**
+     * Returns the offset from UTC, in seconds, of the local time of the
+     * last fix.
+     */
+    public int getOffsetSeconds(int slot) {
+        checkSlot(slot);
+        return (int) INTS.getAcquire(columns.offsets, slot);
+    }
+
+    /**
+     * Returns the status of a boat, or {@code null} if it was cleared.
+     */
+    public Status getStatus(int slot) {
+        checkSlot(slot);
+        byte status = (byte) BYTES.getAcquire(columns.statuses, slot);
+        return status < 0 ? null : STATUSES[status];
+    }
+
+    /**
+     * Returns the open violation of a boat, or {@code null} if none.
+     */
+    public AlertType getOpenViolation(int slot) {
+        checkSlot(slot);
+        byte violation = (byte) BYTES.getAcquire(columns.violations, slot);
+        return violation == 0 ? null : ALERT_TYPES[violation - 1];
+    }
+
+    /**
+     * Counts the boats with the given status without scanning the store.
+     *
+     * @param status the status to count
+     * @return the number of matching boats
+     */
+    public int countByStatus(Status status) {
+        int count = 0;
+        for (int i = status.ordinal(); i < counts.length; i += STATUSES.length) {
+            count += (int) INTS.getAcquire(counts, i);
+        }
+        return count;
+    }
+
+    /**
+     * Calls {@code action} with the slot of every boat that has the
+     * given status, in slot order.
+     *
+     * @param status the status to filter by
+     * @param action the action receiving matching slots
+     */
+    public void forEachWithStatus(Status status, IntConsumer action) {
+        for (int slot : slotsWithStatus(status)) {
+            action.accept(slot);
+        }
+    }
+
+    /**
+     * Returns the slots of all boats with the given status, in slot
+     * order.  Each stripe is listed under its lock, so the cost depends
+     * on the number of matches rather than on the size of the fleet.
+     *
+     * @param status the status to filter by
+     * @return the matching slots
+     */
+    public int[] slotsWithStatus(Status status) {
+        int[] result = new int[16];
+        int n = 0;
+        for (int stripe = 0; stripe < locks.length; stripe++) {
+            synchronized (locks[stripe]) {
+                int head = stripe * STATUSES.length + status.ordinal();
+                int[] next = columns.next;
+                if (n + counts[head] > result.length) {
+                    result = Arrays.copyOf(result, Math.max(result.length * 2, n + counts[head]));
+                }
+                for (int slot = heads[head]; slot >= 0; slot = next[slot]) {
+                    result[n++] = slot;
+                }
+            }
+        }
+        result = Arrays.copyOf(result, n);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Copies the store.  The caller makes sure no boat is registered or
+     * written meanwhile, for example through {@link #quiesce(Runnable)},
+     * if an exact copy is needed.  The copy is meant for a single thread.
+     *
+     * @return a store holding the same boats in the same slots
+     */
+    FleetStore copy() {
+        int n = size;
+        FleetStore copy = new FleetStore(new Columns(columns, Math.max(1, n)), n, true);
+        copy.chipCount = chipCount;
+        return copy;
+    }
+
+    /**
+     * Copies the columns of the store only, for reading the boats slot by
+     * slot.  The copy answers {@link #size()} and the per-slot getters,
+     * but finds no boat by identifier or status.  Unlike {@link #copy()}
+     * it rebuilds no index, so it costs no more than the array copies.
+     * The same care as for {@link #copy()} applies.
+     *
+     * @return a store holding the same boats in the same slots, without
+     *         indexes
+     */
+    FleetStore copyColumns() {
+        int n = size;
+        return new FleetStore(new Columns(columns, Math.max(1, n)), n, false);
+    }
+
+    /**
+     * Replaces the columns with larger copies while holding every stripe
+     * lock.  The caller holds the store's monitor.
+     */
+    private Columns grow(int capacity) {
+        Columns[] grown = new Columns[1];
+        quiesce(0, () -> {
+            grown[0] = new Columns(columns, capacity);
+            columns = grown[0];
+        });
+        return grown[0];
+    }
+
+    /**
+     * Adds a slot to the front of the list of its stripe and status.  The
+     * caller holds the stripe lock of the slot.
+     */
+    private void link(Columns c, int slot, int status) {
+        if (status < 0) {
+            return;
+        }
+        int head = (slot & stripeMask) * STATUSES.length + status;
+        int first = heads[head];
+        c.next[slot] = first;
+        c.previous[slot] = -1;
+        if (first >= 0) {
+            c.previous[first] = slot;
+        }
+        heads[head] = slot;
+        INTS.setRelease(counts, head, counts[head] + 1);
+    }
+
+    private void unlink(Columns c, int slot, int status) {
+        if (status < 0) {
+            return;
+        }
+        int head = (slot & stripeMask) * STATUSES.length + status;
+        int next = c.next[slot];
+        int previous = c.previous[slot];
+        if (previous >= 0) {
+            c.next[previous] = next;
+        } else {
+            heads[head] = next;
+        }
+        if (next >= 0) {
+            c.previous[next] = previous;
+        }
+        INTS.setRelease(counts, head, counts[head] - 1);
+    }
+
+    /**
+     * Finds {@code key} in one of the indexes.  Each entry is read before
+     * the columns it refers to, so the columns are at least as recent as
+     * the slot.
+     */
+    private int lookup(int[] table, String key, boolean byChip) {
+        int mask = table.length - 1;
+        int h = key.hashCode();
+        for (int entry = (h ^ (h >>> 16)) & mask; ; entry = (entry + 1) & mask) {
+            int value = (int) INTS.getAcquire(table, entry);
+            if (value == 0) {
+                return -1;
+            }
+            Columns c = columns;
+            String stored = byChip ? c.chipIds[value - 1] : c.boatIds[value - 1];
+            if (stored.equals(key)) {
+                return value - 1;
+            }
+        }
+    }
+
+    private static void insert(int[] table, int slot, String[] keys) {
+        int mask = table.length - 1;
+        int h = keys[slot].hashCode();
+        int entry = (h ^ (h >>> 16)) & mask;
+        while (table[entry] != 0) {
+            entry = (entry + 1) & mask;
+        }
+        INTS.setRelease(table, entry, slot + 1);
+    }
+
+    /**
+     * Builds an index of the first {@code n} keys.  Only the first slot
+     * of a repeated key is indexed.
+     */
+    private static int[] rehash(int length, String[] keys, int n) {
+        int[] table = new int[length];
+        int mask = length - 1;
+        for (int slot = 0; slot < n; slot++) {
+            int h = keys[slot].hashCode();
+            int entry = (h ^ (h >>> 16)) & mask;
+            while (table[entry] != 0 && !keys[table[entry] - 1].equals(keys[slot])) {
+                entry = (entry + 1) & mask;
+            }
+            if (table[entry] == 0) {
+                table[entry] = slot + 1;
+            }
+        }
+        return table;
+    }
+
+    private static int tableLength(int capacity) {
+        return Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " out of range 0.." + (size - 1));
+        }
+    }
+}
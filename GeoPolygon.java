@@ -0,0 +1,233 @@
+package com.boattracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A polygonal geofence made of one or more closed rings.
+ *
+ * <p>Rings are combined with the even-odd rule, so a single polygon
+ * describes an outer boundary with holes (e.g. an exclusion zone around
+ * an island that boats may approach) as well as several disjoint parts
+ * (a multi-polygon).  Each ring is given as a flat array of vertex
+ * coordinates {@code {lat0, lon0, lat1, lon1, ...}}; the closing edge
+ * back to the first vertex is implicit.</p>
+ *
+ * <p>All work that does not depend on the queried point is done once in
+ * the constructor.  Edges are stored in primitive arrays together with
+ * their slope, and the bounding box is cut into horizontal bands, each
+ * listing the edges that span it.  A containment test is then a
+ * bounding box check followed by a ray cast over the edges of a single
+ * band, without any allocation.  Points lying exactly on an edge may be
+ * reported either way.</p>
+ */
+public class GeoPolygon {
+
+    /**
+     * Upper bound on the number of latitude bands.
+     */
+    private static final int MAX_BANDS = 1024;
+
+    private final double[][] rings;
+
+    private final double minLat;
+    private final double maxLat;
+    private final double minLon;
+    private final double maxLon;
+
+    /**
+     * Lower latitude, longitude at that latitude and dLon/dLat of every
+     * non-horizontal edge, indexed by edge number.  The upper latitude
+     * is kept so the half-open crossing rule can be applied exactly.
+     */
+    private final double[] edgeLat0;
+    private final double[] edgeLat1;
+    private final double[] edgeLon0;
+    private final double[] edgeSlope;
+
+    /**
+     * Band table in compressed row form: the edges spanning band
+     * {@code b} are {@code bandEdges[bandStart[b] .. bandStart[b + 1])}.
+     */
+    private final int bands;
+    private final double bandHeight;
+    private final int[] bandStart;
+    private final int[] bandEdges;
+
+    /**
+     * Creates a polygon from the given rings.
+     *
+     * @param rings one or more rings, each a flat array of at least three
+     *              {@code lat, lon} vertex pairs
+     * @return the preprocessed polygon
+     */
+    public static GeoPolygon of(double[]... rings) {
+        return new GeoPolygon(rings);
+    }
+
+    private GeoPolygon(double[][] rings) {
+        Objects.requireNonNull(rings, "rings must not be null");
+        if (rings.length == 0) {
+            throw new IllegalArgumentException("Polygon needs at least one ring");
+        }
+        this.rings = new double[rings.length][];
+        double south = Double.POSITIVE_INFINITY;
+        double north = Double.NEGATIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY;
+        double east = Double.NEGATIVE_INFINITY;
+        int edgeCount = 0;
+        for (int r = 0; r < rings.length; r++) {
+            double[] ring = Objects.requireNonNull(rings[r], "ring must not be null");
+            if (ring.length < 6 || ring.length % 2 != 0) {
+                throw new IllegalArgumentException("Ring " + r + " needs at least three lat/lon pairs");
+            }
+            this.rings[r] = ring.clone();
+            for (int i = 0; i < ring.length; i += 2) {
+                south = Math.min(south, ring[i]);
+                north = Math.max(north, ring[i]);
+                west = Math.min(west, ring[i + 1]);
+                east = Math.max(east, ring[i + 1]);
+            }
+            edgeCount += ring.length / 2;
+        }
+        this.minLat = south;
+        this.maxLat = north;
+        this.minLon = west;
+        this.maxLon = east;
+
+        // Flatten non-horizontal edges, oriented south to north
+        double[] lat0 = new double[edgeCount];
+        double[] lat1 = new double[edgeCount];
+        double[] lon0 = new double[edgeCount];
+        double[] slope = new double[edgeCount];
+        int edges = 0;
+        for (double[] ring : this.rings) {
+            int n = ring.length / 2;
+            for (int i = 0; i < n; i++) {
+                int j = (i + 1) % n;
+                double aLat = ring[2 * i];
+                double aLon = ring[2 * i + 1];
+                double bLat = ring[2 * j];
+                double bLon = ring[2 * j + 1];
+                if (aLat == bLat) {
+                    continue;
+                }
+                if (aLat > bLat) {
+                    double t = aLat; aLat = bLat; bLat = t;
+                    t = aLon; aLon = bLon; bLon = t;
+                }
+                lat0[edges] = aLat;
+                lat1[edges] = bLat;
+                lon0[edges] = aLon;
+                slope[edges] = (bLon - aLon) / (bLat - aLat);
+                edges++;
+            }
+        }
+        this.edgeLat0 = Arrays.copyOf(lat0, edges);
+        this.edgeLat1 = Arrays.copyOf(lat1, edges);
+        this.edgeLon0 = Arrays.copyOf(lon0, edges);
+        this.edgeSlope = Arrays.copyOf(slope, edges);
+
+        // Bucket edges into latitude bands
+        this.bands = Math.max(1, Math.min(MAX_BANDS, edges / 4));
+        this.bandHeight = (maxLat - minLat) / bands;
+        int[] counts = new int[bands + 1];
+        for (int e = 0; e < edges; e++) {
+            for (int b = band(edgeLat0[e]), last = band(edgeLat1[e]); b <= last; b++) {
+                counts[b + 1]++;
+            }
+        }
+        for (int b = 0; b < bands; b++) {
+            counts[b + 1] += counts[b];
+        }
+        this.bandStart = counts.clone();
+        this.bandEdges = new int[counts[bands]];
+        for (int e = 0; e < edges; e++) {
+            for (int b = band(edgeLat0[e]), last = band(edgeLat1[e]); b <= last; b++) {
+                bandEdges[counts[b]++] = e;
+            }
+        }
+    }
+
+    /**
+     * Tests whether the given point lies inside the polygon.
+     *
+     * @param lat the latitude of the point
+     * @param lon the longitude of the point
+     * @return {@code true} if the point is inside an odd number of rings
+     */
+    public boolean contains(double lat, double lon) {
+        if (lat < minLat || lat > maxLat || lon < minLon || lon > maxLon) {
+            return false;
+        }
+        int b = band(lat);
+        boolean inside = false;
+        for (int k = bandStart[b], end = bandStart[b + 1]; k < end; k++) {
+            int e = bandEdges[k];
+            if (lat >= edgeLat0[e] && lat < edgeLat1[e]
+                    && lon < edgeLon0[e] + (lat - edgeLat0[e]) * edgeSlope[e]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private int band(double lat) {
+        if (bandHeight <= 0) {
+            return 0;
+        }
+        int b = (int) ((lat - minLat) / bandHeight);
+        return Math.min(Math.max(b, 0), bands - 1);
+    }
+
+    public double getMinLat() {
+        return minLat;
+    }
+
+    public double getMaxLat() {
+        return maxLat;
+    }
+
+    public double getMinLon() {
+        return minLon;
+    }
+
+    public double getMaxLon() {
+        return maxLon;
+    }
+
+    /**
+     * Returns copies of the rings this polygon was built from.
+     *
+     * @return a list of flat {@code lat, lon} vertex arrays
+     */
+    public List<double[]> getRings() {
+        List<double[]> result = new ArrayList<>(rings.length);
+        for (double[] ring : rings) {
+            result.add(ring.clone());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the total number of vertices over all rings.
+     */
+    public int getVertexCount() {
+        int count = 0;
+        for (double[] ring : rings) {
+            count += ring.length / 2;
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "GeoPolygon{" +
+                "rings=" + rings.length +
+                ", vertices=" + getVertexCount() +
+                ", bounds=[" + minLat + ", " + maxLat + ", " + minLon + ", " + maxLon + "]" +
+                '}';
+    }
+}
@@ -0,0 +1,147 @@
+package com.boattracking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Summary of a bulk load performed by {@link BoatFileReader}.
+ *
+ * <p>Quiet loads do not print anything per entry.  Instead they count
+ * loaded entries, failed entries and skipped lines here, keep a sample
+ * of the failure messages, and time the whole load.  While a load is
+ * running the report may be handed to a progress callback, in which
+ * case it reflects the counts reached so far.</p>
+ */
+public class LoadReport {
+
+    /**
+     * Maximum number of failure messages kept for inspection.  Further
+     * failures are still counted.
+     */
+    static final int MAX_RECORDED_FAILURES = 100;
+
+    private final String filename;
+    private final long startNanos;
+    private long endNanos = -1;
+    private long entriesRead;
+    private long loadedCount;
+    private long failedCount;
+    private long invalidLineCount;
+    private final List<String> failures = new ArrayList<>();
+
+    /**
+     * Starts a report for a load of the given file.  The load is timed
+     * from this point.
+     *
+     * @param filename the file being loaded
+     */
+    LoadReport(String filename) {
+        this.filename = filename;
+        this.startNanos = System.nanoTime();
+    }
+
+    synchronized void recordLoaded() {
+        entriesRead++;
+        loadedCount++;
+    }
+
+    /**
+     * Records a number of entries applied together, such as a partition
+     * of a parallel load.
+     */
+    synchronized void recordLoaded(long count) {
+        entriesRead += count;
+        loadedCount += count;
+    }
+
+    synchronized void recordFailed(String boatId, String message) {
+        entriesRead++;
+        failedCount++;
+        addFailure("boat " + boatId + ": " + message);
+    }
+
+    synchronized void recordInvalidLine(String location, String message) {
+        invalidLineCount++;
+        addFailure(location + ": " + message);
+    }
+
+    synchronized void recordReadError(String message) {
+        addFailure("read error: " + message);
+    }
+
+    synchronized void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    private void addFailure(String failure) {
+        if (failures.size() < MAX_RECORDED_FAILURES) {
+            failures.add(failure);
+        }
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * Returns the number of parsed entries that were applied or failed.
+     */
+    public synchronized long getEntriesRead() {
+        return entriesRead;
+    }
+
+    public synchronized long getLoadedCount() {
+        return loadedCount;
+    }
+
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns the number of non-comment lines that could not be parsed.
+     */
+    public synchronized long getInvalidLineCount() {
+        return invalidLineCount;
+    }
+
+    /**
+     * Returns up to {@value #MAX_RECORDED_FAILURES} failure messages in
+     * the order they occurred.
+     */
+    public synchronized List<String> getFailures() {
+        return Collections.unmodifiableList(new ArrayList<>(failures));
+    }
+
+    /**
+     * Returns whether the load has completed.
+     */
+    public synchronized boolean isFinished() {
+        return endNanos >= 0;
+    }
+
+    /**
+     * Returns the time spent loading, up to now if the load is still
+     * running.
+     */
+    public synchronized long getElapsedMillis() {
+        long end = endNanos >= 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Returns the average number of entries applied per second.
+     */
+    public synchronized double getEntriesPerSecond() {
+        long end = endNanos >= 0 ? endNanos : System.nanoTime();
+        long elapsed = Math.max(1, end - startNanos);
+        return entriesRead * 1e9 / elapsed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("LoadReport{file='%s', loaded=%d, failed=%d, invalidLines=%d, elapsed=%d ms, rate=%.0f/s}",
+                filename, loadedCount, failedCount, invalidLineCount, getElapsedMillis(), getEntriesPerSecond());
+    }
+}
@@ -1,5 +1,9 @@
 package com.boattracking;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Scanner;
@@ -15,6 +19,25 @@ public class Main {
     
     private static final String DEFAULT_INPUT_FILE = "boats_input.csv";
     
+    /**
+     * Directory holding the write-ahead log and its snapshots.
+     */
+    private static final Path DATA_DIR = Paths.get("data");
+    private static final long WAL_SYNC_MILLIS = 1_000;
+    private static final long WAL_CHECKPOINT_MILLIS = 10 * 60_000;
+    
+    /**
+     * Number of entries between progress lines while loading the input
+     * file.
+     */
+    private static final long LOAD_PROGRESS_INTERVAL = 100_000;
+    
+    /**
+     * Largest number of boats or alerts listed on the console; larger
+     * fleets are summarised instead.
+     */
+    private static final int CONSOLE_LIST_LIMIT = 100;
+    
     public static void main(String[] args) {
         BoatDetectionSystem system = new BoatDetectionSystem();
         
@@ -24,7 +47,8 @@ public class Main {
         System.out.println("╚═══════════════════════════════════════════════════════════╝");
         System.out.println();
         System.out.println("Choose input method:");
-        System.out.println("  1. Load boats from input file (" + DEFAULT_INPUT_FILE + ")");
+        System.out.println("  1. Resume the saved state in " + DATA_DIR + "/, or load boats from input file ("
+                + DEFAULT_INPUT_FILE + ")");
         System.out.println("  2. Run manual test scenarios (Sprint 1-3)");
         System.out.print("\nEnter your choice (1 or 2): ");
         
@@ -33,18 +57,44 @@ public class Main {
         System.out.println();
         
         if (choice.equals("1")) {
-            // Load from file
-            int loadedCount = BoatFileReader.loadBoatsIntoSystem(system, DEFAULT_INPUT_FILE);
+            // Resume the journaled state if there is one, otherwise read the input file
+            boolean saved = Files.exists(DATA_DIR.resolve(WriteAheadLog.SNAPSHOT_FILE));
+            BoatDetectionSystem recovered = saved ? recoverState() : null;
+            long loadedCount;
+            if (recovered != null) {
+                system = recovered;
+                loadedCount = system.getBoatCount();
+            } else {
+                loadedCount = loadInputFile(system);
+            }
             
             if (loadedCount > 0) {
+                // Journal every change from now on, unless that would
+                // overwrite saved state that could not be read
+                if (!saved || recovered != null) {
+                    attachLog(system);
+                } else {
+                    System.err.println("Changes will not be saved until " + DATA_DIR + " is repaired or removed.");
+                }
+                
+
                 System.out.println("\n" + "=".repeat(60));
-                system.displayAllBoats();
+                int boatCount = system.getBoatCount();
+                if (boatCount <= CONSOLE_LIST_LIMIT) {
+                    system.displayAllBoats();
+                } else {
+                    System.out.printf("Tracking %d boats%n", boatCount);
+                }
                 
-                // Show any alerts
+                // Show the most recent alerts
                 List<Alert> alerts = system.getAlertLog();
                 if (!alerts.isEmpty()) {
                     System.out.println("\n⚠️  Alerts detected:");
-                    for (Alert alert : alerts) {
+                    int first = Math.max(0, alerts.size() - CONSOLE_LIST_LIMIT);
+                    if (first > 0) {
+                        System.out.printf("  ... %d earlier alerts not shown%n", first);
+                    }
+                    for (Alert alert : alerts.subList(first, alerts.size())) {
                         System.out.println("  " + alert);
                     }
                 }
@@ -65,6 +115,71 @@ public class Main {
         }
     }
     
+    /**
+     * Loads {@link #DEFAULT_INPUT_FILE} without printing each entry.  A
+     * progress line is printed every {@link #LOAD_PROGRESS_INTERVAL}
+     * entries, followed by a summary and a sample of the failures.
+     *
+     * @return the number of entries loaded
+     */
+    private static long loadInputFile(BoatDetectionSystem system) {
+        System.out.println("=== Loading boats from file: " + DEFAULT_INPUT_FILE + " ===");
+        LoadReport report = BoatFileReader.loadBoatsQuietly(system, DEFAULT_INPUT_FILE, LOAD_PROGRESS_INTERVAL,
+                progress -> System.out.printf("  %,d entries read (%,.0f/s)%n",
+                        progress.getEntriesRead(), progress.getEntriesPerSecond()));
+        for (String failure : report.getFailures()) {
+            System.err.println("✗ " + failure);
+        }
+        long unlisted = report.getFailedCount() + report.getInvalidLineCount() - report.getFailures().size();
+        if (unlisted > 0) {
+            System.err.printf("✗ ... %d more problems not listed%n", unlisted);
+        }
+        System.out.printf("%nSuccessfully loaded %d out of %d entries from file (%d boats) in %d ms.%n",
+                report.getLoadedCount(), report.getEntriesRead(), system.getBoatCount(), report.getElapsedMillis());
+        return report.getLoadedCount();
+    }
+
+    /**
+     * Recovers the state journaled in {@link #DATA_DIR} by a previous run.
+     *
+     * @return the recovered system, or null if it cannot be read
+     */
+    private static BoatDetectionSystem recoverState() {
+        try {
+            long start = System.nanoTime();
+            BoatDetectionSystem system = WriteAheadLog.recover(DATA_DIR);
+            System.out.printf("Recovered %d boats and %d alerts from %s in %d ms%n",
+                    system.getBoatCount(), system.getAlertLog().size(), DATA_DIR,
+                    (System.nanoTime() - start) / 1_000_000);
+            return system;
+        } catch (IOException e) {
+            System.err.println("Could not recover the saved state in " + DATA_DIR + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Attaches a write-ahead log in {@link #DATA_DIR} to the system, so the
+     * next run resumes from its current state.  The log is closed when
+     * the JVM exits.
+     */
+    private static void attachLog(BoatDetectionSystem system) {
+        WriteAheadLog wal;
+        try {
+            wal = WriteAheadLog.open(DATA_DIR, system, WAL_SYNC_MILLIS, WAL_CHECKPOINT_MILLIS);
+        } catch (IOException e) {
+            System.err.println("Changes will not be saved: " + e.getMessage());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                wal.close();
+            } catch (IOException e) {
+                System.err.println("Could not save the last changes: " + e.getMessage());
+            }
+        }, "write-ahead-log-close"));
+    }
+
     /**
      * Runs the original manual test scenarios (Sprint 1-3)
      */
@@ -0,0 +1,127 @@
+package com.boattracking;
+
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Builds map frames on a background thread.
+ *
+ * <p>Walking the fleet, diffing it against what the page already shows
+ * and encoding the result are done by a daemon worker thread on a fixed
+ * delay.  Each finished frame is handed to a {@link FrameSink}, which is
+ * expected to pass it on to the UI thread; the UI thread then only has
+ * to push the frame into the page.</p>
+ *
+ * <p>Frames are deltas, so none may be lost.  After handing a frame over
+ * the producer builds nothing more until {@link #frameApplied()} is
+ * called; boats that change in the meantime are simply picked up by the
+ * next frame.  A slow UI therefore receives fewer, larger frames rather
+ * than a growing backlog.  A frame that cannot be encoded or handed
+ * over is dropped and its boats are sent again with the next one.</p>
+ *
+ * <p>A producer serves one page.  When the page is reloaded, stop the
+ * producer and start a new one so that the whole fleet is sent again.</p>
+ */
+public class MapFrameProducer {
+
+    /**
+     * Receives finished frames.  Called on the producer's worker thread.
+     */
+    public interface FrameSink {
+        /**
+         * Called with the next frame to show.  If this throws, the frame
+         * is taken as not delivered and its boats go into the next one.
+         *
+         * @param producer the producer that built the frame
+         * @param frame    the encoded frame, see {@link MarkerFrameEncoder}
+         */
+        void frameReady(MapFrameProducer producer, String frame);
+    }
+
+    private final BoatDetectionSystem system;
+    private final long periodMillis;
+    private final FrameSink sink;
+    private final MarkerDeltaTracker tracker = new MarkerDeltaTracker();
+    private final MarkerFrameEncoder encoder = new MarkerFrameEncoder();
+    private final AtomicBoolean frameInFlight = new AtomicBoolean();
+    private ScheduledExecutorService worker;
+
+    /**
+     * Creates a producer.  Nothing is built until {@link #start()}.
+     *
+     * @param system       the system whose boats are displayed
+     * @param periodMillis delay between two frames, in milliseconds
+     * @param sink         receiver of finished frames
+     */
+    public MapFrameProducer(BoatDetectionSystem system, long periodMillis, FrameSink sink) {
+        this.system = Objects.requireNonNull(system, "system must not be null");
+        this.sink = Objects.requireNonNull(sink, "sink must not be null");
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("periodMillis must be positive");
+        }
+        this.periodMillis = periodMillis;
+    }
+
+    /**
+     * Starts the worker thread.  The first frame, holding the whole
+     * fleet, is built immediately.
+     */
+    public synchronized void start() {
+        if (worker != null) {
+            throw new IllegalStateException("Producer already started");
+        }
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "map-frame-producer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::produce, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the worker thread.  A frame already handed to the sink may
+     * still be delivered.
+     */
+    public synchronized void stop() {
+        if (worker != null) {
+            worker.shutdownNow();
+            worker = null;
+        }
+    }
+
+    /**
+     * Signals that the last frame has been applied to the page, allowing
+     * the next one to be built.
+     */
+    public void frameApplied() {
+        frameInFlight.set(false);
+    }
+
+    private void produce() {
+        if (frameInFlight.get()) {
+            return;
+        }
+        MarkerDeltaTracker.Delta delta = null;
+        try {
+            delta = tracker.nextFrame(system);
+            if (delta.isEmpty()) {
+                return;
+            }
+            String frame = encoder.encode(delta, tracker.getState());
+            frameInFlight.set(true);
+            sink.frameReady(this, frame);
+        } catch (RuntimeException e) {
+            // The frame never reached the page: send its boats again with
+            // the next one.  Keep producing; an exception would cancel the
+            // schedule.
+            if (delta != null) {
+                tracker.resend(delta);
+            }
+            frameInFlight.set(false);
+            System.err.println("Failed to build map frame: " + e);
+        }
+    }
+}
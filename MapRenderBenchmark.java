@@ -0,0 +1,189 @@
+package com.boattracking;
+
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.web.WebEngine;
+import javafx.stage.Stage;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Measures how long the map page takes to draw 10,000, 100,000 and
+ * 500,000 boats in canvas mode.  This is the WebView side of the
+ * {@code markers} case of {@link Benchmarks}; it needs JavaFX and a
+ * display, which is why it is kept apart.
+ *
+ * <p>For each size a {@link MapView} is opened on a synthetic fleet built
+ * from the same seed as {@code markers}.  The harness waits until the
+ * page holds every boat, then forces {@code draws} redraws (default 10)
+ * at the opening zoom, where boats are clustered, and as many at zoom
+ * 12, where every boat is projected and drawn on its own.  The times
+ * are the {@code window.fleetFrameStats} figures reported by the page
+ * itself; the table shows the median and the slowest redraw, and how
+ * long the first frame took from opening the page until every boat was
+ * shown.</p>
+ *
+ * <p>Run with {@code java -Xmx4g -cp <classes> com.boattracking.MapRenderBenchmark [draws=N]}.
+ * Like {@link MapView} the page needs Leaflet, from the offline bundle in
+ * {@value MapView#MAP_DIR} or from the public CDN.</p>
+ */
+public class MapRenderBenchmark extends Application {
+
+    private static final long SEED = 42;
+    private static final int[] SIZES = {10_000, 100_000, 500_000};
+    private static final int DETAIL_ZOOM = 12;
+    private static final long TIMEOUT_MILLIS = 600_000;
+    private static final String STATS = "window.fleetFrameStats ? fleetFrameStats.boats + ' ' + fleetFrameStats.millis : ''";
+
+    private static int draws = 10;
+
+    public static void main(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("draws=")) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected draws=N");
+            }
+            draws = Integer.parseInt(arg.substring("draws=".length()));
+        }
+        launch(MapRenderBenchmark.class);
+    }
+
+    @Override
+    public void start(Stage stage) {
+        // Closing the map of one size must not end the application
+        Platform.setImplicitExit(false);
+        Thread runner = new Thread(() -> {
+            try {
+                run();
+            } catch (Exception e) {
+                System.err.println("Map render benchmark failed: " + e);
+            } finally {
+                Platform.exit();
+            }
+        }, "map-render-benchmark");
+        runner.setDaemon(true);
+        runner.start();
+    }
+
+    private void run() throws Exception {
+        System.out.printf("Java %s, %d redraws per zoom%n", System.getProperty("java.version"), draws);
+        System.out.println("  boats   first frame ms   clustered ms (max)   zoom " + DETAIL_ZOOM + " ms (max)");
+        for (int boats : SIZES) {
+            BoatDetectionSystem system = syntheticFleet(boats);
+            Stage window = onFx(Stage::new);
+            MapView view = onFx(() -> {
+                MapView.setSystem(system);
+                MapView.setRenderMode(MapView.RenderMode.CANVAS);
+                MapView map = new MapView();
+                map.start(window);
+                return map;
+            });
+            try {
+                long start = System.nanoTime();
+                while (shownBoats(view) < boats) {
+                    Thread.sleep(20);
+                    checkTimeout(start);
+                }
+                double firstFrame = (System.nanoTime() - start) / 1e6;
+
+                double[] clustered = redraws(view);
+                nextDraw(view, "map.setZoom(" + DETAIL_ZOOM + ", {animate: false})");
+                double[] detailed = redraws(view);
+                System.out.printf("%7d %16.0f %12.1f (%5.1f) %12.1f (%5.1f)%n", boats, firstFrame,
+                        clustered[clustered.length / 2], clustered[clustered.length - 1],
+                        detailed[detailed.length / 2], detailed[detailed.length - 1]);
+            } finally {
+                onFx(() -> {
+                    view.stop();
+                    window.close();
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Boats spread over the monitored region, each with one fix.
+     */
+    private static BoatDetectionSystem syntheticFleet(int boats) {
+        Random random = new Random(SEED);
+        long time = BoatDetectionSystem.toEpochMillis(LocalDateTime.of(2025, 12, 7, 8, 0));
+        int offset = BoatDetectionSystem.LOCAL_OFFSET.getTotalSeconds();
+        BoatDetectionSystem system = new BoatDetectionSystem(BoatDetectionSystem.DEFAULT_ALERT_CAPACITY, boats);
+        for (int b = 0; b < boats; b++) {
+            String id = system.addBoat("chip" + b).getId();
+            system.updateBoatLocation(id, 18.5 + random.nextDouble() * 4, 39.5 + random.nextDouble() * 2,
+                    time, offset);
+        }
+        return system;
+    }
+
+    /**
+     * Forces {@link #draws} redraws and returns their times, sorted.
+     */
+    private double[] redraws(MapView view) throws Exception {
+        double[] millis = new double[draws];
+        for (int i = 0; i < draws; i++) {
+            millis[i] = nextDraw(view, "fleetLayer._scheduleDraw()");
+        }
+        Arrays.sort(millis);
+        return millis;
+    }
+
+    /**
+     * Runs a script that leads to a redraw and returns the time the page
+     * reports for that redraw.
+     */
+    private double nextDraw(MapView view, String script) throws Exception {
+        eval(view, "window.fleetFrameStats = null; " + script);
+        long start = System.nanoTime();
+        String stats;
+        while ((stats = eval(view, STATS)).isEmpty()) {
+            Thread.sleep(5);
+            checkTimeout(start);
+        }
+        return Double.parseDouble(stats.substring(stats.indexOf(' ') + 1));
+    }
+
+    private int shownBoats(MapView view) throws Exception {
+        String stats = eval(view, STATS);
+        return stats.isEmpty() ? 0 : Integer.parseInt(stats.substring(0, stats.indexOf(' ')));
+    }
+
+    private static String eval(MapView view, String script) throws Exception {
+        return onFx(() -> {
+            WebEngine engine = view.getWebEngine();
+            return String.valueOf(engine.executeScript(script));
+        });
+    }
+
+    private static void checkTimeout(long startNanos) throws TimeoutException {
+        if (System.nanoTime() - startNanos > TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS)) {
+            throw new TimeoutException("No frame drawn within " + TIMEOUT_MILLIS + " ms");
+        }
+    }
+
+    /**
+     * Runs a task on the FX thread and waits for its result.
+     */
+    private static <T> T onFx(Supplier<T> task) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        try {
+            return result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+}
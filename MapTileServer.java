@@ -0,0 +1,276 @@
+package com.boattracking;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Small HTTP server that lets the map run without any external network.
+ *
+ * <p>The server listens on the loopback interface and serves two trees
+ * below a map directory:</p>
+ * <ul>
+ *   <li>{@code leaflet/} - the Leaflet script, stylesheet and images,
+ *       served under {@code /leaflet/}</li>
+ *   <li>{@code tiles/} - a directory tile cache laid out as
+ *       {@code tiles/{z}/{x}/{y}.png}, served under {@code /tiles/}</li>
+ * </ul>
+ *
+ * <p>Only tiles covering the permitted operating area (plus one tile of
+ * margin) are looked up; requests outside it are answered with 404
+ * without touching the disk.  Tiles that were read are kept in an
+ * in-memory LRU cache bounded by size, so panning around the hot part
+ * of the map is served from memory.</p>
+ */
+public class MapTileServer {
+
+    /**
+     * Default size of the in-memory tile cache.
+     */
+    public static final long DEFAULT_CACHE_BYTES = 64L * 1024 * 1024;
+
+    private static final Pattern TILE_PATH = Pattern.compile("/tiles/(\\d{1,2})/(\\d{1,9})/(\\d{1,9})\\.png");
+
+    private final Path leafletDir;
+    private final Path tileDir;
+    private final TileCache cache;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Creates a server for the given map directory.  The server is not
+     * started.
+     *
+     * @param mapDir     directory containing {@code leaflet/} and
+     *                   {@code tiles/}
+     * @param cacheBytes maximum number of tile bytes kept in memory
+     */
+    public MapTileServer(Path mapDir, long cacheBytes) {
+        this.leafletDir = mapDir.resolve("leaflet").toAbsolutePath().normalize();
+        this.tileDir = mapDir.resolve("tiles").toAbsolutePath().normalize();
+        this.cache = new TileCache(cacheBytes);
+    }
+
+    /**
+     * Starts a server for {@code mapDir} if it contains a Leaflet bundle.
+     *
+     * @param mapDir the map directory
+     * @return the started server, or {@code null} if the directory has no
+     *         {@code leaflet/leaflet.js} or the server could not start
+     */
+    public static MapTileServer startIfPresent(Path mapDir) {
+        if (!Files.isRegularFile(mapDir.resolve("leaflet").resolve("leaflet.js"))) {
+            return null;
+        }
+        MapTileServer tileServer = new MapTileServer(mapDir, DEFAULT_CACHE_BYTES);
+        try {
+            tileServer.start();
+            return tileServer;
+        } catch (IOException e) {
+            System.err.println("Could not start local map server: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Starts listening on an ephemeral loopback port.
+     *
+     * @throws IOException if the server socket cannot be opened
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        HttpServer created = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        created.createContext("/leaflet/", this::serveAsset);
+        created.createContext("/tiles/", this::serveTile);
+        executor = Executors.newFixedThreadPool(4, r -> {
+            Thread thread = new Thread(r, "map-tile-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        created.setExecutor(executor);
+        created.start();
+        server = created;
+    }
+
+    /**
+     * Stops the server.  Calling this on a stopped server has no effect.
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * Returns the base URL of the running server, without a trailing
+     * slash, for example {@code http://127.0.0.1:51234}.
+     */
+    public synchronized String getBaseUrl() {
+        if (server == null) {
+            throw new IllegalStateException("Server not started");
+        }
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort();
+    }
+
+    /**
+     * Returns the URL template to hand to Leaflet's {@code L.tileLayer}.
+     */
+    public String getTileUrlTemplate() {
+        return getBaseUrl() + "/tiles/{z}/{x}/{y}.png";
+    }
+
+    /**
+     * Returns the number of tile requests answered from memory.
+     */
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+    /**
+     * Returns whether the tile {@code z/x/y} overlaps the permitted
+     * operating area, allowing one tile of margin on every side.
+     */
+    static boolean coversRegion(int z, int x, int y) {
+        int minX = tileX(BoatDetectionSystem.MIN_LON, z) - 1;
+        int maxX = tileX(BoatDetectionSystem.MAX_LON, z) + 1;
+        int minY = tileY(BoatDetectionSystem.MAX_LAT, z) - 1;
+        int maxY = tileY(BoatDetectionSystem.MIN_LAT, z) + 1;
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+
+    static int tileX(double lon, int z) {
+        return (int) Math.floor((lon + 180) / 360 * (1 << z));
+    }
+
+    static int tileY(double lat, int z) {
+        double rad = Math.toRadians(lat);
+        return (int) Math.floor((1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2 * (1 << z));
+    }
+
+    private void serveTile(HttpExchange exchange) throws IOException {
+        Matcher m = TILE_PATH.matcher(exchange.getRequestURI().getPath());
+        if (!m.matches()) {
+            send(exchange, 404, null, null);
+            return;
+        }
+        int z = Integer.parseInt(m.group(1));
+        int x = Integer.parseInt(m.group(2));
+        int y = Integer.parseInt(m.group(3));
+        if (z > 22 || !coversRegion(z, x, y)) {
+            send(exchange, 404, null, null);
+            return;
+        }
+        String key = z + "/" + x + "/" + y;
+        byte[] tile = cache.get(key);
+        if (tile == null) {
+            tile = readFile(tileDir.resolve(String.valueOf(z)).resolve(String.valueOf(x)).resolve(y + ".png"));
+            if (tile == null) {
+                send(exchange, 404, null, null);
+                return;
+            }
+            cache.put(key, tile);
+        }
+        send(exchange, 200, "image/png", tile);
+    }
+
+    private void serveAsset(HttpExchange exchange) throws IOException {
+        String relative = exchange.getRequestURI().getPath().substring("/leaflet/".length());
+        Path file = leafletDir.resolve(relative).normalize();
+        byte[] content = file.startsWith(leafletDir) ? readFile(file) : null;
+        if (content == null) {
+            send(exchange, 404, null, null);
+        } else {
+            send(exchange, 200, contentType(file.getFileName().toString()), content);
+        }
+    }
+
+    private static byte[] readFile(Path file) throws IOException {
+        try {
+            return Files.isRegularFile(file) ? Files.readAllBytes(file) : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static String contentType(String name) {
+        if (name.endsWith(".js")) return "application/javascript";
+        if (name.endsWith(".css")) return "text/css";
+        if (name.endsWith(".png")) return "image/png";
+        if (name.endsWith(".svg")) return "image/svg+xml";
+        return "application/octet-stream";
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        try {
+            if (body == null) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.getResponseHeaders().set("Cache-Control", "max-age=86400");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * LRU cache of tile contents bounded by the total number of bytes.
+     */
+    private static final class TileCache {
+        private final long maxBytes;
+        private final LinkedHashMap<String, byte[]> tiles = new LinkedHashMap<>(256, 0.75f, true);
+        private long bytes;
+        private long hits;
+
+        TileCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized byte[] get(String key) {
+            byte[] tile = tiles.get(key);
+            if (tile != null) {
+                hits++;
+            }
+            return tile;
+        }
+
+        synchronized void put(String key, byte[] tile) {
+            if (tile.length > maxBytes) {
+                return;
+            }
+            byte[] previous = tiles.put(key, tile);
+            bytes += tile.length - (previous == null ? 0 : previous.length);
+            Iterator<Map.Entry<String, byte[]>> eldest = tiles.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().getValue().length;
+                eldest.remove();
+            }
+        }
+
+        synchronized long getHits() {
+            return hits;
+        }
+    }
+}
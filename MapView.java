@@ -1,21 +1,55 @@
 package com.boattracking;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.web.WebEngine;
 import javafx.scene.web.WebView;
 import javafx.stage.Stage;
-import javafx.animation.Timeline;
-import javafx.animation.KeyFrame;
-import javafx.util.Duration;
+import java.nio.file.Paths;
+import java.util.List;
 import netscape.javascript.JSObject;
 
 public class MapView extends Application {
 
+    /**
+     * How boats are drawn on the map.
+     */
+    public enum RenderMode {
+        /** One Leaflet marker per boat; fine for small fleets. */
+        MARKERS,
+        /**
+         * All boats drawn on a single canvas, clustered at low zoom
+         * levels; meant for fleets of tens of thousands of boats and more.
+         */
+        CANVAS,
+        /** MARKERS up to {@link MapView#CANVAS_THRESHOLD} boats, CANVAS above. */
+        AUTO
+    }
+
+    /**
+     * Fleet size above which {@link RenderMode#AUTO} switches to canvas
+     * rendering.  Past a few thousand DOM markers the WebView becomes
+     * unresponsive.
+     */
+    public static final int CANVAS_THRESHOLD = 2_000;
+
+    /**
+     * Directory holding the offline Leaflet bundle and tile cache served
+     * by {@link MapTileServer}.  When it is missing the map falls back to
+     * the public CDN and tile servers.
+     */
+    public static final String MAP_DIR = "map";
+
+    private static final String CDN_LEAFLET = "https://unpkg.com/leaflet@1.9.4/dist";
+    private static final String OSM_TILES = "https://{s}.tile.openstreetmap.org/{z}/{x}/{y}.png";
+
     private static BoatDetectionSystem system;
+    private static RenderMode renderMode = RenderMode.AUTO;
     private static final int WIDTH = 1200;
     private static final int HEIGHT = 800;
+    private static final long REFRESH_MILLIS = 2_000;
 
     private static final double MIN_LAT = BoatDetectionSystem.MIN_LAT;
     private static final double MAX_LAT = BoatDetectionSystem.MAX_LAT;
@@ -23,11 +57,27 @@ public class MapView extends Application {
     private static final double MAX_LON = BoatDetectionSystem.MAX_LON;
     
     private WebEngine webEngine;
+    private MapFrameProducer producer;
+    // Held here because the page only keeps a weak reference to it
+    private final FrameBridge bridge = new FrameBridge();
+    private MapTileServer tileServer;
 
     public static void setSystem(BoatDetectionSystem sys) {
         system = sys;
     }
 
+    public static void setRenderMode(RenderMode mode) {
+        renderMode = mode;
+    }
+
+    /**
+     * Returns the engine of the map page, or null before {@link #start}.
+     * Used by {@link MapRenderBenchmark} to read the page's frame times.
+     */
+    WebEngine getWebEngine() {
+        return webEngine;
+    }
+
     @Override
     public void start(Stage stage) {
         BorderPane root = new BorderPane();
@@ -36,20 +86,18 @@ public class MapView extends Application {
         WebView webView = new WebView();
         webEngine = webView.getEngine();
         
-        // Load the HTML map
-        webEngine.loadContent(generateMapHTML());
+        // Serve Leaflet and tiles locally when an offline bundle exists
+        tileServer = MapTileServer.startIfPresent(Paths.get(MAP_DIR));
         
-        // Set up auto-refresh to update boat positions every 2 seconds
-        Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), event -> {
-            updateBoatMarkers();
-        }));
-        timeline.setCycleCount(Timeline.INDEFINITE);
+        // Load the HTML map
+        webEngine.loadContent(generateMapHTML(resolveRenderMode()));
         
         // Wait for page to load before starting updates
         webEngine.getLoadWorker().stateProperty().addListener((obs, oldState, newState) -> {
             if (newState == javafx.concurrent.Worker.State.SUCCEEDED) {
-                updateBoatMarkers();
-                timeline.play();
+                JSObject window = (JSObject) webEngine.executeScript("window");
+                window.setMember("javaBridge", bridge);
+                startProducer();
             }
         });
         
@@ -59,48 +107,131 @@ public class MapView extends Application {
         stage.setScene(new Scene(root, WIDTH, HEIGHT));
         stage.show();
     }
+
+    @Override
+    public void stop() {
+        if (producer != null) {
+            producer.stop();
+        }
+        if (tileServer != null) {
+            tileServer.stop();
+        }
+    }
     
-    private void updateBoatMarkers() {
-        if (system == null || webEngine == null) return;
+    /**
+     * Starts building frames for a freshly loaded page.  The page has no
+     * markers yet, so a new producer is used and the whole fleet is sent
+     * again.  Frames are built every {@value #REFRESH_MILLIS} ms on the
+     * producer's thread; only the boats that changed are packed into a
+     * binary frame by {@link MarkerFrameEncoder}.
+     */
+    private void startProducer() {
+        if (producer != null) {
+            producer.stop();
+        }
+        producer = null;
+        if (system == null) return;
         
-        StringBuilder js = new StringBuilder("updateBoats([");
-        boolean first = true;
+        producer = new MapFrameProducer(system, REFRESH_MILLIS,
+            (source, frame) -> Platform.runLater(() -> showFrame(source, frame)));
+        producer.start();
+    }
+    
+    /**
+     * Pushes a finished frame into the page.  Runs on the FX thread and
+     * does nothing beyond handing the frame to {@code javaBridge} and
+     * letting the page pull it.
+     */
+    private void showFrame(MapFrameProducer source, String frame) {
+        // Frames built for a page that has since been reloaded are stale
+        if (source != producer) return;
         
-        for (Boat boat : system.getAllBoats()) {
-            if (!first) js.append(",");
-            first = false;
-            
-            String color = switch (boat.getStatus()) {
-                case GREEN -> "green";
-                case YELLOW -> "orange";
-                case RED -> "red";
-            };
-            
-            js.append(String.format(
-                "{id:'%s',lat:%.6f,lon:%.6f,status:'%s',color:'%s'}",
-                boat.getId(),
-                boat.getLatitude(),
-                boat.getLongitude(),
-                boat.getStatus(),
-                color
-            ));
+        try {
+            bridge.offer(frame);
+            webEngine.executeScript("pullFrame()");
+        } finally {
+            source.frameApplied();
         }
-        
-        js.append("]);");
-        webEngine.executeScript(js.toString());
     }
 
-    private String generateMapHTML() {
+    /**
+     * Object exposed to the page as {@code javaBridge}.  It holds the
+     * next frame until the page takes it.
+     */
+    public static final class FrameBridge {
+        private String pending;
+
+        void offer(String frame) {
+            pending = frame;
+        }
+
+        public String takeFrame() {
+            String frame = pending;
+            pending = null;
+            return frame;
+        }
+    }
+
+    private static RenderMode resolveRenderMode() {
+        if (renderMode != RenderMode.AUTO) {
+            return renderMode;
+        }
+        int boats = system == null ? 0 : system.getBoatCount();
+        return boats > CANVAS_THRESHOLD ? RenderMode.CANVAS : RenderMode.MARKERS;
+    }
+
+    /**
+     * Returns the restricted zones of the system as a JavaScript array.
+     * Rectangular zones become {@code {bounds: [[minLat, minLon],
+     * [maxLat, maxLon]]}} and polygonal zones {@code {rings: [[[lat,
+     * lon], ...], ...]}}.
+     */
+    private static String restrictedZonesJson() {
+        if (system == null) {
+            return "[]";
+        }
+        ZoneIndex zones = system.getZoneIndex();
+        List<double[]> bounds = zones.getZones();
+        StringBuilder json = new StringBuilder("[");
+        for (int id = 0; id < bounds.size(); id++) {
+            if (id > 0) {
+                json.append(", ");
+            }
+            GeoPolygon polygon = zones.getPolygon(id);
+            if (polygon == null) {
+                double[] zone = bounds.get(id);
+                json.append("{bounds: [[").append(zone[0]).append(", ").append(zone[2]).append("], [")
+                        .append(zone[1]).append(", ").append(zone[3]).append("]]}");
+                continue;
+            }
+            json.append("{rings: [");
+            List<double[]> rings = polygon.getRings();
+            for (int r = 0; r < rings.size(); r++) {
+                double[] ring = rings.get(r);
+                json.append(r > 0 ? ", [" : "[");
+                for (int v = 0; v < ring.length; v += 2) {
+                    json.append(v > 0 ? ", [" : "[").append(ring[v]).append(", ").append(ring[v + 1]).append(']');
+                }
+                json.append(']');
+            }
+            json.append("]}");
+        }
+        return json.append(']').toString();
+    }
+
+    private String generateMapHTML(RenderMode mode) {
         double centerLat = (MIN_LAT + MAX_LAT) / 2;
         double centerLon = (MIN_LON + MAX_LON) / 2;
+        String leafletBase = tileServer != null ? tileServer.getBaseUrl() + "/leaflet" : CDN_LEAFLET;
+        String tileUrl = tileServer != null ? tileServer.getTileUrlTemplate() : OSM_TILES;
         
         return "<!DOCTYPE html>\n" +
             "<html>\n" +
             "<head>\n" +
             "    <meta charset='utf-8'>\n" +
             "    <title>Boat Tracking Map</title>\n" +
-            "    <link rel='stylesheet' href='https://unpkg.com/leaflet@1.9.4/dist/leaflet.css'/>\n" +
-            "    <script src='https://unpkg.com/leaflet@1.9.4/dist/leaflet.js'></script>\n" +
+            "    <link rel='stylesheet' href='" + leafletBase + "/leaflet.css'/>\n" +
+            "    <script src='" + leafletBase + "/leaflet.js'></script>\n" +
             "    <style>\n" +
             "        body { margin: 0; padding: 0; }\n" +
             "        #map { width: 100vw; height: 100vh; }\n" +
@@ -164,7 +295,7 @@ public class MapView extends Application {
             "        var map = L.map('map').setView([" + centerLat + ", " + centerLon + "], 8);\n" +
             "        \n" +
             "        // Add OpenStreetMap tiles\n" +
-            "        L.tileLayer('https://{s}.tile.openstreetmap.org/{z}/{x}/{y}.png', {\n" +
+            "        L.tileLayer('" + tileUrl + "', {\n" +
             "            attribution: '© OpenStreetMap contributors',\n" +
             "            maxZoom: 19\n" +
             "        }).addTo(map);\n" +
@@ -178,56 +309,347 @@ public class MapView extends Application {
             "            dashArray: '10, 10'\n" +
             "        }).addTo(map).bindPopup('Permitted Operating Area');\n" +
             "        \n" +
-            "        // Draw restricted zone\n" +
-            "        var restrictedBounds = [[20.5, 40.5], [21.0, 41.0]];\n" +
-            "        L.rectangle(restrictedBounds, {\n" +
-            "            color: 'red',\n" +
-            "            weight: 2,\n" +
-            "            fillColor: 'red',\n" +
-            "            fillOpacity: 0.2\n" +
-            "        }).addTo(map).bindPopup('Restricted Zone - No Entry');\n" +
+            "        // Draw restricted zones: corner pairs for rectangles, lists of\n" +
+            "        // rings for polygons, filled with the even-odd rule of GeoPolygon\n" +
+            "        var restrictedZones = " + restrictedZonesJson() + ";\n" +
+            "        restrictedZones.forEach(function(zone) {\n" +
+            "            var style = { color: 'red', weight: 2, fillColor: 'red', fillOpacity: 0.2, fillRule: 'evenodd' };\n" +
+            "            var shape = zone.rings ? L.polygon(zone.rings, style) : L.rectangle(zone.bounds, style);\n" +
+            "            shape.addTo(map).bindPopup('Restricted Zone - No Entry');\n" +
+            "        });\n" +
             "        \n" +
-            "        var markers = {};\n" +
+            "        var renderMode = '" + mode + "';\n" +
+            "        var markers = new Map();\n" +
             "        \n" +
-            "        function updateBoats(boats) {\n" +
-            "            // Remove old markers\n" +
-            "            for (var id in markers) {\n" +
-            "                if (!boats.find(b => b.id === id)) {\n" +
-            "                    map.removeLayer(markers[id]);\n" +
-            "                    delete markers[id];\n" +
-            "                }\n" +
+            "        function popupHtml(boat) {\n" +
+            "            return '<b>Boat ID:</b> ' + boat.id + '<br>' +\n" +
+            "                '<b>Status:</b> ' + boat.status + '<br>' +\n" +
+            "                '<b>Position:</b> ' + boat.lat.toFixed(4) + ', ' + boat.lon.toFixed(4);\n" +
+            "        }\n" +
+            "        \n" +
+            "        function boatIcon(color) {\n" +
+            "            return L.divIcon({\n" +
+            "                className: 'boat-marker',\n" +
+            "                html: '<div class=\"boat-marker\" style=\"background-color:' + color + ';\">&#9973;</div>',\n" +
+            "                iconSize: [30, 30]\n" +
+            "            });\n" +
+            "        }\n" +
+            "        \n" +
+            "        // Applies the boats that changed since the last call; boats not\n" +
+            "        // mentioned keep their marker untouched.\n" +
+            "        function applyDelta(changed, removed) {\n" +
+            "            if (fleetLayer) {\n" +
+            "                fleetLayer.applyDelta(changed, removed);\n" +
+            "                return;\n" +
             "            }\n" +
             "            \n" +
-            "            // Add or update markers\n" +
-            "            boats.forEach(function(boat) {\n" +
-            "                if (markers[boat.id]) {\n" +
-            "                    // Update existing marker\n" +
-            "                    markers[boat.id].setLatLng([boat.lat, boat.lon]);\n" +
-            "                    markers[boat.id].setPopupContent(\n" +
-            "                        '<b>Boat ID:</b> ' + boat.id + '<br>' +\n" +
-            "                        '<b>Status:</b> ' + boat.status + '<br>' +\n" +
-            "                        '<b>Position:</b> ' + boat.lat.toFixed(4) + ', ' + boat.lon.toFixed(4)\n" +
-            "                    );\n" +
+            "            removed.forEach(function(id) {\n" +
+            "                var entry = markers.get(id);\n" +
+            "                if (entry) {\n" +
+            "                    map.removeLayer(entry.marker);\n" +
+            "                    markers.delete(id);\n" +
+            "                }\n" +
+            "            });\n" +
+            "            \n" +
+            "            changed.forEach(function(boat) {\n" +
+            "                var entry = markers.get(boat.id);\n" +
+            "                if (entry) {\n" +
+            "                    entry.marker.setLatLng([boat.lat, boat.lon]);\n" +
+            "                    if (entry.color !== boat.color) {\n" +
+            "                        entry.marker.setIcon(boatIcon(boat.color));\n" +
+            "                        entry.color = boat.color;\n" +
+            "                    }\n" +
+            "                    entry.marker.setPopupContent(popupHtml(boat));\n" +
             "                } else {\n" +
-            "                    // Create new marker\n" +
-            "                    var icon = L.divIcon({\n" +
-            "                        className: 'boat-marker',\n" +
-            "                        html: '<div class=\"boat-marker\" style=\"background-color:' + boat.color + ';\">&#9973;</div>',\n" +
-            "                        iconSize: [30, 30]\n" +
-            "                    });\n" +
-            "                    \n" +
-            "                    var marker = L.marker([boat.lat, boat.lon], {icon: icon})\n" +
+            "                    var marker = L.marker([boat.lat, boat.lon], {icon: boatIcon(boat.color)})\n" +
             "                        .addTo(map)\n" +
-            "                        .bindPopup(\n" +
-            "                            '<b>Boat ID:</b> ' + boat.id + '<br>' +\n" +
-            "                            '<b>Status:</b> ' + boat.status + '<br>' +\n" +
-            "                            '<b>Position:</b> ' + boat.lat.toFixed(4) + ', ' + boat.lon.toFixed(4)\n" +
-            "                        );\n" +
-            "                    \n" +
-            "                    markers[boat.id] = marker;\n" +
+            "                        .bindPopup(popupHtml(boat));\n" +
+            "                    markers.set(boat.id, {marker: marker, color: boat.color});\n" +
             "                }\n" +
             "            });\n" +
             "        }\n" +
+            "        \n" +
+            "        // Canvas rendering: every boat is drawn on one canvas instead of\n" +
+            "        // one DOM element per boat.  Positions live in typed arrays and\n" +
+            "        // are projected by hand so a redraw allocates nothing per boat.\n" +
+            "        var STATUS_CODES = {GREEN: 0, YELLOW: 1, RED: 2};\n" +
+            "        var STATUS_COLORS = ['green', 'orange', 'red'];\n" +
+            "        var STATUS_NAMES = ['GREEN', 'YELLOW', 'RED'];\n" +
+            "        var CLUSTER_MAX_ZOOM = 10;\n" +
+            "        var CLUSTER_CELL_PX = 48;\n" +
+            "        \n" +
+            "        var FleetLayer = L.Layer.extend({\n" +
+            "            initialize: function() {\n" +
+            "                this._index = new Map();\n" +
+            "                this._ids = [];\n" +
+            "                this._lat = new Float64Array(1024);\n" +
+            "                this._lon = new Float64Array(1024);\n" +
+            "                this._status = new Uint8Array(1024);\n" +
+            "                this._count = 0;\n" +
+            "                this.lastDrawMillis = 0;\n" +
+            "            },\n" +
+            "            \n" +
+            "            onAdd: function(map) {\n" +
+            "                this._map = map;\n" +
+            "                this._canvas = L.DomUtil.create('canvas', 'leaflet-zoom-hide');\n" +
+            "                map.getPanes().overlayPane.appendChild(this._canvas);\n" +
+            "                map.on('moveend zoomend resize', this._reset, this);\n" +
+            "                map.on('click', this._onClick, this);\n" +
+            "                this._reset();\n" +
+            "            },\n" +
+            "            \n" +
+            "            onRemove: function(map) {\n" +
+            "                map.off('moveend zoomend resize', this._reset, this);\n" +
+            "                map.off('click', this._onClick, this);\n" +
+            "                L.DomUtil.remove(this._canvas);\n" +
+            "            },\n" +
+            "            \n" +
+            "            applyDelta: function(changed, removed) {\n" +
+            "                for (var i = 0; i < removed.length; i++) {\n" +
+            "                    this._remove(removed[i]);\n" +
+            "                }\n" +
+            "                for (var j = 0; j < changed.length; j++) {\n" +
+            "                    var boat = changed[j];\n" +
+            "                    var slot = this._index.get(boat.id);\n" +
+            "                    if (slot === undefined) {\n" +
+            "                        slot = this._append(boat.id);\n" +
+            "                    }\n" +
+            "                    this._lat[slot] = boat.lat;\n" +
+            "                    this._lon[slot] = boat.lon;\n" +
+            "                    this._status[slot] = STATUS_CODES[boat.status];\n" +
+            "                }\n" +
+            "                this._scheduleDraw();\n" +
+            "            },\n" +
+            "            \n" +
+            "            _append: function(id) {\n" +
+            "                if (this._count === this._lat.length) {\n" +
+            "                    var capacity = this._count * 2;\n" +
+            "                    this._lat = grow(this._lat, new Float64Array(capacity));\n" +
+            "                    this._lon = grow(this._lon, new Float64Array(capacity));\n" +
+            "                    this._status = grow(this._status, new Uint8Array(capacity));\n" +
+            "                }\n" +
+            "                var slot = this._count++;\n" +
+            "                this._ids[slot] = id;\n" +
+            "                this._index.set(id, slot);\n" +
+            "                return slot;\n" +
+            "            },\n" +
+            "            \n" +
+            "            // Removes a boat by moving the last boat into its slot.\n" +
+            "            _remove: function(id) {\n" +
+            "                var slot = this._index.get(id);\n" +
+            "                if (slot === undefined) return;\n" +
+            "                var last = --this._count;\n" +
+            "                this._index.delete(id);\n" +
+            "                if (slot !== last) {\n" +
+            "                    var lastId = this._ids[last];\n" +
+            "                    this._ids[slot] = lastId;\n" +
+            "                    this._lat[slot] = this._lat[last];\n" +
+            "                    this._lon[slot] = this._lon[last];\n" +
+            "                    this._status[slot] = this._status[last];\n" +
+            "                    this._index.set(lastId, slot);\n" +
+            "                }\n" +
+            "                this._ids.length = last;\n" +
+            "            },\n" +
+            "            \n" +
+            "            _reset: function() {\n" +
+            "                var size = this._map.getSize();\n" +
+            "                L.DomUtil.setPosition(this._canvas, this._map.containerPointToLayerPoint([0, 0]));\n" +
+            "                this._canvas.width = size.x;\n" +
+            "                this._canvas.height = size.y;\n" +
+            "                this._scheduleDraw();\n" +
+            "            },\n" +
+            "            \n" +
+            "            _scheduleDraw: function() {\n" +
+            "                if (!this._frame) {\n" +
+            "                    this._frame = L.Util.requestAnimFrame(this._draw, this);\n" +
+            "                }\n" +
+            "            },\n" +
+            "            \n" +
+            "            // Sets up the Web Mercator projection of the current view so\n" +
+            "            // _x and _y map degrees straight to canvas pixels.\n" +
+            "            _prepareProjection: function() {\n" +
+            "                var zoom = this._map.getZoom();\n" +
+            "                this._scale = 256 * Math.pow(2, zoom);\n" +
+            "                var origin = this._map.getPixelBounds().min;\n" +
+            "                this._originX = origin.x;\n" +
+            "                this._originY = origin.y;\n" +
+            "                return zoom;\n" +
+            "            },\n" +
+            "            \n" +
+            "            _x: function(lon) {\n" +
+            "                return (lon + 180) / 360 * this._scale - this._originX;\n" +
+            "            },\n" +
+            "            \n" +
+            "            _y: function(lat) {\n" +
+            "                var s = Math.sin(lat * Math.PI / 180);\n" +
+            "                return (0.5 - Math.log((1 + s) / (1 - s)) / (4 * Math.PI)) * this._scale - this._originY;\n" +
+            "            },\n" +
+            "            \n" +
+            "            _draw: function() {\n" +
+            "                this._frame = null;\n" +
+            "                var start = performance.now();\n" +
+            "                var ctx = this._canvas.getContext('2d');\n" +
+            "                var width = this._canvas.width;\n" +
+            "                var height = this._canvas.height;\n" +
+            "                ctx.clearRect(0, 0, width, height);\n" +
+            "                if (this._prepareProjection() <= CLUSTER_MAX_ZOOM) {\n" +
+            "                    this._drawClusters(ctx, width, height);\n" +
+            "                } else {\n" +
+            "                    this._drawBoats(ctx, width, height);\n" +
+            "                }\n" +
+            "                this.lastDrawMillis = performance.now() - start;\n" +
+            "                window.fleetFrameStats = {boats: this._count, millis: this.lastDrawMillis};\n" +
+            "            },\n" +
+            "            \n" +
+            "            // Draws one path per status so the canvas is filled three\n" +
+            "            // times per frame regardless of the fleet size.\n" +
+            "            _drawBoats: function(ctx, width, height) {\n" +
+            "                for (var code = 0; code < STATUS_COLORS.length; code++) {\n" +
+            "                    ctx.beginPath();\n" +
+            "                    for (var i = 0; i < this._count; i++) {\n" +
+            "                        if (this._status[i] !== code) continue;\n" +
+            "                        var x = this._x(this._lon[i]);\n" +
+            "                        var y = this._y(this._lat[i]);\n" +
+            "                        if (x < -5 || y < -5 || x > width + 5 || y > height + 5) continue;\n" +
+            "                        ctx.moveTo(x + 4, y);\n" +
+            "                        ctx.arc(x, y, 4, 0, 2 * Math.PI);\n" +
+            "                    }\n" +
+            "                    ctx.fillStyle = STATUS_COLORS[code];\n" +
+            "                    ctx.fill();\n" +
+            "                }\n" +
+            "            },\n" +
+            "            \n" +
+            "            // Groups boats into square screen cells and draws one circle\n" +
+            "            // per cell, coloured by the worst status in it.\n" +
+            "            _drawClusters: function(ctx, width, height) {\n" +
+            "                var cols = Math.ceil(width / CLUSTER_CELL_PX);\n" +
+            "                var rows = Math.ceil(height / CLUSTER_CELL_PX);\n" +
+            "                var counts = new Int32Array(cols * rows);\n" +
+            "                var worst = new Uint8Array(cols * rows);\n" +
+            "                var sumX = new Float64Array(cols * rows);\n" +
+            "                var sumY = new Float64Array(cols * rows);\n" +
+            "                for (var i = 0; i < this._count; i++) {\n" +
+            "                    var x = this._x(this._lon[i]);\n" +
+            "                    var y = this._y(this._lat[i]);\n" +
+            "                    if (x < 0 || y < 0 || x >= width || y >= height) continue;\n" +
+            "                    var cell = Math.floor(y / CLUSTER_CELL_PX) * cols + Math.floor(x / CLUSTER_CELL_PX);\n" +
+            "                    counts[cell]++;\n" +
+            "                    sumX[cell] += x;\n" +
+            "                    sumY[cell] += y;\n" +
+            "                    if (this._status[i] > worst[cell]) worst[cell] = this._status[i];\n" +
+            "                }\n" +
+            "                ctx.font = 'bold 11px Arial';\n" +
+            "                ctx.textAlign = 'center';\n" +
+            "                ctx.textBaseline = 'middle';\n" +
+            "                for (var c = 0; c < counts.length; c++) {\n" +
+            "                    var n = counts[c];\n" +
+            "                    if (n === 0) continue;\n" +
+            "                    var cx = sumX[c] / n;\n" +
+            "                    var cy = sumY[c] / n;\n" +
+            "                    var radius = n === 1 ? 5 : Math.min(22, 8 + 3 * Math.log(n));\n" +
+            "                    ctx.beginPath();\n" +
+            "                    ctx.arc(cx, cy, radius, 0, 2 * Math.PI);\n" +
+            "                    ctx.fillStyle = STATUS_COLORS[worst[c]];\n" +
+            "                    ctx.globalAlpha = 0.8;\n" +
+            "                    ctx.fill();\n" +
+            "                    ctx.globalAlpha = 1;\n" +
+            "                    if (n > 1) {\n" +
+            "                        ctx.fillStyle = 'white';\n" +
+            "                        ctx.fillText(String(n), cx, cy);\n" +
+            "                    }\n" +
+            "                }\n" +
+            "            },\n" +
+            "            \n" +
+            "            // Opens a popup for the boat nearest to a click, if any is\n" +
+            "            // within a few pixels.  Clusters are zoomed into instead.\n" +
+            "            _onClick: function(e) {\n" +
+            "                var zoom = this._prepareProjection();\n" +
+            "                if (zoom <= CLUSTER_MAX_ZOOM) {\n" +
+            "                    this._map.setView(e.latlng, zoom + 2);\n" +
+            "                    return;\n" +
+            "                }\n" +
+            "                var px = e.containerPoint.x;\n" +
+            "                var py = e.containerPoint.y;\n" +
+            "                var best = -1;\n" +
+            "                var bestDistance = 64;\n" +
+            "                for (var i = 0; i < this._count; i++) {\n" +
+            "                    var dx = this._x(this._lon[i]) - px;\n" +
+            "                    var dy = this._y(this._lat[i]) - py;\n" +
+            "                    var d = dx * dx + dy * dy;\n" +
+            "                    if (d < bestDistance) {\n" +
+            "                        best = i;\n" +
+            "                        bestDistance = d;\n" +
+            "                    }\n" +
+            "                }\n" +
+            "                if (best >= 0) {\n" +
+            "                    L.popup()\n" +
+            "                        .setLatLng([this._lat[best], this._lon[best]])\n" +
+            "                        .setContent(popupHtml({\n" +
+            "                            id: this._ids[best],\n" +
+            "                            status: STATUS_NAMES[this._status[best]],\n" +
+            "                            lat: this._lat[best],\n" +
+            "                            lon: this._lon[best]\n" +
+            "                        }))\n" +
+            "                        .openOn(this._map);\n" +
+            "                }\n" +
+            "            }\n" +
+            "        });\n" +
+            "        \n" +
+            "        function grow(from, to) {\n" +
+            "            to.set(from);\n" +
+            "            return to;\n" +
+            "        }\n" +
+            "        \n" +
+            "        var fleetLayer = renderMode === 'CANVAS' ? new FleetLayer().addTo(map) : null;\n" +
+            "        \n" +
+            "        // Binary frames from MarkerFrameEncoder, addressed by slot\n" +
+            "        var slotIds = [];\n" +
+            "        \n" +
+            "        function pullFrame() {\n" +
+            "            var frame = javaBridge.takeFrame();\n" +
+            "            if (frame) {\n" +
+            "                applyFrame(frame);\n" +
+            "            }\n" +
+            "        }\n" +
+            "        \n" +
+            "        function applyFrame(base64) {\n" +
+            "            var raw = atob(base64);\n" +
+            "            var bytes = new Uint8Array(raw.length);\n" +
+            "            for (var i = 0; i < raw.length; i++) {\n" +
+            "                bytes[i] = raw.charCodeAt(i);\n" +
+            "            }\n" +
+            "            var view = new DataView(bytes.buffer);\n" +
+            "            var changedCount = view.getInt32(0, true);\n" +
+            "            var removedCount = view.getInt32(4, true);\n" +
+            "            var firstNewSlot = view.getInt32(8, true);\n" +
+            "            var idBytes = view.getInt32(12, true);\n" +
+            "            \n" +
+            "            var pos = 16 + changedCount * 21 + removedCount * 4;\n" +
+            "            if (idBytes > 0) {\n" +
+            "                var names = new TextDecoder('utf-8').decode(bytes.subarray(pos, pos + idBytes)).split('\\n');\n" +
+            "                for (var k = 0; k < names.length; k++) {\n" +
+            "                    slotIds[firstNewSlot + k] = names[k];\n" +
+            "                }\n" +
+            "            }\n" +
+            "            \n" +
+            "            var changed = new Array(changedCount);\n" +
+            "            pos = 16;\n" +
+            "            for (var c = 0; c < changedCount; c++, pos += 21) {\n" +
+            "                var status = bytes[pos + 20];\n" +
+            "                changed[c] = {\n" +
+            "                    id: slotIds[view.getInt32(pos, true)],\n" +
+            "                    lat: view.getFloat64(pos + 4, true),\n" +
+            "                    lon: view.getFloat64(pos + 12, true),\n" +
+            "                    status: STATUS_NAMES[status],\n" +
+            "                    color: STATUS_COLORS[status]\n" +
+            "                };\n" +
+            "            }\n" +
+            "            var removed = new Array(removedCount);\n" +
+            "            for (var r = 0; r < removedCount; r++, pos += 4) {\n" +
+            "                removed[r] = slotIds[view.getInt32(pos, true)];\n" +
+            "            }\n" +
+            "            applyDelta(changed, removed);\n" +
+            "        }\n" +
             "    </script>\n" +
             "</body>\n" +
             "</html>";
@@ -0,0 +1,168 @@
+package com.boattracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tracks what the map has already been told about each boat so that
+ * every refresh only sends the boats that changed.
+ *
+ * <p>The tracker remembers the position and status last sent for every
+ * boat in a {@link FleetStore}.  Each call to {@link #nextFrame} walks
+ * the registry's columns once, compares every boat with its remembered
+ * state and reports the boats that were added, moved or changed status,
+ * plus the boats that have disappeared since the previous frame.
+ * Comparing is done on primitive arrays, so a frame in which nothing
+ * moved costs a scan and no allocation beyond the (empty) delta.</p>
+ *
+ * <p>The remembered state is advanced as soon as a delta is returned.  A
+ * delta that never reaches the page must be handed back through
+ * {@link #resend} so that its boats are reported again.</p>
+ *
+ * <p>A tracker belongs to one map page.  When the page is reloaded a
+ * fresh tracker must be used so that every boat is sent again.  The
+ * tracker is not thread-safe.</p>
+ */
+public class MarkerDeltaTracker {
+
+    /**
+     * Boats that changed or disappeared between two frames.
+     */
+    public static final class Delta {
+        private final int[] changedSlots;
+        private final List<String> removedIds;
+
+        Delta(int[] changedSlots, List<String> removedIds) {
+            this.changedSlots = changedSlots;
+            this.removedIds = removedIds;
+        }
+
+        /**
+         * Returns the slots, in the tracker's state store, of boats that
+         * are new, moved or changed status.
+         */
+        public int[] getChangedSlots() {
+            return changedSlots;
+        }
+
+        /**
+         * Returns the identifiers of boats no longer in the registry.
+         */
+        public List<String> getRemovedIds() {
+            return removedIds;
+        }
+
+        public boolean isEmpty() {
+            return changedSlots.length == 0 && removedIds.isEmpty();
+        }
+    }
+
+    private final FleetStore sent = new FleetStore();
+    private int[] seenInFrame = new int[64];
+    private boolean[] removed = new boolean[64];
+    private boolean[] unsent = new boolean[64];
+    private int frame;
+    private int[] changed = new int[64];
+    private int changedCount;
+
+    /**
+     * Compares the registry with the state last sent and returns the
+     * difference.  The remembered state is advanced to the current one.
+     *
+     * @param system the system whose boats are displayed
+     * @return the boats to add, update or remove on the map
+     */
+    public Delta nextFrame(BoatDetectionSystem system) {
+        frame++;
+        changedCount = 0;
+        FleetStore fleet = system.getFleetStore();
+        try {
+            for (int slot = 0, size = fleet.size(); slot < size; slot++) {
+                observe(fleet, slot);
+            }
+        } catch (RuntimeException e) {
+            // The state of the boats seen so far has already moved on
+            for (int i = 0; i < changedCount; i++) {
+                unsent[changed[i]] = true;
+            }
+            throw e;
+        }
+
+        List<String> removedIds = Collections.emptyList();
+        for (int slot = 0; slot < sent.size(); slot++) {
+            if (seenInFrame[slot] != frame && !removed[slot]) {
+                removed[slot] = true;
+                if (removedIds.isEmpty()) {
+                    removedIds = new ArrayList<>();
+                }
+                removedIds.add(sent.getBoatId(slot));
+            }
+        }
+        return new Delta(Arrays.copyOf(changed, changedCount), removedIds);
+    }
+
+    /**
+     * Hands back a delta that was not delivered to the page.  Its boats
+     * are reported again by the next frame, even if they have not changed
+     * since.
+     *
+     * @param delta a delta returned by the last call to {@link #nextFrame}
+     */
+    public void resend(Delta delta) {
+        for (int slot : delta.getChangedSlots()) {
+            unsent[slot] = true;
+        }
+        for (String boatId : delta.getRemovedIds()) {
+            removed[sent.slotOf(boatId)] = false;
+        }
+    }
+
+    /**
+     * Returns the state last sent to the map, indexed by the slots
+     * reported in {@link Delta#getChangedSlots()}.
+     */
+    public FleetStore getState() {
+        return sent;
+    }
+
+    private void observe(FleetStore fleet, int fleetSlot) {
+        double latitude = fleet.getLatitude(fleetSlot);
+        double longitude = fleet.getLongitude(fleetSlot);
+        Status status = fleet.getStatus(fleetSlot);
+        String boatId = fleet.getBoatId(fleetSlot);
+        int slot = sent.slotOf(boatId);
+        boolean dirty;
+        if (slot < 0) {
+            slot = sent.add(boatId, fleet.getChipId(fleetSlot));
+            ensureCapacity(slot + 1);
+            dirty = true;
+        } else {
+            dirty = removed[slot] || unsent[slot]
+                    || sent.getLatitude(slot) != latitude
+                    || sent.getLongitude(slot) != longitude
+                    || sent.getStatus(slot) != status;
+        }
+        removed[slot] = false;
+        unsent[slot] = false;
+        seenInFrame[slot] = frame;
+        if (dirty) {
+            sent.setPosition(slot, latitude, longitude, fleet.getFixTime(fleetSlot), fleet.getOffsetSeconds(fleetSlot));
+            sent.setStatus(slot, status);
+            if (changedCount == changed.length) {
+                changed = Arrays.copyOf(changed, changedCount * 2);
+            }
+            changed[changedCount++] = slot;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > seenInFrame.length) {
+            int newLength = Math.max(capacity, seenInFrame.length * 2);
+            seenInFrame = Arrays.copyOf(seenInFrame, newLength);
+            removed = Arrays.copyOf(removed, newLength);
+            unsent = Arrays.copyOf(unsent, newLength);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.boattracking;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Encodes marker deltas into a compact binary frame for the map page.
+ *
+ * <p>Formatting every position as decimal text costs far more than the
+ * rest of a refresh, so the map receives binary frames instead.  A frame
+ * is little-endian and laid out as:</p>
+ * <pre>
+ *   int32   changed count (n)
+ *   int32   removed count (r)
+ *   int32   first new slot
+ *   int32   byte length of the new identifiers (b)
+ *   n x { int32 slot, float64 latitude, float64 longitude, uint8 status }
+ *   r x   int32 slot
+ *   b     UTF-8 identifiers of the new slots, separated by '\n'
+ * </pre>
+ *
+ * <p>Boats are addressed by their slot in the tracker's
+ * {@link FleetStore}.  Slots are appended in order, so the identifiers of
+ * the slots added since the previous frame are sent once, as a block
+ * starting at the first new slot.  The status byte is the ordinal of
+ * {@link Status}.  Frames are handed to the page as Base64 text because
+ * that is what crosses the WebView bridge without per-value conversion.</p>
+ *
+ * <p>An encoder belongs to one page, like its tracker, and is not
+ * thread-safe.  The internal buffer is reused between frames.</p>
+ */
+public class MarkerFrameEncoder {
+
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 21;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+    private int slotsSent;
+
+    /**
+     * Encodes a delta produced by a tracker.
+     *
+     * @param delta the delta to encode
+     * @param state the tracker's state store
+     * @return the Base64 text of the frame
+     */
+    public String encode(MarkerDeltaTracker.Delta delta, FleetStore state) {
+        byte[] ids = newIds(state);
+        int[] changed = delta.getChangedSlots();
+        List<String> removed = delta.getRemovedIds();
+        ByteBuffer out = reserve(HEADER_BYTES + changed.length * RECORD_BYTES + removed.size() * 4 + ids.length);
+
+        out.putInt(changed.length);
+        out.putInt(removed.size());
+        out.putInt(slotsSent);
+        out.putInt(ids.length);
+        for (int slot : changed) {
+            out.putInt(slot);
+            out.putDouble(state.getLatitude(slot));
+            out.putDouble(state.getLongitude(slot));
+            out.put((byte) state.getStatus(slot).ordinal());
+        }
+        for (String id : removed) {
+            out.putInt(state.slotOf(id));
+        }
+        out.put(ids);
+        slotsSent = state.size();
+
+        out.flip();
+        ByteBuffer encoded = Base64.getEncoder().encode(out);
+        return new String(encoded.array(), 0, encoded.limit(), StandardCharsets.ISO_8859_1);
+    }
+
+    private byte[] newIds(FleetStore state) {
+        if (state.size() == slotsSent) {
+            return new byte[0];
+        }
+        StringBuilder ids = new StringBuilder();
+        for (int slot = slotsSent; slot < state.size(); slot++) {
+            if (slot > slotsSent) {
+                ids.append('\n');
+            }
+            ids.append(state.getBoatId(slot));
+        }
+        return ids.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer reserve(int bytes) {
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocate(Math.max(bytes, buffer.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        buffer.clear();
+        return buffer;
+    }
+}
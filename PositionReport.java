@@ -0,0 +1,57 @@
+package com.boattracking;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A single position fix reported by a receiver for a registered boat.
+ * Reports are submitted in bulk through
+ * {@link BoatDetectionSystem#updateBoatLocations(java.util.List)}.
+ */
+public class PositionReport {
+    private final String boatId;
+    private final double latitude;
+    private final double longitude;
+    private final LocalDateTime timestamp;
+
+    /**
+     * Constructs a new position report.
+     *
+     * @param boatId    the system identifier of the reporting boat
+     * @param latitude  the reported latitude
+     * @param longitude the reported longitude
+     * @param timestamp the time the fix was recorded
+     */
+    public PositionReport(String boatId, double latitude, double longitude, LocalDateTime timestamp) {
+        this.boatId = Objects.requireNonNull(boatId, "boatId must not be null");
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.timestamp = Objects.requireNonNull(timestamp, "timestamp must not be null");
+    }
+
+    public String getBoatId() {
+        return boatId;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "PositionReport{" +
+                "boatId='" + boatId + '\'' +
+                ", latitude=" + latitude +
+                ", longitude=" + longitude +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
@@ -0,0 +1,153 @@
+package com.boattracking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the day-partitioned alert archive.
+ */
+public class TestAlertArchive {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Verifies that queries by boat, type and time range return exactly
+     * the matching alerts, both from sealed days and from the days still
+     * open, and after the archive is reopened.
+     */
+    @Test
+    public void testQueries() throws IOException {
+        Path dir = temp.newFolder("archive").toPath();
+        AlertArchive archive = AlertArchive.open(dir);
+        AlertType[] types = AlertType.values();
+        for (int day = 0; day < 10; day++) {
+            for (int i = 0; i < 60; i++) {
+                String boatId = String.format("B%04d", i % 20);
+                archive.append(new Alert(boatId, types[i % types.length], 17.0, 40.0,
+                        START.plusDays(day).plusMinutes(i)));
+            }
+        }
+        // A late alert for a day that was already sealed
+        archive.append(new Alert("B0003", AlertType.AREA_BREACH, "Late report", START.plusHours(3)));
+        assertEquals("Every day should be kept", 10, archive.getDays().size());
+
+        List<Alert> boat = archive.query("B0003", null, START, START.plusDays(9).plusHours(2));
+        assertEquals("All alerts of the boat should be found", 31, boat.size());
+        assertEquals("Days should be returned oldest first", START.plusMinutes(3), boat.get(0).getTimestamp());
+        assertEquals("Late alerts should be found", "Late report", boat.get(3).getMessage());
+
+        List<Alert> boatAndType = archive.query("B0002", AlertType.RESTRICTED_ZONE,
+                START.plusDays(2), START.plusDays(4).plusMinutes(22));
+        assertEquals("Boat and type should both match", 3, boatAndType.size());
+        for (Alert alert : boatAndType) {
+            assertEquals("Only the boat should match", "B0002", alert.getBoatId());
+            assertEquals("Only the type should match", AlertType.RESTRICTED_ZONE, alert.getType());
+        }
+
+        assertEquals("Type alone should match across boats", 20,
+                archive.query(null, AlertType.TIME_EXCEEDED, START.plusDays(9), START.plusDays(10)).size());
+        assertEquals("Range ends should be inclusive", 2,
+                archive.query(null, null, START.plusMinutes(10), START.plusMinutes(11)).size());
+        assertTrue("Unknown boats should match nothing",
+                archive.query("B9999", null, START, START.plusDays(10)).isEmpty());
+        archive.close();
+
+        AlertArchive reopened = AlertArchive.open(dir);
+        try {
+            assertEquals("Reopened archive should answer the same", 31,
+                    reopened.query("B0003", null, START, START.plusDays(10)).size());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    /**
+     * Verifies that a day left open by a crash, with a torn record at its
+     * end, is re-indexed on opening, and that the system archives the
+     * alerts it raises.
+     */
+    @Test
+    public void testRecoverOpenDay() throws IOException {
+        Path dir = temp.newFolder("archive").toPath();
+        AlertArchive archive = AlertArchive.open(dir);
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        system.setAlertArchive(archive);
+        Boat boat = system.addBoat("chip1");
+        system.updateBoatLocation(boat.getId(), 17.0, 40.0, START);
+        system.updateBoatLocation(boat.getId(), 17.0, 40.0, START.plusMinutes(1));
+        system.updateBoatLocation(boat.getId(), 20.5, 40.5, START.plusMinutes(2));
+        // Simulate a crash: written but never sealed, then a torn record
+        archive.query(null, null, START, START);
+        Path data = dir.resolve(START.toLocalDate() + AlertArchive.DATA_SUFFIX);
+        Files.write(data, new byte[] {0, 5, 'B'}, StandardOpenOption.APPEND);
+
+        AlertArchive recovered = AlertArchive.open(dir);
+        try {
+            List<Alert> alerts = recovered.query(boat.getId(), AlertType.AREA_BREACH, START, START.plusDays(1));
+            assertEquals("Both area breaches should be recovered", 2, alerts.size());
+            assertEquals("Alert position should be kept", 17.0, alerts.get(1).getLatitude(), 0.0);
+            recovered.append(new Alert(boat.getId(), AlertType.AREA_BREACH, 25.0, 40.0, START.plusMinutes(3)));
+            assertEquals("Appends should follow the dropped tail", 4,
+                    recovered.query(boat.getId(), null, START, START.plusDays(1)).size());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    /**
+     * Verifies that an alert the archive cannot write, or that reaches an
+     * archive already closed, is reported without failing the update that
+     * raised it.
+     */
+    @Test
+    public void testArchiveFailureKeepsUpdate() throws IOException {
+        Path dir = temp.newFolder("archive").toPath();
+        AlertArchive archive = AlertArchive.open(dir);
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        system.setAlertArchive(archive);
+        Boat boat = system.addBoat("chip1");
+        try {
+            // The next day's partition cannot be created once the directory is gone
+            Files.delete(dir);
+            List<Alert> alerts = system.updateBoatLocation(boat.getId(), 17.0, 40.0, START);
+            assertEquals("The alert should still be raised", 1, alerts.size());
+            assertEquals("The location should still be applied", 17.0, boat.getLatitude(), 0.0);
+        } finally {
+            archive.close();
+        }
+        List<Alert> alerts = system.updateBoatLocation(boat.getId(), 17.0, 40.0, START.plusMinutes(1));
+        assertEquals("A closed archive should not fail the update", 1, alerts.size());
+    }
+
+    /**
+     * Verifies that appended alerts reach the data file within the sync
+     * interval, without waiting for the day to be sealed or queried.
+     */
+    @Test
+    public void testAppendsSyncedPeriodically() throws Exception {
+        Path dir = temp.newFolder("archive").toPath();
+        AlertArchive archive = AlertArchive.open(dir);
+        try {
+            archive.append(new Alert("B0001", AlertType.AREA_BREACH, 17.0, 40.0, START));
+            Path data = dir.resolve(START.toLocalDate() + AlertArchive.DATA_SUFFIX);
+            long deadline = System.currentTimeMillis() + 10 * AlertArchive.SYNC_INTERVAL_MILLIS;
+            while (Files.size(data) == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue("The alert should be written without a query", Files.size(data) > 0);
+        } finally {
+            archive.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.boattracking;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the bounded alert log.
+ */
+public class TestAlertLog {
+
+    /**
+     * Verifies that a full log evicts its oldest alerts, hands them to the
+     * eviction listener and returns the retained alerts oldest first.
+     */
+    @Test
+    public void testRingBufferEviction() {
+        AlertLog log = new AlertLog(3);
+        List<Alert> evicted = new ArrayList<>();
+        log.setEvictionListener(evicted::add);
+        List<Alert> alerts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Alert alert = new Alert("B000" + i, AlertType.TIME_EXCEEDED, "alert " + i, LocalDateTime.of(2025, 1, 1, 20, i));
+            alerts.add(alert);
+            log.append(alert);
+        }
+        assertEquals("Log should be at capacity", 3, log.size());
+        assertEquals("All appends should be counted", 5, log.getTotalAppended());
+        assertEquals("Two alerts should be evicted", 2, log.getEvictedCount());
+        assertEquals("Evicted alerts should reach the listener", alerts.subList(0, 2), evicted);
+        assertEquals("Snapshot should hold the newest alerts in order", alerts.subList(2, 5), log.snapshot());
+    }
+
+    /**
+     * Verifies that a snapshot does not change when more alerts arrive.
+     */
+    @Test
+    public void testSnapshotIsStable() {
+        AlertLog log = new AlertLog(2);
+        log.append(new Alert("B0001", AlertType.AREA_BREACH, "first", LocalDateTime.of(2025, 1, 1, 10, 0)));
+        List<Alert> snapshot = log.snapshot();
+        log.append(new Alert("B0002", AlertType.AREA_BREACH, "second", LocalDateTime.of(2025, 1, 1, 10, 1)));
+        log.append(new Alert("B0003", AlertType.AREA_BREACH, "third", LocalDateTime.of(2025, 1, 1, 10, 2)));
+        assertEquals("Snapshot should keep its size", 1, snapshot.size());
+        assertEquals("Snapshot should keep its contents", "first", snapshot.get(0).getMessage());
+    }
+
+    /**
+     * Verifies that the system keeps only the configured number of alerts.
+     */
+    @Test
+    public void testSystemAlertCapacity() {
+        BoatDetectionSystem system = new BoatDetectionSystem(10);
+        Boat boat = system.addBoat("chipNight");
+        for (int minute = 0; minute < 30; minute++) {
+            system.updateBoatLocation(boat.getId(), 20.0, 40.0, LocalDateTime.of(2025, 1, 1, 22, minute));
+        }
+        List<Alert> alerts = system.getAlertLog();
+        assertEquals("Alert log should be bounded", 10, alerts.size());
+        assertEquals("Newest alert should be last", LocalDateTime.of(2025, 1, 1, 22, 29), alerts.get(9).getTimestamp());
+    }
+}
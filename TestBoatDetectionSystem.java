@@ -1,6 +1,8 @@
 package com.boattracking;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -74,4 +76,151 @@ public class TestBoatDetectionSystem {
         assertEquals("Alert type should be AREA_BREACH", AlertType.AREA_BREACH, alert.getType());
         assertEquals("Alert boat ID should match", boat.getId(), alert.getBoatId());
     }
-}
\ No newline at end of file
+
+    /**
+     * Verifies that a batch of position reports is applied in order and
+     * that only the alerts raised by the batch are returned.
+     */
+    @Test
+    public void testBatchPositionUpdates() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        Boat boat1 = system.addBoat("chipBatch1");
+        Boat boat2 = system.addBoat("chipBatch2");
+        List<PositionReport> reports = Arrays.asList(
+                new PositionReport(boat1.getId(), 20.0, 40.0, LocalDateTime.of(2025, 1, 1, 10, 0)),
+                new PositionReport(boat2.getId(), 24.0, 43.0, LocalDateTime.of(2025, 1, 1, 10, 5)),
+                new PositionReport("B9999", 20.0, 40.0, LocalDateTime.of(2025, 1, 1, 10, 5)),
+                new PositionReport(boat1.getId(), 19.5, 40.0, LocalDateTime.of(2025, 1, 1, 10, 10)));
+        List<Alert> alerts = system.updateBoatLocations(reports);
+        assertEquals("Only the area breach should raise an alert", 1, alerts.size());
+        assertEquals("Alert should belong to boat2", boat2.getId(), alerts.get(0).getBoatId());
+        assertEquals("Alert type should be AREA_BREACH", AlertType.AREA_BREACH, alerts.get(0).getType());
+        assertEquals("Last report for boat1 should win", 19.5, boat1.getLatitude(), 0.001);
+        assertEquals("Boat1 should be GREEN", Status.GREEN, boat1.getStatus());
+        assertEquals("Boat2 should be RED", Status.RED, boat2.getStatus());
+    }
+
+    /**
+     * Verifies that registering by chip returns the existing boat for a
+     * known chip and a new boat for an unknown one.
+     */
+    @Test
+    public void testGetOrAddBoatByChip() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        Boat first = system.getOrAddBoat("chipUpsert");
+        Boat again = system.getOrAddBoat("chipUpsert");
+        Boat other = system.getOrAddBoat("chipOther");
+        assertEquals("Known chip should map to the same boat", first, again);
+        assertNotEquals("Unknown chip should get a new boat", first.getId(), other.getId());
+        assertEquals("Boat should be found by chip", other, system.getBoatByChip("chipOther"));
+        assertEquals("addBoat should index its chip", system.addBoat("chipAdded"), system.getBoatByChip("chipAdded"));
+        assertEquals("Three boats should be registered", 3, system.getAllBoats().size());
+    }
+
+    /**
+     * Verifies that in transition mode a boat staying in the same
+     * violation raises a single alert, and that a new violation type or a
+     * recovery followed by a new violation raises another.
+     */
+    @Test
+    public void testTransitionAlerting() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        system.setAlertMode(AlertMode.TRANSITIONS);
+        Boat boat = system.addBoat("chipParked");
+        for (int minute = 0; minute < 10; minute++) {
+            system.updateBoatLocation(boat.getId(), 20.7, 40.7, LocalDateTime.of(2025, 1, 1, 10, minute));
+        }
+        assertEquals("Parked boat should raise one alert", 1, system.getAlertLog().size());
+        assertEquals("Open violation should be tracked", AlertType.RESTRICTED_ZONE, boat.getOpenViolation());
+
+        List<Alert> alerts = system.updateBoatLocation(boat.getId(), 24.0, 43.0, LocalDateTime.of(2025, 1, 1, 10, 30));
+        assertEquals("Change of violation type should raise an alert", 1, alerts.size());
+        assertEquals("New alert should be AREA_BREACH", AlertType.AREA_BREACH, alerts.get(0).getType());
+
+        system.updateBoatLocation(boat.getId(), 20.0, 40.0, LocalDateTime.of(2025, 1, 1, 11, 0));
+        assertNull("Recovered boat should have no open violation", boat.getOpenViolation());
+        alerts = system.updateBoatLocation(boat.getId(), 24.0, 43.0, LocalDateTime.of(2025, 1, 1, 11, 30));
+        assertEquals("Re-entering a violation should raise an alert", 1, alerts.size());
+        alerts.clear();
+        assertTrue("Caller should be able to edit the returned list", alerts.isEmpty());
+        assertEquals("Three alerts should be logged in total", 3, system.getAlertLog().size());
+    }
+
+    /**
+     * Verifies that alerts raised by the system carry the offending
+     * position and render their message on demand.
+     */
+    @Test
+    public void testAlertMessageRendering() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        Boat boat = system.addBoat("chipMsg");
+        Alert breach = system.updateBoatLocation(boat.getId(), 24.0, 43.5, LocalDateTime.of(2025, 1, 1, 10, 0)).get(0);
+        assertEquals("Latitude should be kept", 24.0, breach.getLatitude(), 0.0);
+        assertEquals("Longitude should be kept", 43.5, breach.getLongitude(), 0.0);
+        assertEquals("Message should be rendered from the fields",
+                "Boat " + boat.getId() + " left permitted area at (24.00, 43.50)", breach.getMessage());
+        Alert late = system.updateBoatLocation(boat.getId(), 20.0, 40.0, LocalDateTime.of(2025, 1, 1, 19, 15)).get(0);
+        assertEquals("Time alert should name the time",
+                "Boat " + boat.getId() + " exceeded operating hours at 19:15", late.getMessage());
+    }
+
+    /**
+     * Verifies that updates given as epoch milliseconds with an offset
+     * are evaluated like the equivalent local date-time.
+     */
+    @Test
+    public void testEpochMillisUpdate() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        Boat boat = system.addBoat("chipEpoch");
+        int offset = BoatDetectionSystem.LOCAL_OFFSET.getTotalSeconds();
+        LocalDateTime evening = LocalDateTime.of(2025, 1, 1, 17, 45);
+        long eveningMillis = evening.toInstant(BoatDetectionSystem.LOCAL_OFFSET).toEpochMilli();
+        system.updateBoatLocation(boat.getId(), 19.5, 40.0, eveningMillis, offset);
+        assertEquals("Boat should be YELLOW near end time", Status.YELLOW, boat.getStatus());
+        assertEquals("Last update should be the local time", evening, boat.getLastUpdate());
+        assertEquals("Epoch time should be kept", eveningMillis, boat.getLastUpdateEpochMillis());
+
+        long nightMillis = eveningMillis + 2 * 60 * 60 * 1000L;
+        List<Alert> alerts = system.updateBoatLocation(boat.getId(), 19.5, 40.0, nightMillis, offset);
+        assertEquals("Boat should be RED after hours", Status.RED, boat.getStatus());
+        assertEquals("Alert should be TIME_EXCEEDED", AlertType.TIME_EXCEEDED, alerts.get(0).getType());
+        assertEquals("Alert time should be local", LocalDateTime.of(2025, 1, 1, 19, 45), alerts.get(0).getTimestamp());
+
+        system.updateBoatLocation(boat.getId(), 19.5, 40.0, nightMillis, 0);
+        assertEquals("16:45 UTC should be inside operating hours", Status.GREEN, boat.getStatus());
+    }
+
+    /**
+     * Verifies that a boat accepts a position without a time, and that
+     * times are kept to the millisecond.
+     */
+    @Test
+    public void testPositionTime() {
+        Boat boat = new Boat("B0001", "chipTime");
+        boat.updatePosition(20.0, 40.0, null);
+        assertEquals("Position should be applied", 20.0, boat.getLatitude(), 0.0);
+        assertNull("Unknown time should read back as null", boat.getLastUpdate());
+        boat.updatePosition(20.0, 40.0, LocalDateTime.of(2025, 1, 1, 12, 0, 0, 123_456_789));
+        assertEquals("Time should be truncated to the millisecond",
+                LocalDateTime.of(2025, 1, 1, 12, 0, 0, 123_000_000), boat.getLastUpdate());
+    }
+
+    /**
+     * Verifies that the per-status index follows status changes made by
+     * the system and by direct calls to {@link Boat#setStatus(Status)}.
+     */
+    @Test
+    public void testStatusIndex() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        Boat boat1 = system.addBoat("chipIdx1");
+        Boat boat2 = system.addBoat("chipIdx2");
+        assertEquals("New boats should be GREEN", 2, system.countBoatsByStatus(Status.GREEN));
+        system.updateBoatLocation(boat1.getId(), 24.0, 43.0, LocalDateTime.of(2025, 1, 1, 10, 0));
+        assertEquals("One boat should be RED", 1, system.countBoatsByStatus(Status.RED));
+        assertEquals("RED filter should return boat1", boat1, system.filterBoatsByStatus(Status.RED).get(0));
+        assertEquals("One boat should remain GREEN", 1, system.countBoatsByStatus(Status.GREEN));
+        boat2.setStatus(Status.YELLOW);
+        assertEquals("Direct status change should be indexed", boat2, system.filterBoatsByStatus(Status.YELLOW).get(0));
+        assertTrue("No boat should be GREEN", system.filterBoatsByStatus(Status.GREEN).isEmpty());
+    }
+}
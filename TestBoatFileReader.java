@@ -0,0 +1,322 @@
+package com.boattracking;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for reading boat entries from input files.
+ */
+public class TestBoatFileReader {
+
+    private static final String SAMPLE =
+            "# BoatID,ChipID,Latitude,Longitude,Timestamp\n" +
+            "B0001,CHIP001,20.5,40.2,2025-12-07 10:00\n" +
+            "\n" +
+            "B0002,CHIP002,not-a-number,40.5,2025-12-07 10:15\n" +
+            "B0003, CHIP003 ,19.5,39.8,2025-12-07 10:30\n";
+
+    /**
+     * Verifies that the stream skips comments, blank and invalid lines
+     * and yields entries lazily in file order.
+     */
+    @Test
+    public void testStreamBoatsFromFile() throws IOException {
+        Path file = writeTempFile(SAMPLE);
+        try (Stream<BoatFileReader.BoatEntry> entries = BoatFileReader.streamBoatsFromFile(file.toString())) {
+            Iterator<BoatFileReader.BoatEntry> it = entries.iterator();
+            BoatFileReader.BoatEntry first = it.next();
+            assertEquals("First entry should be B0001", "B0001", first.getBoatId());
+            assertEquals("Latitude should be parsed", 20.5, first.getLatitude(), 0.0);
+            BoatFileReader.BoatEntry second = it.next();
+            assertEquals("Invalid line should be skipped", "B0003", second.getBoatId());
+            assertEquals("Fields should be trimmed", "CHIP003", second.getChipId());
+            assertFalse("No further entries expected", it.hasNext());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that loading a file registers one boat per valid entry.
+     */
+    @Test
+    public void testLoadBoatsIntoSystem() throws IOException {
+        Path file = writeTempFile(SAMPLE);
+        try {
+            BoatDetectionSystem system = new BoatDetectionSystem();
+            assertEquals("Two valid entries should load", 2, BoatFileReader.loadBoatsIntoSystem(system, file.toString()));
+            List<Boat> boats = system.getAllBoats();
+            assertEquals("System should hold two boats", 2, boats.size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that a quiet load reports counts and skipped lines and
+     * calls the progress callback at the requested interval.
+     */
+    @Test
+    public void testLoadBoatsQuietly() throws IOException {
+        Path file = writeTempFile(SAMPLE + SAMPLE + SAMPLE);
+        try {
+            BoatDetectionSystem system = new BoatDetectionSystem();
+            int[] progressCalls = new int[1];
+            LoadReport report = BoatFileReader.loadBoatsQuietly(system, file.toString(), 2, r -> progressCalls[0]++);
+            assertTrue("Report should be finished", report.isFinished());
+            assertEquals("Six valid entries should load", 6, report.getLoadedCount());
+            assertEquals("No entry should fail", 0, report.getFailedCount());
+            assertEquals("Three invalid lines should be counted", 3, report.getInvalidLineCount());
+            assertEquals("Failures should name the line", "line 4: For input string: \"not-a-number\"", report.getFailures().get(0));
+            assertEquals("Progress should be reported every two entries", 3, progressCalls[0]);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that replaying several fixes per chip updates one boat per
+     * chip, leaving each boat at its last reported position.
+     */
+    @Test
+    public void testReplayUpdatesExistingBoats() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int fix = 0; fix < 100; fix++) {
+            for (int chip = 0; chip < 10; chip++) {
+                content.append(String.format("B%04d,CHIP%03d,20.%02d,40.5,2025-12-07 10:%02d%n", chip, chip, fix, fix % 60));
+            }
+        }
+        Path file = writeTempFile(content.toString());
+        try {
+            BoatDetectionSystem system = new BoatDetectionSystem();
+            LoadReport report = BoatFileReader.loadBoatsQuietly(system, file.toString());
+            assertEquals("Every fix should load", 1000, report.getLoadedCount());
+            assertEquals("One boat per chip should be registered", 10, system.getAllBoats().size());
+            Boat boat = system.getBoatByChip("CHIP003");
+            assertNotNull("Boat should be found by chip", boat);
+            assertEquals("Boat should be at its last fix", 20.99, boat.getLatitude(), 0.0);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies the in-place line parser on plain and unusual input.
+     */
+    @Test
+    public void testParseLine() {
+        String line = "  B0042 ,CHIP042, -20.123456 ,+40.5,2024-02-29 23:59,";
+        BoatFileReader.BoatEntry entry = BoatFileReader.parseLine(line, 0, line.length());
+        assertEquals("Boat ID should be trimmed", "B0042", entry.getBoatId());
+        assertEquals("Negative latitude should be parsed", -20.123456, entry.getLatitude(), 0.0);
+        assertEquals("Signed longitude should be parsed", 40.5, entry.getLongitude(), 0.0);
+        assertEquals("Leap day should be accepted", LocalDateTime.of(2024, 2, 29, 23, 59), entry.getTimestamp());
+
+        line = "B1,C1,2.5e1,40,2025-01-01 06:00";
+        entry = BoatFileReader.parseLine(line, 0, line.length());
+        assertEquals("Exponent notation should fall back to Double.parseDouble", 25.0, entry.getLatitude(), 0.0);
+
+        try {
+            line = "B1,C1,20.0,40.0";
+            BoatFileReader.parseLine(line, 0, line.length());
+            fail("Missing field should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Message should report the field count", "Expected 5 fields, found 4", e.getMessage());
+        }
+    }
+
+    /**
+     * Verifies that the memory-mapped loader splits the file on line
+     * boundaries and returns the same entries, in file order, as the
+     * sequential reader, and that the parallel load numbers boats in file
+     * order and applies each boat's fixes in timestamp order.
+     */
+    @Test
+    public void testReadBoatsParallel() throws IOException {
+        StringBuilder content = new StringBuilder(SAMPLE);
+        for (int i = 0; i < 500; i++) {
+            content.append(String.format("B%04d,CHIP%04d,%d.%03d,40.25,2025-12-07 %02d:%02d\r\n",
+                    i, i % 7, 18 + i % 5, i, 6 + i % 12, i % 60));
+        }
+        Path file = writeTempFile(content.toString());
+        try {
+            List<BoatFileReader.BoatEntry> expected = BoatFileReader.readBoatsFromFile(file.toString());
+            List<BoatFileReader.BoatEntry> actual = BoatFileReader.readBoatsParallel(file.toString(), 97, null);
+            assertEquals("Both readers should find the same entries", expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals("Entries should match in file order", expected.get(i).toString(), actual.get(i).toString());
+            }
+
+            BoatDetectionSystem system = new BoatDetectionSystem();
+            LoadReport report = BoatFileReader.loadBoatsParallel(system, file.toString());
+            assertEquals("Every entry should load", expected.size(), report.getLoadedCount());
+            assertEquals("Invalid line should be counted", 1, report.getInvalidLineCount());
+
+            BoatDetectionSystem sequential = new BoatDetectionSystem();
+            BoatFileReader.loadBoatsQuietly(sequential, file.toString());
+            Map<String, BoatFileReader.BoatEntry> latest = new HashMap<>();
+            for (BoatFileReader.BoatEntry entry : expected) {
+                latest.merge(entry.getChipId(), entry,
+                        (old, fix) -> fix.getTimestamp().isBefore(old.getTimestamp()) ? old : fix);
+            }
+            for (BoatFileReader.BoatEntry entry : expected) {
+                Boat boat = system.getBoatByChip(entry.getChipId());
+                Boat reference = sequential.getBoatByChip(entry.getChipId());
+                assertEquals("Boats should be numbered in file order", reference.getId(), boat.getId());
+                assertEquals("Fixes should apply in timestamp order",
+                        latest.get(entry.getChipId()).getLatitude(), boat.getLatitude(), 0.0);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that the CSV reader accepts every line terminator, lines
+     * crossing the end of its buffer and lines longer than the buffer,
+     * and that it numbers lines like {@code readLine()}.
+     */
+    @Test
+    public void testStreamAcrossBufferBoundaries() throws IOException {
+        StringBuilder content = new StringBuilder("#" + " ".repeat(BoatFileReader.CSV_BUFFER_BYTES + 10) + "\n");
+        String[] terminators = {"\n", "\r\n", "\r"};
+        int count = 0;
+        while (content.length() < 3 * BoatFileReader.CSV_BUFFER_BYTES) {
+            content.append(String.format("B%05d,CHIP%d,20.%d,40.5,2025-12-07 10:%02d", count, count % 3, count % 10, count % 60))
+                    .append(terminators[count % 3]);
+            count++;
+        }
+        content.append("B9,CHIP9,not-a-number,40.5,2025-12-07 10:00\r\n\r\n");
+        content.append("B99999,CHIP9,21.0,41.0,2025-12-07 11:00");
+        Path file = writeTempFile(content.toString());
+        try {
+            BoatDetectionSystem system = new BoatDetectionSystem();
+            LoadReport report = BoatFileReader.loadBoatsQuietly(system, file.toString());
+            assertEquals("Invalid line should be reported with its number",
+                    Arrays.asList("line " + (count + 2) + ": For input string: \"not-a-number\""), report.getFailures());
+
+            List<BoatFileReader.BoatEntry> entries = BoatFileReader.readBoatsFromFile(file.toString());
+            assertEquals("Every valid line should be read", count + 1, entries.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals("Entries should keep file order", String.format("B%05d", i), entries.get(i).getBoatId());
+                assertEquals("Coordinates should be parsed", 20.0 + (i % 10) / 10.0, entries.get(i).getLatitude(), 1e-9);
+            }
+            assertEquals("Last line needs no terminator", "B99999", entries.get(count).getBoatId());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that the bundled JSON example and a JSON file with escapes,
+     * unknown members and invalid entries parse like their CSV
+     * equivalents.
+     */
+    @Test
+    public void testReadBoatsFromJson() throws IOException {
+        List<BoatFileReader.BoatEntry> example = BoatFileReader.readBoatsFromJson("boats_input_example.json");
+        assertFalse("Example should contain entries", example.isEmpty());
+        assertEquals("First example entry should match", "CHIP001", example.get(0).getChipId());
+        assertEquals("Coordinates should be parsed", 40.2, example.get(0).getLongitude(), 0.0);
+
+        String json = "{\"source\": {\"name\": \"feed\", \"tags\": [1, \"]\", {}]},\n"
+                + " \"boats\": [\n"
+                + "  {\"boatId\": \"B0001\", \"chipId\": \"CHIP\\u00e9\\\"1\", \"latitude\": 20.5,"
+                + " \"longitude\": -4.02e1, \"timestamp\": \"2025-12-07 10:00\", \"speed\": null},\n"
+                + "  {\"boatId\": \"B0002\", \"chipId\": \"CHIP002\", \"latitude\": \"north\","
+                + " \"longitude\": 40.5, \"timestamp\": \"2025-12-07 10:15\"},\n"
+                + "  {\"boatId\": \"B0003\", \"chipId\": \"CHIP003\", \"longitude\": 40.5,"
+                + " \"timestamp\": \"2025-12-07 10:15\"},\r\n"
+                + "  {\"boatId\": null, \"chipId\": \"CHIP005\", \"latitude\": 20.5, \"longitude\": 40.5,"
+                + " \"timestamp\": \"2025-12-07 10:30\"},\n"
+                + "  {\"boatId\": \"B0006\", \"chipId\": true, \"latitude\": 20.5, \"longitude\": 40.5,"
+                + " \"timestamp\": \"2025-12-07 10:30\"},\n"
+                + "  {\"timestamp\": \"2025-12-07 23:59\", \"longitude\": 41, \"latitude\": 19.25,"
+                + " \"chipId\": \"CHIP004\", \"boatId\": \"B0004\"}\n"
+                + " ]}\n";
+        Path file = Files.createTempFile("boats", ".json");
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        try {
+            BoatDetectionSystem system = new BoatDetectionSystem();
+            LoadReport report = BoatFileReader.loadBoatsQuietly(system, file.toString());
+            assertEquals("Valid entries should load", 2, report.getLoadedCount());
+            assertEquals("Invalid entries should be counted", 4, report.getInvalidLineCount());
+            assertEquals("Literals should not pass as strings", "entry 4: boatId must be a string",
+                    report.getFailures().get(2));
+            assertEquals("Literals should not pass as strings", "entry 5: chipId must be a string",
+                    report.getFailures().get(3));
+
+            List<BoatFileReader.BoatEntry> entries = BoatFileReader.readBoatsFromJson(file.toString());
+            assertEquals("Escapes should be resolved", "CHIP\u00e9\"1", entries.get(0).getChipId());
+            assertEquals("Exponents should be parsed", -40.2, entries.get(0).getLongitude(), 0.0);
+            assertEquals("Member order should not matter",
+                    new BoatFileReader.BoatEntry("B0004", "CHIP004", 19.25, 41.0,
+                            LocalDateTime.of(2025, 12, 7, 23, 59)).toString(),
+                    entries.get(1).toString());
+
+            // Large enough for values to straddle the read buffer
+            StringBuilder csv = new StringBuilder();
+            StringBuilder large = new StringBuilder("{\"boats\": [");
+            for (int i = 0; i < 2000; i++) {
+                String id = String.format("B%04d", i);
+                String lat = String.format("%d.%06d", 18 + i % 5, i * 37);
+                String time = String.format("2025-12-07 %02d:%02d", 6 + i % 12, i % 60);
+                csv.append(id).append(",CHIP").append(i).append(',').append(lat).append(",40.125,").append(time).append('\n');
+                large.append(i == 0 ? "" : ",").append("\n    {\"boatId\": \"").append(id)
+                        .append("\", \"chipId\": \"CHIP").append(i).append("\", \"latitude\": ").append(lat)
+                        .append(", \"longitude\": 40.125, \"timestamp\": \"").append(time).append("\"}");
+            }
+            Files.write(file, large.append("]}").toString().getBytes(StandardCharsets.UTF_8));
+            Path csvFile = writeTempFile(csv.toString());
+            try {
+                List<BoatFileReader.BoatEntry> fromCsv = BoatFileReader.readBoatsFromFile(csvFile.toString());
+                List<BoatFileReader.BoatEntry> fromJson = BoatFileReader.readBoatsFromJson(file.toString());
+                assertEquals("JSON and CSV should hold the same entries", fromCsv.size(), fromJson.size());
+                for (int i = 0; i < fromCsv.size(); i++) {
+                    assertEquals("Chips should match", fromCsv.get(i).getChipId(), fromJson.get(i).getChipId());
+                    assertEquals("Latitudes should match", fromCsv.get(i).getLatitude(), fromJson.get(i).getLatitude(), 0.0);
+                    assertEquals("Times should match", fromCsv.get(i).getTimestamp(), fromJson.get(i).getTimestamp());
+                }
+            } finally {
+                Files.delete(csvFile);
+            }
+
+            // A member name ending exactly at the end of the read buffer
+            String head = "{\"boats\": [";
+            String member = "{\"boatId\": \"B0001\", \"chipId\": \"CHIP001\", \"latitude\"";
+            String padded = head + " ".repeat(BoatFileReader.JSON_BUFFER_CHARS - head.length() - member.length())
+                    + member + ": 20.5, \"longitude\": 40.2, \"timestamp\": \"2025-12-07 10:00\"}]}"
+                    + " ".repeat(BoatFileReader.JSON_BUFFER_CHARS);
+            Files.write(file, padded.getBytes(StandardCharsets.UTF_8));
+            assertEquals("Members split by a buffer refill should be read", 20.5,
+                    BoatFileReader.readBoatsFromJson(file.toString()).get(0).getLatitude(), 0.0);
+
+            Files.write(file, "{\"boats\": [{\"boatId\": \"B0001\" \"chipId\": 1}]}".getBytes(StandardCharsets.UTF_8));
+            try {
+                BoatFileReader.readBoatsFromJson(file.toString());
+                fail("Malformed JSON should be rejected");
+            } catch (IOException expected) {
+                // expected
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    static Path writeTempFile(String content) throws IOException {
+        Path file = Files.createTempFile("boats", ".csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
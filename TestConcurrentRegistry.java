@@ -0,0 +1,110 @@
+package com.boattracking;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Stress tests for the boat registry when several receivers register
+ * boats and report positions at the same time.
+ */
+public class TestConcurrentRegistry {
+
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final int BOATS_PER_THREAD = 500;
+    private static final int UPDATES_PER_BOAT = 20;
+
+    /**
+     * Verifies that boats registered concurrently all receive unique
+     * identifiers and none of them are lost from the registry.
+     */
+    @Test
+    public void testConcurrentAddBoat() throws Exception {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        List<List<Boat>> added = runInParallel(thread -> {
+            List<Boat> result = new ArrayList<>();
+            for (int i = 0; i < BOATS_PER_THREAD; i++) {
+                result.add(system.addBoat("chip-" + thread + "-" + i));
+            }
+            return result;
+        });
+        Set<String> ids = new HashSet<>();
+        for (List<Boat> boats : added) {
+            for (Boat boat : boats) {
+                assertTrue("Boat IDs should be unique", ids.add(boat.getId()));
+                assertEquals("Boat should be retrievable", boat, system.getBoat(boat.getId()));
+            }
+        }
+        assertEquals("No boat should be lost", THREADS * BOATS_PER_THREAD, system.getAllBoats().size());
+    }
+
+    /**
+     * Verifies that concurrent updates to a shared set of boats never
+     * lose an alert.  Every update is outside operating hours, so each
+     * one must produce exactly one TIME_EXCEEDED alert.
+     */
+    @Test
+    public void testConcurrentUpdatesKeepEveryAlert() throws Exception {
+        int expected = THREADS * UPDATES_PER_BOAT * BOATS_PER_THREAD;
+        BoatDetectionSystem system = new BoatDetectionSystem(expected);
+        List<Boat> fleet = new ArrayList<>();
+        for (int i = 0; i < BOATS_PER_THREAD; i++) {
+            fleet.add(system.addBoat("shared-" + i));
+        }
+        LocalDateTime night = LocalDateTime.of(2025, 1, 1, 22, 0);
+        List<Integer> raised = runInParallel(thread -> {
+            int count = 0;
+            for (int u = 0; u < UPDATES_PER_BOAT; u++) {
+                for (Boat boat : fleet) {
+                    count += system.updateBoatLocation(boat.getId(), 20.0, 40.0, night).size();
+                }
+            }
+            return count;
+        });
+        int total = 0;
+        for (int count : raised) {
+            total += count;
+        }
+        assertEquals("Every update should raise an alert", expected, total);
+        assertEquals("Alert log should hold every alert", expected, system.getAlertLog().size());
+        for (Boat boat : fleet) {
+            assertEquals("Boat should be RED", Status.RED, boat.getStatus());
+        }
+    }
+
+    private interface Task<T> {
+        T run(int thread) throws Exception;
+    }
+
+    private static <T> List<T> runInParallel(Task<T> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch startGate = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(pool.submit(() -> {
+                    startGate.await();
+                    return task.run(thread);
+                }));
+            }
+            startGate.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.boattracking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the binary fleet snapshot format.
+ */
+public class TestFleetSnapshot {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Verifies that boats, alerts, numbering and restricted zones,
+     * including polygons, survive a save and load.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        BoatDetectionSystem system = new BoatDetectionSystem(50);
+        system.clearRestrictedZones();
+        system.addRestrictedZone(19.0, 19.5, 39.5, 40.0);
+        system.addRestrictedZone(GeoPolygon.of(new double[] {21.0, 40.0, 21.5, 40.0, 21.5, 40.5}));
+        system.setAlertMode(AlertMode.TRANSITIONS);
+        LocalDateTime t = LocalDateTime.of(2025, 5, 5, 8, 30, 15, 250_000_000);
+        for (int i = 0; i < 1000; i++) {
+            Boat boat = system.addBoat("chip" + i);
+            system.updateBoatLocation(boat.getId(), 18.5 + i * 0.004, 39.2 + i * 0.002, t.plusSeconds(i));
+        }
+        system.getOrAddBoat("never-reported");
+
+        Path file = temp.getRoot().toPath().resolve("fleet.snapshot");
+        FleetSnapshot.save(system, file);
+        BoatDetectionSystem loaded = FleetSnapshot.load(file);
+
+        assertEquals("All boats should be loaded", 1001, loaded.getBoatCount());
+        for (Boat boat : system.getAllBoats()) {
+            Boat copy = loaded.getBoat(boat.getId());
+            assertEquals("Chip should match", boat.getChipId(), copy.getChipId());
+            assertEquals("Latitude should match", boat.getLatitude(), copy.getLatitude(), 0.0);
+            assertEquals("Fix time should match", boat.getLastUpdate(), copy.getLastUpdate());
+            assertEquals("Status should match", boat.getStatus(), copy.getStatus());
+        }
+        assertNull("A boat without fixes should stay without fixes", loaded.getBoat("B1001").getLastUpdate());
+        assertEquals("Alert capacity should be kept", 50, loaded.getAlertLog().size());
+        assertEquals("Alert mode should be kept", AlertMode.TRANSITIONS, loaded.getAlertMode());
+        assertEquals("Numbering should continue", "B1002", loaded.addBoat("chipX").getId());
+
+        List<double[]> zones = loaded.getRestrictedZones();
+        assertEquals("Only the saved zones should be loaded", 2, zones.size());
+        assertTrue("Rectangle should be kept",
+                Arrays.equals(new double[] {19.0, 19.5, 39.5, 40.0}, zones.get(0)));
+        Boat probe = loaded.addBoat("probe");
+        loaded.updateBoatLocation(probe.getId(), 21.4, 40.05, t);
+        assertEquals("Polygon zone should be enforced", Status.RED, probe.getStatus());
+        loaded.updateBoatLocation(probe.getId(), 21.1, 40.45, t);
+        assertNotEquals("Points outside the polygon should not match", Status.RED, probe.getStatus());
+    }
+
+    /**
+     * Verifies that files that are not snapshots, or are cut short, are
+     * rejected with an exception.
+     */
+    @Test
+    public void testRejectsDamagedFiles() throws IOException {
+        Path dir = temp.getRoot().toPath();
+        Path notSnapshot = dir.resolve("boats.csv");
+        Files.write(notSnapshot, "B0001,CHIP001,20.5,40.2,2025-12-07 10:00\n".getBytes("UTF-8"));
+        try {
+            FleetSnapshot.load(notSnapshot);
+            fail("A CSV file should not load as a snapshot");
+        } catch (IOException expected) {
+            // expected
+        }
+
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        system.addBoat("chip1");
+        Path file = dir.resolve("fleet.snapshot");
+        FleetSnapshot.save(system, file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        try {
+            FleetSnapshot.load(file);
+            fail("A truncated snapshot should not load");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.boattracking;
+
+import java.time.LocalDateTime;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the columnar fleet store.
+ */
+public class TestFleetStore {
+
+    /**
+     * Verifies that slots are stable while the store grows and that
+     * status scans see every boat.
+     */
+    @Test
+    public void testAddUpdateAndScan() {
+        FleetStore store = new FleetStore(4);
+        for (int i = 0; i < 1000; i++) {
+            int slot = store.add(String.format("B%04d", i), "chip" + i);
+            assertEquals("Slots should be assigned in order", i, slot);
+            store.update(slot, 20.0 + i * 0.001, 40.0, 1_000L * i, i % 10 == 0 ? Status.RED : Status.GREEN);
+        }
+        assertEquals("All boats should be stored", 1000, store.size());
+        assertEquals("Slot lookup should survive growth", 500, store.slotOf("B0500"));
+        assertEquals("Latitude should be kept", 20.5, store.getLatitude(500), 1e-9);
+        assertEquals("RED boats should be counted", 100, store.countByStatus(Status.RED));
+        int[] red = store.slotsWithStatus(Status.RED);
+        assertEquals("Every tenth slot should be RED", 990, red[99]);
+        assertEquals("Unknown boat should have no slot", -1, store.slotOf("B9999"));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("Every boat should be found", i, store.slotOf(String.format("B%04d", i)));
+        }
+        try {
+            store.add("B0042", "chip42");
+            fail("Duplicate boat should be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            store.update(0, 20.0, 40.0, 0L, null);
+            fail("Null status should be rejected");
+        } catch (NullPointerException expected) {
+        }
+        assertEquals("Rejected update should leave the status", Status.RED, store.getStatus(0));
+    }
+
+    /**
+     * Verifies that the registry of the system lives in its store: boats
+     * are views of slots, updates are visible in the columns and the
+     * status lists follow status changes.
+     */
+    @Test
+    public void testSystemRegistry() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        Boat boat = system.addBoat("chipCol");
+        Boat idle = system.addBoat("chipIdle");
+        LocalDateTime time = LocalDateTime.of(2025, 1, 1, 10, 0);
+        system.updateBoatLocation(boat.getId(), 24.0, 43.0, time);
+
+        FleetStore store = system.getFleetStore();
+        int slot = store.slotOf(boat.getId());
+        assertEquals("Chip index should find the boat", slot, store.slotOfChip("chipCol"));
+        assertEquals("Status should be stored", Status.RED, store.getStatus(slot));
+        assertEquals("Open violation should be stored", AlertType.AREA_BREACH, store.getOpenViolation(slot));
+        assertEquals("Fix time should be epoch millis", time.toInstant(BoatDetectionSystem.LOCAL_OFFSET).toEpochMilli(), store.getFixTime(slot));
+        assertEquals("Idle boat should have no fix", FleetStore.NO_FIX, store.getFixTime(store.slotOf(idle.getId())));
+        assertEquals("Views of one slot should be equal", boat, system.getBoat(boat.getId()));
+        assertEquals("Views of one slot should hash alike", boat.hashCode(), system.getBoatByChip("chipCol").hashCode());
+
+        system.updateBoatLocation(boat.getId(), 20.0, 40.0, time.plusHours(1));
+        assertEquals("Boats should not be duplicated", 2, store.size());
+        assertEquals("Status should be current", Status.GREEN, store.getStatus(slot));
+        assertEquals("Views should read the store", 20.0, boat.getLatitude(), 0.0);
+        assertEquals("Status lists should follow changes", 2, store.countByStatus(Status.GREEN));
+        idle.setStatus(Status.YELLOW);
+        assertArrayEquals("Status lists should follow direct changes", new int[] {store.slotOf(idle.getId())},
+                store.slotsWithStatus(Status.YELLOW));
+        assertEquals("Filtering should go through the lists", idle, system.filterBoatsByStatus(Status.YELLOW).get(0));
+    }
+
+    /**
+     * Verifies that a copy keeps slots, state and status lists, and is
+     * not affected by later updates of the original, and that a copy of
+     * the columns alone keeps the state by slot.
+     */
+    @Test
+    public void testCopy() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        for (int i = 0; i < 100; i++) {
+            Boat boat = system.addBoat("chip" + i);
+            system.updateBoatLocation(boat.getId(), i % 2 == 0 ? 25.0 : 20.0, 40.0, LocalDateTime.of(2025, 1, 1, 10, i % 60));
+        }
+        FleetStore copy = system.getFleetStore().copy();
+        FleetStore columns = system.getFleetStore().copyColumns();
+        system.updateBoatLocation(system.getBoatByChip("chip0").getId(), 20.0, 40.0, LocalDateTime.of(2025, 1, 1, 11, 0));
+        assertEquals("Copy should hold every boat", 100, copy.size());
+        assertEquals("Copy should keep slots", 42, copy.slotOfChip("chip42"));
+        assertEquals("Copy should keep state", 25.0, copy.getLatitude(0), 0.0);
+        assertEquals("Copy should keep status lists", 50, copy.slotsWithStatus(Status.RED).length);
+        assertEquals("Original should move on", 49, system.countBoatsByStatus(Status.RED));
+        assertEquals("Column copy should keep state", 25.0, columns.getLatitude(0), 0.0);
+        assertEquals("Column copy should keep identifiers", "chip42", columns.getChipId(42));
+        assertEquals("Column copy should have no index", -1, columns.slotOfChip("chip42"));
+    }
+}
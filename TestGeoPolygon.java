@@ -0,0 +1,94 @@
+package com.boattracking;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for polygonal restricted zones.
+ */
+public class TestGeoPolygon {
+
+    /**
+     * Verifies containment for a square zone with a square hole.
+     */
+    @Test
+    public void testPolygonWithHole() {
+        GeoPolygon zone = GeoPolygon.of(
+                new double[]{20.0, 40.0, 20.0, 41.0, 21.0, 41.0, 21.0, 40.0},
+                new double[]{20.4, 40.4, 20.4, 40.6, 20.6, 40.6, 20.6, 40.4});
+        assertTrue("Point in outer ring should be inside", zone.contains(20.2, 40.2));
+        assertFalse("Point in hole should be outside", zone.contains(20.5, 40.5));
+        assertFalse("Point beyond bounding box should be outside", zone.contains(22.0, 40.5));
+    }
+
+    /**
+     * Verifies containment for a zone made of two disjoint triangles.
+     */
+    @Test
+    public void testMultiPolygon() {
+        GeoPolygon zone = GeoPolygon.of(
+                new double[]{19.0, 39.5, 19.5, 39.5, 19.0, 40.0},
+                new double[]{22.0, 41.0, 22.5, 41.0, 22.0, 41.5});
+        assertTrue("Point in first part should be inside", zone.contains(19.1, 39.6));
+        assertTrue("Point in second part should be inside", zone.contains(22.1, 41.1));
+        assertFalse("Point between parts should be outside", zone.contains(20.5, 40.5));
+        assertFalse("Point beyond hypotenuse should be outside", zone.contains(19.4, 39.9));
+    }
+
+    /**
+     * Verifies a star shaped polygon with thousands of vertices against a
+     * plain ray cast over every edge.
+     */
+    @Test
+    public void testLargePolygonMatchesRayCast() {
+        int n = 5000;
+        double[] ring = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            double radius = (i % 2 == 0) ? 0.5 : 0.3;
+            ring[2 * i] = 20.5 + radius * Math.sin(angle);
+            ring[2 * i + 1] = 40.5 + radius * Math.cos(angle);
+        }
+        GeoPolygon zone = GeoPolygon.of(ring);
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            double lat = 19.9 + random.nextDouble() * 1.2;
+            double lon = 39.9 + random.nextDouble() * 1.2;
+            assertEquals("Band lookup should agree with a full ray cast", rayCast(ring, lat, lon), zone.contains(lat, lon));
+        }
+    }
+
+    /**
+     * Verifies that a polygonal zone registered in the system raises a
+     * RESTRICTED_ZONE alert only for points inside the polygon.
+     */
+    @Test
+    public void testPolygonRestrictedZone() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        system.addRestrictedZone(GeoPolygon.of(new double[]{19.0, 39.5, 19.5, 39.5, 19.0, 40.0}));
+        Boat boat = system.addBoat("chipPoly");
+        system.updateBoatLocation(boat.getId(), 19.4, 39.9, LocalDateTime.of(2025, 1, 1, 10, 0));
+        assertEquals("Boat outside triangle but inside its box should be GREEN", Status.GREEN, boat.getStatus());
+        system.updateBoatLocation(boat.getId(), 19.1, 39.6, LocalDateTime.of(2025, 1, 1, 10, 5));
+        assertEquals("Boat inside triangle should be RED", Status.RED, boat.getStatus());
+        assertEquals("Alert should be RESTRICTED_ZONE", AlertType.RESTRICTED_ZONE, system.getAlertLog().get(0).getType());
+    }
+
+    private static boolean rayCast(double[] ring, double lat, double lon) {
+        int n = ring.length / 2;
+        boolean inside = false;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double latI = ring[2 * i];
+            double lonI = ring[2 * i + 1];
+            double latJ = ring[2 * j];
+            double lonJ = ring[2 * j + 1];
+            if ((latI > lat) != (latJ > lat)
+                    && lon < lonI + (lat - latI) * (lonJ - lonI) / (latJ - latI)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
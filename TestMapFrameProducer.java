@@ -0,0 +1,86 @@
+package com.boattracking;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the background map frame producer.
+ */
+public class TestMapFrameProducer {
+
+    /**
+     * Verifies that frames are built on the worker thread, that no new
+     * frame is built until the previous one was applied, and that boats
+     * changed in the meantime end up in the next frame.
+     */
+    @Test
+    public void testFramesWaitForApplication() throws InterruptedException {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        Boat a = system.addBoat("chipA");
+        Boat b = system.addBoat("chipB");
+        BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+        BlockingQueue<String> threads = new LinkedBlockingQueue<>();
+        MapFrameProducer producer = new MapFrameProducer(system, 5, (source, frame) -> {
+            threads.add(Thread.currentThread().getName());
+            frames.add(frame);
+        });
+        producer.start();
+        try {
+            String first = frames.poll(5, TimeUnit.SECONDS);
+            assertNotNull("First frame should be built", first);
+            assertEquals("First frame should hold the whole fleet", 2, changedCount(first));
+            assertEquals("Frame should be built by the worker", "map-frame-producer", threads.take());
+
+            LocalDateTime noon = LocalDateTime.of(2025, 1, 1, 12, 0);
+            system.updateBoatLocation(a.getId(), 20.0, 40.0, noon);
+            assertNull("No frame while the previous one is in flight", frames.poll(50, TimeUnit.MILLISECONDS));
+            system.updateBoatLocation(b.getId(), 20.1, 40.1, noon);
+
+            producer.frameApplied();
+            String second = frames.poll(5, TimeUnit.SECONDS);
+            assertNotNull("Next frame should follow once applied", second);
+            assertEquals("Changes made while waiting should be merged", 2, changedCount(second));
+        } finally {
+            producer.stop();
+        }
+    }
+
+    /**
+     * Verifies that a frame the sink fails to take is not lost: the map
+     * does not stall waiting for it, and its boats are sent again.
+     */
+    @Test
+    public void testFailedHandoffIsResent() throws InterruptedException {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        system.addBoat("chipA");
+        system.addBoat("chipB");
+        BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+        AtomicInteger attempts = new AtomicInteger();
+        MapFrameProducer producer = new MapFrameProducer(system, 5, (source, frame) -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("UI not ready");
+            }
+            frames.add(frame);
+        });
+        producer.start();
+        try {
+            String frame = frames.poll(5, TimeUnit.SECONDS);
+            assertNotNull("A frame should follow the failed one", frame);
+            assertEquals("The failed frame's boats should be sent again", 2, changedCount(frame));
+        } finally {
+            producer.stop();
+        }
+    }
+
+    private static int changedCount(String frame) {
+        return ByteBuffer.wrap(Base64.getDecoder().decode(frame)).order(ByteOrder.LITTLE_ENDIAN).getInt(0);
+    }
+}
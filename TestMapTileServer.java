@@ -0,0 +1,76 @@
+package com.boattracking;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the local map tile and asset server.
+ */
+public class TestMapTileServer {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Verifies that assets and tiles are served from the map directory,
+     * that repeated tile reads come from memory and that paths outside
+     * the directory or the region are refused.
+     */
+    @Test
+    public void testServesAssetsAndCachedTiles() throws IOException {
+        Path mapDir = temp.newFolder("map").toPath();
+        Files.createDirectories(mapDir.resolve("leaflet"));
+        Files.write(mapDir.resolve("leaflet").resolve("leaflet.js"), "var L = {};".getBytes("UTF-8"));
+        int z = 8;
+        int x = MapTileServer.tileX(40.0, z);
+        int y = MapTileServer.tileY(21.0, z);
+        Path tile = mapDir.resolve("tiles").resolve(String.valueOf(z)).resolve(String.valueOf(x)).resolve(y + ".png");
+        Files.createDirectories(tile.getParent());
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3};
+        Files.write(tile, png);
+
+        MapTileServer server = MapTileServer.startIfPresent(mapDir);
+        assertNotNull("Server should start when a Leaflet bundle exists", server);
+        try {
+            String base = server.getBaseUrl();
+            assertArrayEquals("Asset should be served", "var L = {};".getBytes("UTF-8"), fetch(base + "/leaflet/leaflet.js"));
+
+            String tileUrl = base + "/tiles/" + z + "/" + x + "/" + y + ".png";
+            assertArrayEquals("Tile should be served", png, fetch(tileUrl));
+            Files.delete(tile);
+            assertArrayEquals("Tile should be served from memory", png, fetch(tileUrl));
+            assertEquals("Second read should hit the cache", 1, server.getCacheHits());
+
+            assertNull("Missing tile should be 404", fetch(base + "/tiles/" + z + "/" + x + "/" + (y + 1) + ".png"));
+            assertNull("Tile outside the region should be 404", fetch(base + "/tiles/" + z + "/0/0.png"));
+            assertNull("Out-of-range tile numbers should be 404",
+                    fetch(base + "/tiles/" + z + "/99999999999/" + y + ".png"));
+            assertNull("Paths outside the bundle should be refused", fetch(base + "/leaflet/../tiles/" + z));
+        } finally {
+            server.stop();
+        }
+        assertNull("No server without a Leaflet bundle", MapTileServer.startIfPresent(mapDir.resolve("missing")));
+    }
+
+    private static byte[] fetch(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            if (connection.getResponseCode() != 200) {
+                return null;
+            }
+            try (InputStream in = connection.getInputStream()) {
+                return in.readAllBytes();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
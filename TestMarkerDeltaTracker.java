@@ -0,0 +1,61 @@
+package com.boattracking;
+
+import java.time.LocalDateTime;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the map marker delta tracker.
+ */
+public class TestMarkerDeltaTracker {
+
+    /**
+     * Verifies that the first frame sends every boat and later frames
+     * only send boats that moved or changed status.
+     */
+    @Test
+    public void testOnlyChangedBoatsAreSent() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        Boat a = system.addBoat("chipA");
+        Boat b = system.addBoat("chipB");
+        system.addBoat("chipC");
+        MarkerDeltaTracker tracker = new MarkerDeltaTracker();
+
+        MarkerDeltaTracker.Delta first = tracker.nextFrame(system);
+        assertEquals("First frame should send every boat", 3, first.getChangedSlots().length);
+        assertTrue("Nothing should be removed", first.getRemovedIds().isEmpty());
+
+        assertTrue("An idle fleet should produce an empty delta", tracker.nextFrame(system).isEmpty());
+
+        LocalDateTime noon = LocalDateTime.of(2025, 1, 1, 12, 0);
+        system.updateBoatLocation(a.getId(), 20.0, 40.0, noon);
+        system.updateBoatLocation(b.getId(), 20.75, 40.75, noon);
+        MarkerDeltaTracker.Delta moved = tracker.nextFrame(system);
+        assertEquals("Only the two moved boats should be sent", 2, moved.getChangedSlots().length);
+
+        FleetStore state = tracker.getState();
+        int slotB = state.slotOf(b.getId());
+        assertEquals("Sent state should hold the new status", Status.RED, state.getStatus(slotB));
+        assertEquals("Sent state should hold the new position", 20.75, state.getLatitude(slotB), 1e-9);
+
+        system.updateBoatLocation(a.getId(), 20.0, 40.0, noon.plusMinutes(1));
+        assertTrue("A repeated fix at the same place should not be sent", tracker.nextFrame(system).isEmpty());
+    }
+
+    /**
+     * Verifies that a fresh tracker resends the whole fleet, as needed
+     * after the map page is reloaded.
+     */
+    @Test
+    public void testFreshTrackerResendsEverything() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        for (int i = 0; i < 100; i++) {
+            system.addBoat("chip" + i);
+        }
+        MarkerDeltaTracker tracker = new MarkerDeltaTracker();
+        tracker.nextFrame(system);
+        assertTrue("Second frame should be empty", tracker.nextFrame(system).isEmpty());
+        assertEquals("A new tracker should send all boats", 100,
+                new MarkerDeltaTracker().nextFrame(system).getChangedSlots().length);
+    }
+}
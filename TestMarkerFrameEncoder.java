@@ -0,0 +1,55 @@
+package com.boattracking;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the binary map frame encoding.
+ */
+public class TestMarkerFrameEncoder {
+
+    /**
+     * Verifies the frame layout, and that identifiers are only sent for
+     * slots the page has not seen yet.
+     */
+    @Test
+    public void testFrameLayout() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        Boat a = system.addBoat("chipA");
+        Boat b = system.addBoat("chipB");
+        MarkerDeltaTracker tracker = new MarkerDeltaTracker();
+        MarkerFrameEncoder encoder = new MarkerFrameEncoder();
+
+        ByteBuffer first = decode(encoder.encode(tracker.nextFrame(system), tracker.getState()));
+        assertEquals("Both boats should be sent", 2, first.getInt(0));
+        assertEquals("Nothing should be removed", 0, first.getInt(4));
+        assertEquals("New identifiers should start at slot 0", 0, first.getInt(8));
+        int idBytes = first.getInt(12);
+        byte[] ids = new byte[idBytes];
+        first.position(MarkerFrameEncoder.HEADER_BYTES + 2 * MarkerFrameEncoder.RECORD_BYTES);
+        first.get(ids);
+        assertEquals("Identifiers should be listed by slot",
+                a.getId() + "\n" + b.getId(), new String(ids, StandardCharsets.UTF_8));
+
+        system.updateBoatLocation(b.getId(), 20.75, 40.75, LocalDateTime.of(2025, 1, 1, 12, 0));
+        ByteBuffer second = decode(encoder.encode(tracker.nextFrame(system), tracker.getState()));
+        assertEquals("Only the moved boat should be sent", 1, second.getInt(0));
+        assertEquals("No identifiers should be resent", 0, second.getInt(12));
+        assertEquals("Frame should hold exactly one record",
+                MarkerFrameEncoder.HEADER_BYTES + MarkerFrameEncoder.RECORD_BYTES, second.limit());
+        int pos = MarkerFrameEncoder.HEADER_BYTES;
+        assertEquals("Record should address the boat's slot", 1, second.getInt(pos));
+        assertEquals("Latitude should be exact", 20.75, second.getDouble(pos + 4), 0.0);
+        assertEquals("Longitude should be exact", 40.75, second.getDouble(pos + 12), 0.0);
+        assertEquals("Status should be its ordinal", Status.RED.ordinal(), second.get(pos + 20));
+    }
+
+    private static ByteBuffer decode(String frame) {
+        return ByteBuffer.wrap(Base64.getDecoder().decode(frame)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,62 @@
+package com.boattracking;
+
+import java.time.LocalDateTime;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the per-boat position history.
+ */
+public class TestTrackStore {
+
+    /**
+     * Verifies that fixes spanning several chunks round-trip and that
+     * range queries return exactly the fixes inside the range.
+     */
+    @Test
+    public void testRangeQueries() {
+        TrackStore store = new TrackStore();
+        long start = 1_700_000_000_000L;
+        int fixes = TrackStore.FIXES_PER_CHUNK * 3 + 10;
+        for (int i = 0; i < fixes; i++) {
+            store.append("B0001", start + i * 5_000L, 20.0 + i * 1e-5, 40.0 - i * 2e-5);
+        }
+        store.append("B0002", start, 21.0, 41.0);
+        assertEquals("All fixes should be counted", fixes, store.getFixCount("B0001"));
+
+        TrackStore.Track all = store.getTrack("B0001", Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals("Whole track should be returned", fixes, all.size());
+        assertEquals("Last fix time should round-trip", start + (fixes - 1) * 5_000L, all.getTime(fixes - 1));
+        assertEquals("Latitude should round-trip", 20.0 + 2000 * 1e-5, all.getLatitude(2000), 1e-7);
+        assertEquals("Longitude should round-trip", 40.0 - 2000 * 2e-5, all.getLongitude(2000), 1e-7);
+
+        TrackStore.Track range = store.getTrack("B0001", start + 1000 * 5_000L, start + 1100 * 5_000L);
+        assertEquals("Range should be inclusive at both ends", 101, range.size());
+        assertEquals("Range should start at the first matching fix", start + 1000 * 5_000L, range.getTime(0));
+
+        assertEquals("Other boats should be kept apart", 1, store.getTrack("B0002", start, start).size());
+        assertEquals("Unknown boat should have an empty track", 0, store.getTrack("B9999", start, start).size());
+        assertTrue("Small moves should encode compactly", store.getEncodedBytes() < fixes * 8L);
+    }
+
+    /**
+     * Verifies that the system records applied fixes once a track store
+     * is installed.
+     */
+    @Test
+    public void testSystemRecordsFixes() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        TrackStore store = new TrackStore();
+        system.setTrackStore(store);
+        Boat boat = system.addBoat("chip1");
+        LocalDateTime t = LocalDateTime.of(2025, 6, 1, 10, 0);
+        for (int i = 0; i < 10; i++) {
+            system.updateBoatLocation(boat.getId(), 20.0 + i * 0.01, 40.0, t.plusMinutes(i));
+        }
+        TrackStore.Track track = store.getTrack(boat.getId(), t.plusMinutes(2), t.plusMinutes(4));
+        assertEquals("Three fixes should fall in the range", 3, track.size());
+        assertEquals("Fix times should match the updates",
+                BoatDetectionSystem.toEpochMillis(t.plusMinutes(2)), track.getTime(0));
+        assertEquals("Positions should match the updates", 20.02, track.getLatitude(0), 1e-7);
+    }
+}
@@ -0,0 +1,190 @@
+package com.boattracking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for journaling and recovery of the system state.
+ */
+public class TestWriteAheadLog {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    /**
+     * Verifies that state written before a crash, both before and after a
+     * checkpoint, is recovered exactly, and that a torn record at the end
+     * of the log is ignored.
+     */
+    @Test
+    public void testRecoverAfterCrash() throws IOException {
+        Path dir = temp.getRoot().toPath();
+        BoatDetectionSystem system = WriteAheadLog.recover(dir);
+        WriteAheadLog wal = WriteAheadLog.open(dir, system, 60_000, 0);
+        try {
+            Boat a = system.addBoat("chipA");
+            Boat b = system.addBoat("chipB");
+            system.updateBoatLocation(a.getId(), 20.1, 40.1, NOON);
+            system.updateBoatLocation(b.getId(), 20.75, 40.75, NOON);
+            wal.checkpoint();
+            Boat c = system.getOrAddBoat("chipC");
+            system.updateBoatLocation(c.getId(), 17.0, 40.0, NOON.plusMinutes(5));
+            system.updateBoatLocation(a.getId(), 18.05, 40.2, NOON.plusMinutes(6));
+            wal.sync();
+
+            // A record cut short by the crash
+            Files.write(dir.resolve(WriteAheadLog.LOG_FILE), new byte[] {0, 0, 0, 40, 1, 2, 3},
+                    StandardOpenOption.APPEND);
+
+            BoatDetectionSystem recovered = WriteAheadLog.recover(dir);
+            assertEquals("All boats should be recovered", 3, recovered.getBoatCount());
+            for (Boat boat : system.getAllBoats()) {
+                Boat copy = recovered.getBoat(boat.getId());
+                assertNotNull("Boat " + boat.getId() + " should be recovered", copy);
+                assertEquals("Chip should match", boat.getChipId(), copy.getChipId());
+                assertEquals("Latitude should match", boat.getLatitude(), copy.getLatitude(), 0.0);
+                assertEquals("Longitude should match", boat.getLongitude(), copy.getLongitude(), 0.0);
+                assertEquals("Fix time should match", boat.getLastUpdate(), copy.getLastUpdate());
+                assertEquals("Status should match", boat.getStatus(), copy.getStatus());
+                assertEquals("Open violation should match", boat.getOpenViolation(), copy.getOpenViolation());
+            }
+            assertEquals("Alerts should be recovered", system.getAlertLog().size(), recovered.getAlertLog().size());
+            assertEquals("Alert messages should match",
+                    system.getAlertLog().get(1).getMessage(), recovered.getAlertLog().get(1).getMessage());
+            assertEquals("Status index should be rebuilt", system.countBoatsByStatus(Status.RED),
+                    recovered.countBoatsByStatus(Status.RED));
+            assertEquals("Chip index should be rebuilt", recovered.getBoat(c.getId()), recovered.getBoatByChip("chipC"));
+            assertEquals("New boats should continue the numbering", "B0004", recovered.addBoat("chipD").getId());
+        } finally {
+            wal.close();
+        }
+    }
+
+    /**
+     * Verifies that updates journaled from several threads at once, which
+     * go through different buffers, are all recovered in order per boat.
+     */
+    @Test
+    public void testConcurrentUpdatesRecovered() throws Exception {
+        Path dir = temp.getRoot().toPath();
+        BoatDetectionSystem system = WriteAheadLog.recover(dir);
+        WriteAheadLog wal = WriteAheadLog.open(dir, system, 5, 0);
+        try {
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                int thread = t;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        Boat boat = system.addBoat("chip" + thread + "-" + i);
+                        for (int fix = 0; fix < 20; fix++) {
+                            system.updateBoatLocation(boat.getId(), 18.5 + fix * 0.1, 39.5 + i * 0.004,
+                                    NOON.plusMinutes(fix));
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            wal.sync();
+
+            BoatDetectionSystem recovered = WriteAheadLog.recover(dir);
+            assertEquals("All boats should be recovered", 1000, recovered.getBoatCount());
+            for (Boat boat : system.getAllBoats()) {
+                Boat copy = recovered.getBoat(boat.getId());
+                assertEquals("Last fix should win", boat.getLatitude(), copy.getLatitude(), 0.0);
+                assertEquals("Status should match", boat.getStatus(), copy.getStatus());
+            }
+            assertEquals("Alerts should be recovered", system.getAlertLog().size(), recovered.getAlertLog().size());
+        } finally {
+            wal.close();
+        }
+    }
+
+    /**
+     * Verifies that a process that died after a checkpoint started a new
+     * log but before its snapshot was written recovers everything from
+     * the older snapshot and both logs, and that reopening the log then
+     * writes the missing snapshot.
+     */
+    @Test
+    public void testRecoverBeforeSnapshotWritten() throws IOException {
+        Path dir = temp.getRoot().toPath();
+        BoatDetectionSystem system = WriteAheadLog.recover(dir);
+        WriteAheadLog wal = WriteAheadLog.open(dir, system, 60_000, 0);
+        Path snapshot = dir.resolve(WriteAheadLog.SNAPSHOT_FILE);
+        Path oldSnapshot = dir.resolve("old.snapshot");
+        Path oldLog = dir.resolve("old.wal");
+        try {
+            Boat a = system.addBoat("chipA");
+            system.updateBoatLocation(a.getId(), 20.1, 40.1, NOON);
+            wal.sync();
+            Files.copy(snapshot, oldSnapshot);
+            Files.copy(dir.resolve(WriteAheadLog.LOG_FILE), oldLog);
+            wal.checkpoint();
+            assertFalse("The previous log should go once the snapshot is written",
+                    Files.exists(dir.resolve(WriteAheadLog.PREVIOUS_LOG_FILE)));
+            Boat b = system.addBoat("chipB");
+            system.updateBoatLocation(b.getId(), 17.0, 40.0, NOON.plusMinutes(1));
+            system.updateBoatLocation(a.getId(), 20.2, 40.2, NOON.plusMinutes(2));
+            wal.sync();
+        } finally {
+            wal.close();
+        }
+        // As if the process died before the new snapshot replaced the old one
+        Files.move(oldSnapshot, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(oldLog, dir.resolve(WriteAheadLog.PREVIOUS_LOG_FILE));
+
+        BoatDetectionSystem recovered = WriteAheadLog.recover(dir);
+        assertEquals("Boats of both logs should be recovered", 2, recovered.getBoatCount());
+        assertEquals("The last fix should win", 20.2, recovered.getBoat("B0001").getLatitude(), 0.0);
+        assertEquals("Alerts of both logs should be recovered", system.getAlertLog().size(),
+                recovered.getAlertLog().size());
+
+        WriteAheadLog reopened = WriteAheadLog.open(dir, recovered, 60_000, 0);
+        reopened.close();
+        assertFalse("Reopening should replace the previous log",
+                Files.exists(dir.resolve(WriteAheadLog.PREVIOUS_LOG_FILE)));
+        assertEquals("The new snapshot should hold both logs", Status.RED,
+                WriteAheadLog.recover(dir).getBoat("B0002").getStatus());
+    }
+
+    /**
+     * Verifies that a log from before the latest snapshot is not replayed
+     * on top of it, which would duplicate alerts.
+     */
+    @Test
+    public void testStaleLogIgnored() throws IOException {
+        Path dir = temp.getRoot().toPath();
+        BoatDetectionSystem system = WriteAheadLog.recover(dir);
+        WriteAheadLog wal = WriteAheadLog.open(dir, system, 60_000, 0);
+        Path log = dir.resolve(WriteAheadLog.LOG_FILE);
+        Path stale = dir.resolve("stale.wal");
+        try {
+            Boat boat = system.addBoat("chip1");
+            system.updateBoatLocation(boat.getId(), 17.0, 40.0, NOON);
+            wal.sync();
+            Files.copy(log, stale);
+            wal.checkpoint();
+            assertEquals("Checkpoint should advance the generation", 2, wal.getGeneration());
+        } finally {
+            wal.close();
+        }
+        // As if the process died after the snapshot but before truncation
+        Files.copy(stale, log, StandardCopyOption.REPLACE_EXISTING);
+        BoatDetectionSystem recovered = WriteAheadLog.recover(dir);
+        assertEquals("Alert should be recovered once", 1, recovered.getAlertLog().size());
+        assertEquals("Boat should be recovered", Status.RED, recovered.getBoat("B0001").getStatus());
+    }
+}
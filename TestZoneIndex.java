@@ -0,0 +1,75 @@
+package com.boattracking;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the grid index used to look up restricted zones.
+ */
+public class TestZoneIndex {
+
+    /**
+     * Verifies that grid lookups agree with a linear scan over many
+     * randomly placed zones, including points on zone boundaries.
+     */
+    @Test
+    public void testMatchesLinearScan() {
+        ZoneIndex index = new ZoneIndex(18.0, 23.0, 39.0, 42.0, 0.05);
+        Random random = new Random(42);
+        int zoneCount = 10_000;
+        for (int i = 0; i < zoneCount; i++) {
+            double lat = 18.0 + random.nextDouble() * 5.0;
+            double lon = 39.0 + random.nextDouble() * 3.0;
+            index.add(lat, lat + random.nextDouble() * 0.2, lon, lon + random.nextDouble() * 0.2);
+        }
+        List<double[]> zones = index.getZones();
+        assertEquals("All zones should be registered", zoneCount, index.size());
+        for (int i = 0; i < 20_000; i++) {
+            double lat;
+            double lon;
+            if (i % 4 == 0) {
+                double[] zone = zones.get(random.nextInt(zoneCount));
+                lat = Math.min(zone[1], 23.0);
+                lon = Math.min(zone[3], 42.0);
+            } else {
+                lat = 18.0 + random.nextDouble() * 5.0;
+                lon = 39.0 + random.nextDouble() * 3.0;
+            }
+            assertEquals("Index should agree with a linear scan", linearFind(zones, lat, lon), index.find(lat, lon));
+        }
+    }
+
+    /**
+     * Verifies that zones registered through the system raise
+     * RESTRICTED_ZONE alerts and that points outside the region never
+     * match a zone.
+     */
+    @Test
+    public void testAddRestrictedZone() {
+        BoatDetectionSystem system = new BoatDetectionSystem();
+        system.addRestrictedZone(19.0, 19.2, 39.5, 39.7);
+        assertEquals("Default and new zone should be listed", 2, system.getRestrictedZones().size());
+        Boat boat = system.addBoat("chipZone");
+        system.updateBoatLocation(boat.getId(), 19.1, 39.6, LocalDateTime.of(2025, 1, 1, 10, 0));
+        assertEquals("Boat should be RED inside the new zone", Status.RED, boat.getStatus());
+        assertEquals("Alert should be RESTRICTED_ZONE", AlertType.RESTRICTED_ZONE, system.getAlertLog().get(0).getType());
+
+        ZoneIndex index = new ZoneIndex(18.0, 23.0, 39.0, 42.0, 0.05);
+        index.add(17.0, 24.0, 38.0, 43.0);
+        assertEquals("Point inside region should match", 0, index.find(20.0, 40.0));
+        assertEquals("Point outside region should not match", -1, index.find(17.5, 40.0));
+    }
+
+    private static int linearFind(List<double[]> zones, double lat, double lon) {
+        for (int i = 0; i < zones.size(); i++) {
+            double[] zone = zones.get(i);
+            if (lat >= zone[0] && lat <= zone[1] && lon >= zone[2] && lon <= zone[3]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
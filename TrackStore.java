@@ -0,0 +1,289 @@
+package com.boattracking;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only history of the positions reported by each boat.
+ *
+ * <p>Fixes are appended to per-boat chunks of up to
+ * {@value #FIXES_PER_CHUNK} fixes.  Within a chunk each fix is stored as
+ * the difference from the previous one in time (milliseconds) and in
+ * latitude and longitude (units of 1e-7 degree, about 1 cm), written as
+ * zig-zag variable-length integers.  A boat drifting a few metres every
+ * few seconds therefore costs a handful of bytes per fix instead of the
+ * 24 bytes of raw values.  Coordinates are rounded to 1e-7 degree.</p>
+ *
+ * <p>Every chunk remembers the earliest and latest time it holds, so a
+ * range query only decodes the chunks overlapping the range.  Fixes are
+ * kept in arrival order and a range query returns them in that order;
+ * fixes arriving late are kept and found by queries too.</p>
+ *
+ * <p>The store is thread-safe.  Appends to different boats do not
+ * contend; appends to the same boat are serialised.</p>
+ */
+public class TrackStore {
+
+    /**
+     * Maximum number of fixes encoded in one chunk.
+     */
+    static final int FIXES_PER_CHUNK = 1024;
+
+    private static final double E7 = 1e7;
+
+    /**
+     * Fixes of one boat returned by a range query, in arrival order.
+     */
+    public static final class Track {
+        private final String boatId;
+        private final long[] times;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final int size;
+
+        Track(String boatId, long[] times, double[] latitudes, double[] longitudes, int size) {
+            this.boatId = boatId;
+            this.times = times;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.size = size;
+        }
+
+        public String getBoatId() {
+            return boatId;
+        }
+
+        /**
+         * Returns the number of fixes in the track.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the time of fix {@code i} in milliseconds since the
+         * epoch.
+         */
+        public long getTime(int i) {
+            Objects.checkIndex(i, size);
+            return times[i];
+        }
+
+        public double getLatitude(int i) {
+            Objects.checkIndex(i, size);
+            return latitudes[i];
+        }
+
+        public double getLongitude(int i) {
+            Objects.checkIndex(i, size);
+            return longitudes[i];
+        }
+    }
+
+    private final Map<String, BoatTrack> tracks = new ConcurrentHashMap<>();
+
+    /**
+     * Appends a fix to the history of a boat.
+     *
+     * @param boatId      the boat's identifier
+     * @param epochMillis the time of the fix in milliseconds since the epoch
+     * @param latitude    the latitude of the fix
+     * @param longitude   the longitude of the fix
+     */
+    public void append(String boatId, long epochMillis, double latitude, double longitude) {
+        BoatTrack track = tracks.computeIfAbsent(boatId, id -> new BoatTrack());
+        track.append(epochMillis, Math.round(latitude * E7), Math.round(longitude * E7));
+    }
+
+    /**
+     * Returns the fixes of a boat whose time lies in
+     * {@code [fromMillis, toMillis]}.
+     *
+     * @param boatId     the boat's identifier
+     * @param fromMillis the start of the range, inclusive
+     * @param toMillis   the end of the range, inclusive
+     * @return the matching fixes; empty if the boat has none
+     */
+    public Track getTrack(String boatId, long fromMillis, long toMillis) {
+        BoatTrack track = tracks.get(boatId);
+        if (track == null || fromMillis > toMillis) {
+            return new Track(boatId, new long[0], new double[0], new double[0], 0);
+        }
+        return track.query(boatId, fromMillis, toMillis);
+    }
+
+    /**
+     * Returns the fixes of a boat between two local date-times in
+     * {@link BoatDetectionSystem#LOCAL_OFFSET}, both inclusive.
+     *
+     * @param boatId the boat's identifier
+     * @param from   the start of the range
+     * @param to     the end of the range
+     * @return the matching fixes; empty if the boat has none
+     */
+    public Track getTrack(String boatId, LocalDateTime from, LocalDateTime to) {
+        return getTrack(boatId, BoatDetectionSystem.toEpochMillis(from), BoatDetectionSystem.toEpochMillis(to));
+    }
+
+    /**
+     * Returns the number of fixes recorded for a boat.
+     */
+    public long getFixCount(String boatId) {
+        BoatTrack track = tracks.get(boatId);
+        return track == null ? 0 : track.fixCount();
+    }
+
+    /**
+     * Returns the number of bytes used by the encoded fixes of all
+     * boats, excluding per-chunk bookkeeping.
+     */
+    public long getEncodedBytes() {
+        long total = 0;
+        for (BoatTrack track : tracks.values()) {
+            total += track.encodedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * History of one boat: sealed chunks plus the chunk being filled.
+     */
+    private static final class BoatTrack {
+        private final List<Chunk> sealed = new ArrayList<>();
+        private Chunk open = new Chunk();
+        private long fixCount;
+
+        synchronized void append(long time, long latE7, long lonE7) {
+            if (open.count == FIXES_PER_CHUNK) {
+                open.seal();
+                sealed.add(open);
+                open = new Chunk();
+            }
+            open.append(time, latE7, lonE7);
+            fixCount++;
+        }
+
+        synchronized Track query(String boatId, long from, long to) {
+            int capacity = 0;
+            for (Chunk chunk : sealed) {
+                if (chunk.overlaps(from, to)) {
+                    capacity += chunk.count;
+                }
+            }
+            if (open.overlaps(from, to)) {
+                capacity += open.count;
+            }
+            long[] times = new long[capacity];
+            double[] lats = new double[capacity];
+            double[] lons = new double[capacity];
+            int size = 0;
+            for (Chunk chunk : sealed) {
+                if (chunk.overlaps(from, to)) {
+                    size = chunk.decode(from, to, times, lats, lons, size);
+                }
+            }
+            if (open.overlaps(from, to)) {
+                size = open.decode(from, to, times, lats, lons, size);
+            }
+            return new Track(boatId, times, lats, lons, size);
+        }
+
+        synchronized long fixCount() {
+            return fixCount;
+        }
+
+        synchronized long encodedBytes() {
+            long total = open.length;
+            for (Chunk chunk : sealed) {
+                total += chunk.length;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Delta-encoded run of fixes.  The first fix is encoded against zero,
+     * so decoding always starts at the beginning of the chunk.
+     */
+    private static final class Chunk {
+        private byte[] data = new byte[256];
+        private int length;
+        private int count;
+        private long minTime = Long.MAX_VALUE;
+        private long maxTime = Long.MIN_VALUE;
+        private long lastTime;
+        private long lastLat;
+        private long lastLon;
+
+        void append(long time, long latE7, long lonE7) {
+            if (data.length - length < 30) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            writeVarLong(time - lastTime);
+            writeVarLong(latE7 - lastLat);
+            writeVarLong(lonE7 - lastLon);
+            lastTime = time;
+            lastLat = latE7;
+            lastLon = lonE7;
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+            count++;
+        }
+
+        void seal() {
+            data = Arrays.copyOf(data, length);
+        }
+
+        boolean overlaps(long from, long to) {
+            return count > 0 && minTime <= to && maxTime >= from;
+        }
+
+        int decode(long from, long to, long[] times, double[] lats, double[] lons, int size) {
+            int pos = 0;
+            long time = 0;
+            long lat = 0;
+            long lon = 0;
+            for (int i = 0; i < count; i++) {
+                for (int field = 0; field < 3; field++) {
+                    long raw = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = data[pos++];
+                        raw |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    long value = (raw >>> 1) ^ -(raw & 1);
+                    if (field == 0) {
+                        time += value;
+                    } else if (field == 1) {
+                        lat += value;
+                    } else {
+                        lon += value;
+                    }
+                }
+                if (time >= from && time <= to) {
+                    times[size] = time;
+                    lats[size] = lat / E7;
+                    lons[size] = lon / E7;
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        private void writeVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                data[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            data[length++] = (byte) zigzag;
+        }
+    }
+}
@@ -0,0 +1,561 @@
+package com.boattracking;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Durable journal of the changes made to a {@link BoatDetectionSystem}.
+ *
+ * <p>Once attached, the system records every registered boat, every
+ * applied position update and every raised alert here.  Position
+ * records carry the resulting state of the boat (position, time,
+ * status and open violation) rather than the raw fix, so replaying them
+ * restores that state exactly without evaluating anything again.</p>
+ *
+ * <p>Records are appended to in-memory buffers and written to the log
+ * file in groups: a background thread writes and forces the buffers
+ * every sync interval, or sooner once they grow large.  A crash can
+ * therefore lose at most the last sync interval of changes.  Each record
+ * carries a CRC32, and recovery stops at the first torn or corrupt
+ * record.  Boat records are buffered per stripe of boat identifiers, so
+ * updates of different boats rarely contend for a buffer; all records of
+ * one boat share a stripe and stay in order.  Alerts have a buffer of
+ * their own.</p>
+ *
+ * <p>If writing or forcing the log fails, the log stops accepting
+ * records, since the file may now end in a partial group.  Every sync
+ * reports the failure until the next successful checkpoint, which
+ * snapshots the whole system and starts a fresh log.</p>
+ *
+ * <p>To keep recovery short the log is periodically checkpointed.  All
+ * updates are paused only while the state of the system is copied, the
+ * log is moved aside to {@value #PREVIOUS_LOG_FILE} and a new log of the
+ * next generation is started.  The {@link FleetSnapshot} of the next
+ * generation is then written from the copy while updates go on, and
+ * the previous log is deleted once the snapshot is in place.  Recovery
+ * loads the snapshot and replays the previous log and then the current
+ * one, each only if it continues what was loaded so far.  A process
+ * that died before the new snapshot was written therefore recovers from
+ * the older snapshot and both logs, and a log left over from an older
+ * generation is ignored.</p>
+ */
+public class WriteAheadLog implements Closeable {
+
+    static final String LOG_FILE = "fleet.wal";
+    static final String PREVIOUS_LOG_FILE = "fleet.wal.previous";
+    static final String SNAPSHOT_FILE = "fleet.snapshot";
+
+    static final int MAGIC = 0x4254574C; // "BTWL"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 8;
+
+    static final byte ADD = 1;
+    static final byte UPDATE = 2;
+    static final byte ALERT = 3;
+
+    /**
+     * Buffered bytes above which a write is scheduled without waiting for
+     * the next sync interval.
+     */
+    private static final int GROUP_COMMIT_BYTES = 256 * 1024;
+
+    /**
+     * Number of buffers boat records are spread over.
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * Initial size of each stripe buffer; buffers grow as needed.
+     */
+    private static final int STRIPE_BUFFER_BYTES = 16 * 1024;
+
+    private final Path directory;
+    private final BoatDetectionSystem system;
+    private final ScheduledExecutorService syncer;
+    private final ScheduledExecutorService checkpointer;
+    private final Object checkpointLock = new Object();
+    private final Object ioLock = new Object();
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Stripe alerts = new Stripe();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * The write failure that stopped the log, or {@code null}.
+     */
+    private volatile IOException failure;
+
+    // Guarded by ioLock
+    private FileChannel channel;
+    private long generation;
+    private boolean closed;
+
+    private WriteAheadLog(Path directory, BoatDetectionSystem system, long generation) throws IOException {
+        this.directory = directory;
+        this.system = system;
+        this.generation = generation;
+        this.channel = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.syncer = daemonExecutor("write-ahead-log");
+        // Snapshots are written on their own thread so syncs go on meanwhile
+        this.checkpointer = daemonExecutor("write-ahead-log-checkpoint");
+    }
+
+    private static ScheduledExecutorService daemonExecutor(String name) {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Rebuilds a system from the snapshot and log in {@code directory}.
+     * An empty or missing directory yields a new, empty system.
+     *
+     * @param directory the directory holding the snapshot and log
+     * @return the recovered system
+     * @throws IOException if the snapshot or log cannot be read
+     */
+    public static BoatDetectionSystem recover(Path directory) throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        BoatDetectionSystem system;
+        long generation;
+        if (Files.exists(snapshot)) {
+            FleetSnapshot.Loaded loaded = FleetSnapshot.read(snapshot);
+            system = loaded.system;
+            generation = loaded.generation;
+        } else {
+            system = new BoatDetectionSystem();
+            generation = 0;
+        }
+        // The previous log is left only if its snapshot was never written
+        for (Path log : new Path[] {directory.resolve(PREVIOUS_LOG_FILE), directory.resolve(LOG_FILE)}) {
+            if (Files.exists(log) && replay(log, generation, system) >= 0) {
+                generation++;
+            }
+        }
+        return system;
+    }
+
+    /**
+     * Starts journaling a system into {@code directory}.  The current
+     * state of the system is checkpointed first, so the directory always
+     * holds a snapshot once this returns.
+     *
+     * @param directory          the directory for the snapshot and log;
+     *                           created if missing
+     * @param system             the system to journal, typically the one
+     *                           returned by {@link #recover(Path)}
+     * @param syncIntervalMillis how often buffered records are forced to
+     *                           disk, in milliseconds
+     * @param checkpointMillis   how often a snapshot is taken and the log
+     *                           replaced, in milliseconds, or {@code 0}
+     *                           to checkpoint only on request
+     * @return the attached log
+     * @throws IOException if the directory or files cannot be written
+     */
+    public static WriteAheadLog open(Path directory, BoatDetectionSystem system,
+                                     long syncIntervalMillis, long checkpointMillis) throws IOException {
+        if (syncIntervalMillis <= 0) {
+            throw new IllegalArgumentException("syncIntervalMillis must be positive");
+        }
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        long generation = Files.exists(snapshot) ? FleetSnapshot.readGeneration(snapshot) : 0;
+        WriteAheadLog wal = new WriteAheadLog(directory, system, generation);
+        try {
+            wal.checkpoint(true);
+        } catch (IOException | RuntimeException e) {
+            wal.syncer.shutdownNow();
+            wal.checkpointer.shutdownNow();
+            wal.channel.close();
+            throw e;
+        }
+        wal.syncer.scheduleWithFixedDelay(wal::syncQuietly, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        if (checkpointMillis > 0) {
+            wal.checkpointer.scheduleWithFixedDelay(wal::checkpointQuietly, checkpointMillis, checkpointMillis, TimeUnit.MILLISECONDS);
+        }
+        return wal;
+    }
+
+    /**
+     * Records a newly registered boat.
+     */
+    void logBoatAdded(String boatId, String chipId, int nextId) {
+        Stripe stripe = stripeFor(boatId);
+        synchronized (stripe) {
+            ByteBuffer out = startRecord(stripe, 1 + FleetSnapshot.maxUTFBytes(boatId) + FleetSnapshot.maxUTFBytes(chipId) + 4);
+            if (out != null) {
+                out.put(ADD);
+                FleetSnapshot.putUTF(out, boatId);
+                FleetSnapshot.putUTF(out, chipId);
+                out.putInt(nextId);
+                endRecord(stripe);
+            }
+        }
+    }
+
+    /**
+     * Records the state of a boat after a position update.
+     */
+    void logBoatState(FleetStore store, int slot) {
+        Stripe stripe = stripeFor(store.getBoatId(slot));
+        synchronized (stripe) {
+            ByteBuffer out = startRecord(stripe, 1 + FleetSnapshot.maxBoatBytes(store, slot));
+            if (out != null) {
+                out.put(UPDATE);
+                FleetSnapshot.putBoat(out, store, slot);
+                endRecord(stripe);
+            }
+        }
+    }
+
+    /**
+     * Records a raised alert.
+     */
+    void logAlert(Alert alert) {
+        synchronized (alerts) {
+            ByteBuffer out = startRecord(alerts, 1 + FleetSnapshot.maxAlertBytes(alert));
+            if (out != null) {
+                out.put(ALERT);
+                FleetSnapshot.putAlert(out, alert);
+                endRecord(alerts);
+            }
+        }
+    }
+
+    private Stripe stripeFor(String boatId) {
+        int h = boatId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Makes room for a record of at most {@code maxLength} bytes in the
+     * stripe's pending buffer and returns the buffer positioned at the
+     * start of the record body.  Returns {@code null}, dropping the
+     * record, while the log is stopped by a write failure.  The caller
+     * holds the stripe's monitor.
+     */
+    private ByteBuffer startRecord(Stripe stripe, int maxLength) {
+        if (failure != null) {
+            return null;
+        }
+        ByteBuffer pending = stripe.pending;
+        if (pending.remaining() < maxLength + 8) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + maxLength + 8));
+            pending.flip();
+            larger.put(pending);
+            stripe.pending = pending = larger;
+        }
+        stripe.recordStart = pending.position();
+        pending.position(stripe.recordStart + 8);
+        return pending;
+    }
+
+    /**
+     * Frames the record just written to the stripe's pending buffer with
+     * its length and checksum.  The caller holds the stripe's monitor.
+     */
+    private void endRecord(Stripe stripe) {
+        ByteBuffer pending = stripe.pending;
+        int start = stripe.recordStart;
+        int length = pending.position() - start - 8;
+        stripe.crc.reset();
+        stripe.crc.update(pending.array(), start + 8, length);
+        pending.putInt(start, length);
+        pending.putInt(start + 4, (int) stripe.crc.getValue());
+        if (bufferedBytes.addAndGet(length + 8) >= GROUP_COMMIT_BYTES && flushScheduled.compareAndSet(false, true)) {
+            syncer.execute(this::syncQuietly);
+        }
+    }
+
+    /**
+     * Writes all buffered records to the log file and forces them to
+     * disk.
+     *
+     * @throws IOException if the log cannot be written now, or could not
+     *                     be written earlier and has not been
+     *                     checkpointed since
+     */
+    public void sync() throws IOException {
+        synchronized (ioLock) {
+            if (closed) {
+                return;
+            }
+            if (failure != null) {
+                throw new IOException("Write-ahead log stopped after a write failure", failure);
+            }
+            ByteBuffer[] groups = takeBuffers();
+            try {
+                long remaining = 0;
+                for (ByteBuffer group : groups) {
+                    remaining += group.remaining();
+                }
+                while (remaining > 0) {
+                    remaining -= channel.write(groups);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            } finally {
+                for (ByteBuffer group : groups) {
+                    group.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Swaps the pending buffer of every stripe with its spare and returns
+     * the filled buffers, ready to be written.  The caller holds
+     * {@code ioLock}.
+     */
+    private ByteBuffer[] takeBuffers() {
+        flushScheduled.set(false);
+        ByteBuffer[] groups = new ByteBuffer[STRIPES + 1];
+        for (int i = 0; i <= STRIPES; i++) {
+            // Alerts go last, after the boats they refer to
+            Stripe stripe = i < STRIPES ? stripes[i] : alerts;
+            synchronized (stripe) {
+                ByteBuffer full = stripe.pending;
+                stripe.pending = stripe.writing;
+                stripe.writing = full;
+            }
+            groups[i] = stripe.writing.flip();
+            bufferedBytes.addAndGet(-groups[i].limit());
+        }
+        return groups;
+    }
+
+    /**
+     * Takes a snapshot of the system and starts a new log.  Updates of
+     * the system are paused while its state is copied and the log is
+     * replaced; the snapshot is written afterwards.
+     *
+     * @throws IOException if the snapshot or log cannot be written
+     */
+    public void checkpoint() throws IOException {
+        checkpoint(false);
+    }
+
+    private void checkpoint(boolean attach) throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        Path previous = directory.resolve(PREVIOUS_LOG_FILE);
+        synchronized (checkpointLock) {
+            IOException[] error = new IOException[1];
+            FleetSnapshot.Image[] image = new FleetSnapshot.Image[1];
+            long[] imageGeneration = new long[1];
+            system.quiesce(() -> {
+                try {
+                    synchronized (ioLock) {
+                        if (closed) {
+                            return;
+                        }
+                        long next = generation + 1;
+                        if (failure == null && !Files.exists(previous)) {
+                            // The old log stays until the snapshot replacing it is in place
+                            sync();
+                            Files.move(directory.resolve(LOG_FILE), previous, StandardCopyOption.ATOMIC_MOVE);
+                            startLog(next);
+                            image[0] = new FleetSnapshot.Image(system);
+                            imageGeneration[0] = next;
+                        } else {
+                            // The log cannot be continued, or the last snapshot was
+                            // never written: write the snapshot before starting over
+                            if (failure == null) {
+                                sync();
+                            } else {
+                                // The snapshot supersedes whatever the failed log holds
+                                for (ByteBuffer group : takeBuffers()) {
+                                    group.clear();
+                                }
+                            }
+                            FleetSnapshot.write(new FleetSnapshot.Image(system), next, snapshot);
+                            startLog(next);
+                            Files.deleteIfExists(previous);
+                        }
+                    }
+                    if (attach) {
+                        system.setWriteAheadLog(this);
+                    }
+                } catch (IOException e) {
+                    error[0] = e;
+                }
+            });
+            if (error[0] != null) {
+                throw error[0];
+            }
+            if (image[0] != null) {
+                FleetSnapshot.write(image[0], imageGeneration[0], snapshot);
+                Files.delete(previous);
+            }
+        }
+    }
+
+    /**
+     * Replaces the log file with an empty log of the given generation.
+     * The caller holds {@code ioLock}.
+     */
+    private void startLog(long next) throws IOException {
+        try {
+            FileChannel log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putShort((short) VERSION).putLong(next).flip();
+                while (header.hasRemaining()) {
+                    log.write(header);
+                }
+                log.force(true);
+            } catch (IOException e) {
+                log.close();
+                throw e;
+            }
+            channel.close();
+            channel = log;
+        } catch (IOException e) {
+            // The log no longer continues any snapshot
+            failure = e;
+            throw e;
+        }
+        generation = next;
+        failure = null;
+    }
+
+    /**
+     * Returns the generation of the current log, incremented by every
+     * checkpoint.
+     */
+    public long getGeneration() {
+        synchronized (ioLock) {
+            return generation;
+        }
+    }
+
+    /**
+     * Detaches the log from the system, writes the remaining records and
+     * closes the file.
+     *
+     * @throws IOException if the last records cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        system.quiesce(() -> system.setWriteAheadLog(null));
+        // Not shutdownNow(): interrupting a sync in progress would close
+        // the channel under it.  Tasks still queued find the log closed.
+        syncer.shutdown();
+        checkpointer.shutdown();
+        try {
+            sync();
+        } finally {
+            synchronized (ioLock) {
+                closed = true;
+                channel.close();
+            }
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            System.err.println("Write-ahead log sync failed: " + e.getMessage());
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            System.err.println("Write-ahead log checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies the records of a log to a system, if the log belongs to the
+     * given generation.  Replay stops at the first incomplete or corrupt
+     * record, which is where the previous process stopped writing.
+     *
+     * @return the number of records applied, or {@code -1} if the log
+     *         does not belong to the generation
+     */
+    static int replay(Path log, long generation, BoatDetectionSystem system) throws IOException {
+        int applied = -1;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(log), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION || in.readLong() != generation) {
+                return -1;
+            }
+            applied = 0;
+            CRC32 check = new CRC32();
+            while (true) {
+                int length = in.readInt();
+                int expected = in.readInt();
+                if (length <= 0 || length > (1 << 20)) {
+                    break;
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                check.reset();
+                check.update(bytes, 0, length);
+                if ((int) check.getValue() != expected) {
+                    break;
+                }
+                apply(ByteBuffer.wrap(bytes), system);
+                applied++;
+            }
+        } catch (EOFException e) {
+            // Torn tail: the process stopped in the middle of a record
+        }
+        return applied;
+    }
+
+    /**
+     * Buffers of one stripe of records.  The pending buffer, into which
+     * records are encoded in place, is guarded by the stripe's monitor;
+     * the buffer being written is used only under {@code ioLock}.
+     */
+    private static final class Stripe {
+        final CRC32 crc = new CRC32();
+        int recordStart;
+        ByteBuffer pending = ByteBuffer.allocate(STRIPE_BUFFER_BYTES);
+        ByteBuffer writing = ByteBuffer.allocate(STRIPE_BUFFER_BYTES);
+    }
+
+    private static void apply(ByteBuffer in, BoatDetectionSystem system) throws IOException {
+        byte type = in.get();
+        switch (type) {
+            case ADD:
+                system.restoreBoat(FleetSnapshot.readUTF(in), FleetSnapshot.readUTF(in));
+                system.restoreNextId(in.getInt());
+                break;
+            case UPDATE:
+                FleetSnapshot.readBoat(in, system);
+                break;
+            case ALERT:
+                system.restoreAlert(FleetSnapshot.readAlert(in));
+                break;
+            default:
+                throw new IOException("Unknown log record type " + type);
+        }
+    }
+}
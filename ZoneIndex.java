@@ -0,0 +1,218 @@
+package com.boattracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Spatial index over the restricted zones of the monitoring region.
+ *
+ * <p>The region is divided into a uniform grid of square cells.  Each
+ * cell lists the zones whose bounding boxes overlap it, so a lookup
+ * only inspects the handful of zones near the queried point instead of
+ * every zone in the system.  Zones are clipped to the indexed region;
+ * points outside the region never match.</p>
+ *
+ * <p>Zones are usually registered once at start-up while lookups happen
+ * on every position fix, possibly from several threads.  Registration
+ * therefore copies the affected structures and publishes a new
+ * immutable snapshot, leaving lookups free of locks.</p>
+ */
+public class ZoneIndex {
+
+    private final double minLat;
+    private final double maxLat;
+    private final double minLon;
+    private final double maxLon;
+    private final double cellSize;
+    private final int rows;
+    private final int cols;
+
+    /**
+     * Current contents of the index.  Replaced wholesale on every
+     * registration.
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Immutable view of the registered zones and the grid cells that
+     * reference them.
+     */
+    private static final class Snapshot {
+        final double[][] zones;
+        final GeoPolygon[] shapes;
+        final int[][] cells;
+
+        Snapshot(double[][] zones, GeoPolygon[] shapes, int[][] cells) {
+            this.zones = zones;
+            this.shapes = shapes;
+            this.cells = cells;
+        }
+    }
+
+    /**
+     * Creates an empty index covering the given region.
+     *
+     * @param minLat   southern boundary of the region
+     * @param maxLat   northern boundary of the region
+     * @param minLon   western boundary of the region
+     * @param maxLon   eastern boundary of the region
+     * @param cellSize edge length of a grid cell in degrees
+     */
+    public ZoneIndex(double minLat, double maxLat, double minLon, double maxLon, double cellSize) {
+        if (!(maxLat > minLat) || !(maxLon > minLon)) {
+            throw new IllegalArgumentException("Region must have a positive extent");
+        }
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("cellSize must be positive");
+        }
+        this.minLat = minLat;
+        this.maxLat = maxLat;
+        this.minLon = minLon;
+        this.maxLon = maxLon;
+        this.cellSize = cellSize;
+        this.rows = Math.max(1, (int) Math.ceil((maxLat - minLat) / cellSize));
+        this.cols = Math.max(1, (int) Math.ceil((maxLon - minLon) / cellSize));
+        this.snapshot = new Snapshot(new double[0][], new GeoPolygon[0], new int[rows * cols][]);
+    }
+
+    /**
+     * Registers a rectangular zone.  Bounds are inclusive.
+     *
+     * @param zMinLat southern boundary of the zone
+     * @param zMaxLat northern boundary of the zone
+     * @param zMinLon western boundary of the zone
+     * @param zMaxLon eastern boundary of the zone
+     * @return the index of the new zone
+     */
+    public int add(double zMinLat, double zMaxLat, double zMinLon, double zMaxLon) {
+        if (zMinLat > zMaxLat || zMinLon > zMaxLon) {
+            throw new IllegalArgumentException("Zone bounds are inverted");
+        }
+        return register(zMinLat, zMaxLat, zMinLon, zMaxLon, null);
+    }
+
+    /**
+     * Registers a polygonal zone.  The polygon's bounding box is used to
+     * place it in the grid; candidates are then confirmed with an exact
+     * point-in-polygon test.
+     *
+     * @param polygon the zone outline
+     * @return the index of the new zone
+     */
+    public int add(GeoPolygon polygon) {
+        Objects.requireNonNull(polygon, "polygon must not be null");
+        return register(polygon.getMinLat(), polygon.getMaxLat(), polygon.getMinLon(), polygon.getMaxLon(), polygon);
+    }
+
+    private synchronized int register(double zMinLat, double zMaxLat, double zMinLon, double zMaxLon, GeoPolygon shape) {
+        Snapshot current = snapshot;
+        int id = current.zones.length;
+        double[][] zones = Arrays.copyOf(current.zones, id + 1);
+        zones[id] = new double[]{zMinLat, zMaxLat, zMinLon, zMaxLon};
+        GeoPolygon[] shapes = Arrays.copyOf(current.shapes, id + 1);
+        shapes[id] = shape;
+
+        int[][] cells = current.cells;
+        if (zMaxLat >= minLat && zMinLat <= maxLat && zMaxLon >= minLon && zMinLon <= maxLon) {
+            cells = cells.clone();
+            int r0 = row(zMinLat);
+            int r1 = row(zMaxLat);
+            int c0 = col(zMinLon);
+            int c1 = col(zMaxLon);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    int cell = r * cols + c;
+                    int[] ids = cells[cell];
+                    if (ids == null) {
+                        ids = new int[]{id};
+                    } else {
+                        ids = Arrays.copyOf(ids, ids.length + 1);
+                        ids[ids.length - 1] = id;
+                    }
+                    cells[cell] = ids;
+                }
+            }
+        }
+        snapshot = new Snapshot(zones, shapes, cells);
+        return id;
+    }
+
+    /**
+     * Removes all zones.  Indices handed out before are no longer valid.
+     */
+    public synchronized void clear() {
+        snapshot = new Snapshot(new double[0][], new GeoPolygon[0], new int[rows * cols][]);
+    }
+
+    /**
+     * Finds a zone containing the given point.  When zones overlap, the
+     * earliest registered one is returned.
+     *
+     * @param lat the latitude of the point
+     * @param lon the longitude of the point
+     * @return the index of a matching zone, or {@code -1} if none
+     */
+    public int find(double lat, double lon) {
+        if (lat < minLat || lat > maxLat || lon < minLon || lon > maxLon) {
+            return -1;
+        }
+        Snapshot current = snapshot;
+        int[] ids = current.cells[row(lat) * cols + col(lon)];
+        if (ids == null) {
+            return -1;
+        }
+        for (int id : ids) {
+            double[] zone = current.zones[id];
+            if (lat >= zone[0] && lat <= zone[1] && lon >= zone[2] && lon <= zone[3]) {
+                GeoPolygon shape = current.shapes[id];
+                if (shape == null || shape.contains(lat, lon)) {
+                    return id;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of registered zones.
+     */
+    public int size() {
+        return snapshot.zones.length;
+    }
+
+    /**
+     * Returns copies of all registered zones in registration order, each
+     * as {@code {minLat, maxLat, minLon, maxLon}}.  For polygonal zones
+     * this is the polygon's bounding box.
+     */
+    public List<double[]> getZones() {
+        double[][] zones = snapshot.zones;
+        List<double[]> result = new ArrayList<>(zones.length);
+        for (double[] zone : zones) {
+            result.add(zone.clone());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the polygon of a zone.
+     *
+     * @param id the index of the zone
+     * @return the zone's polygon, or {@code null} for a rectangular zone
+     */
+    public GeoPolygon getPolygon(int id) {
+        return snapshot.shapes[id];
+    }
+
+    private int row(double lat) {
+        int r = (int) ((lat - minLat) / cellSize);
+        return Math.min(Math.max(r, 0), rows - 1);
+    }
+
+    private int col(double lon) {
+        int c = (int) ((lon - minLon) / cellSize);
+        return Math.min(Math.max(c, 0), cols - 1);
+    }
+}